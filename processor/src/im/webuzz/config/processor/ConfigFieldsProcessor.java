@@ -0,0 +1,209 @@
+package im.webuzz.config.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generate static field accessors for configuration classes annotated with
+ * @ConfigClass or @ConfigKeyPrefix.
+ *
+ * For class a.b.C, class a.b.C$ConfigFields is generated, which extends
+ * im.webuzz.config.common.ConfigStaticField and reads or writes C's static
+ * fields directly. At runtime, parsers and generators will use it instead of
+ * reflection or method handles once it is found on the class path.
+ *
+ * Private or final fields and private classes are skipped, they are still
+ * accessed by reflection.
+ */
+public class ConfigFieldsProcessor extends AbstractProcessor {
+
+	private static final String SUFFIX = "$ConfigFields";
+	private static final String[] annotationTypes = new String[] {
+		"im.webuzz.config.annotation.ConfigClass",
+		"im.webuzz.config.annotation.ConfigKeyPrefix",
+	};
+
+	private Set<String> generatedClasses = new HashSet<String>();
+
+	@Override
+	public Set<String> getSupportedAnnotationTypes() {
+		return new HashSet<String>(Arrays.asList(annotationTypes));
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		Set<TypeElement> types = new LinkedHashSet<TypeElement>();
+		for (TypeElement annotation : annotations) {
+			for (Element el : roundEnv.getElementsAnnotatedWith(annotation)) {
+				if (el.getKind() == ElementKind.CLASS) types.add((TypeElement) el);
+			}
+		}
+		for (TypeElement type : types) {
+			if (!isAccessible(type)) continue;
+			String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+			if (!generatedClasses.add(binaryName)) continue;
+			List<VariableElement> fields = new ArrayList<VariableElement>();
+			for (VariableElement f : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+				Set<Modifier> modifiers = f.getModifiers();
+				if (!modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.FINAL)
+						|| modifiers.contains(Modifier.PRIVATE)) continue;
+				fields.add(f);
+			}
+			if (fields.isEmpty()) continue;
+			try {
+				generate(type, binaryName, fields);
+			} catch (IOException e) {
+				processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+						"Failed to generate configuration field accessors: " + e.getMessage(), type);
+			}
+		}
+		return false; // let other processors see these annotations too
+	}
+
+	// Generated class is in the same package, so non-private classes and fields are accessible
+	private static boolean isAccessible(TypeElement type) {
+		Element el = type;
+		while (el instanceof TypeElement) {
+			TypeElement t = (TypeElement) el;
+			if (t.getModifiers().contains(Modifier.PRIVATE)) return false;
+			NestingKind nesting = t.getNestingKind();
+			if (nesting == NestingKind.LOCAL || nesting == NestingKind.ANONYMOUS) return false;
+			if (nesting == NestingKind.MEMBER && !t.getModifiers().contains(Modifier.STATIC)) return false;
+			el = t.getEnclosingElement();
+		}
+		return true;
+	}
+
+	private void generate(TypeElement type, String binaryName, List<VariableElement> fields) throws IOException {
+		String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+		String simpleName = (packageName.length() == 0 ? binaryName : binaryName.substring(packageName.length() + 1)) + SUFFIX;
+		String owner = type.getQualifiedName().toString();
+		StringBuilder builder = new StringBuilder();
+		if (packageName.length() > 0) builder.append("package ").append(packageName).append(";\r\n\r\n");
+		builder.append("import java.lang.reflect.Field;\r\n\r\n")
+				.append("import im.webuzz.config.common.ConfigField;\r\n")
+				.append("import im.webuzz.config.common.ConfigStaticField;\r\n\r\n")
+				.append("// Generated by ").append(ConfigFieldsProcessor.class.getName()).append(", do not edit.\r\n")
+				.append("@SuppressWarnings({ \"unchecked\", \"rawtypes\" })\r\n")
+				.append("public final class ").append(simpleName).append(" extends ConfigStaticField {\r\n\r\n")
+				.append("\tpublic ").append(simpleName).append("() {\r\n")
+				.append("\t\tsuper(null, -1);\r\n")
+				.append("\t}\r\n\r\n")
+				.append("\tprivate ").append(simpleName).append("(Field field, int index) {\r\n")
+				.append("\t\tsuper(field, index);\r\n")
+				.append("\t}\r\n\r\n");
+
+		builder.append("\t@Override\r\n")
+				.append("\tpublic ConfigField create(Field field) {\r\n")
+				.append("\t\tswitch (field.getName()) {\r\n");
+		for (int i = 0; i < fields.size(); i++) {
+			builder.append("\t\tcase \"").append(fields.get(i).getSimpleName())
+					.append("\": return new ").append(simpleName).append("(field, ").append(i).append(");\r\n");
+		}
+		builder.append("\t\t}\r\n")
+				.append("\t\treturn null;\r\n")
+				.append("\t}\r\n");
+
+		// Typed getters and setters for primitive fields
+		for (TypeKind kind : new TypeKind[] { TypeKind.INT, TypeKind.LONG, TypeKind.FLOAT, TypeKind.DOUBLE,
+				TypeKind.BYTE, TypeKind.SHORT, TypeKind.BOOLEAN, TypeKind.CHAR }) {
+			String primitive = kind.name().toLowerCase();
+			String method = Character.toUpperCase(primitive.charAt(0)) + primitive.substring(1);
+			StringBuilder getCases = new StringBuilder();
+			StringBuilder setCases = new StringBuilder();
+			for (int i = 0; i < fields.size(); i++) {
+				VariableElement f = fields.get(i);
+				if (f.asType().getKind() != kind) continue;
+				String name = owner + "." + f.getSimpleName();
+				getCases.append("\t\tcase ").append(i).append(": return ").append(name).append(";\r\n");
+				setCases.append("\t\tcase ").append(i).append(": ").append(name).append(" = v; return;\r\n");
+			}
+			if (getCases.length() == 0) continue;
+			appendMethod(builder, primitive + " get" + method + "(Object owner)", getCases,
+					"return super.get" + method + "(owner);");
+			appendMethod(builder, "void set" + method + "(Object owner, " + primitive + " v)", setCases,
+					"super.set" + method + "(owner, v);");
+		}
+
+		StringBuilder typeCases = new StringBuilder();
+		StringBuilder getCases = new StringBuilder();
+		StringBuilder setCases = new StringBuilder();
+		for (int i = 0; i < fields.size(); i++) {
+			VariableElement f = fields.get(i);
+			String name = owner + "." + f.getSimpleName();
+			TypeMirror fieldType = f.asType();
+			boolean primitive = fieldType.getKind().isPrimitive();
+			String rawType = primitive ? fieldType.toString() : processingEnv.getTypeUtils().erasure(fieldType).toString();
+			String castType = primitive
+					? processingEnv.getTypeUtils().boxedClass((PrimitiveType) fieldType).getQualifiedName().toString()
+					: rawType;
+			typeCases.append("\t\tcase ").append(i).append(": return ").append(rawType).append(".class;\r\n");
+			getCases.append("\t\tcase ").append(i).append(": return ").append(name).append(";\r\n");
+			// Null for primitive fields, wrong types and widening conversions are left to
+			// reflection, which throws IllegalArgumentException as Field#set does
+			setCases.append("\t\tcase ").append(i).append(": if (v instanceof ").append(castType);
+			if (!primitive) setCases.append(" || v == null");
+			setCases.append(") { ").append(name).append(" = (").append(castType).append(") v; return; } break;\r\n");
+		}
+		builder.append("\r\n")
+				.append("\t@Override\r\n")
+				.append("\tpublic Class<?> getType() {\r\n")
+				.append("\t\tswitch (index) {\r\n")
+				.append(typeCases)
+				.append("\t\t}\r\n")
+				.append("\t\treturn super.getType();\r\n")
+				.append("\t}\r\n");
+		appendMethod(builder, "Object get(Object owner)", getCases, "return super.get(owner);");
+		appendMethod(builder, "void set(Object owner, Object v)", setCases, "super.set(owner, v);");
+		builder.append("\r\n}\r\n");
+
+		String generatedName = packageName.length() == 0 ? simpleName : packageName + "." + simpleName;
+		JavaFileObject file = processingEnv.getFiler().createSourceFile(generatedName, type);
+		Writer writer = null;
+		try {
+			writer = file.openWriter();
+			writer.write(builder.toString());
+		} finally {
+			if (writer != null) writer.close();
+		}
+	}
+
+	private static void appendMethod(StringBuilder builder, String signature, StringBuilder cases, String fallback) {
+		builder.append("\r\n")
+				.append("\t@Override\r\n")
+				.append("\tpublic ").append(signature).append(" throws IllegalArgumentException, IllegalAccessException {\r\n")
+				.append("\t\tswitch (index) {\r\n")
+				.append(cases)
+				.append("\t\t}\r\n")
+				.append("\t\t").append(fallback).append("\r\n")
+				.append("\t}\r\n");
+	}
+
+}
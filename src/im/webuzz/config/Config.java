@@ -43,17 +43,20 @@ import im.webuzz.config.codec.Bytes64Codec;
 import im.webuzz.config.codec.BytesAESCodec;
 import im.webuzz.config.codec.ConfigCodec;
 import im.webuzz.config.codec.SecretCodec;
+import im.webuzz.config.common.ConfigBindingPlan;
 import im.webuzz.config.common.FileUtils;
 import im.webuzz.config.codec.AESKeysConfig;
 import im.webuzz.config.generator.GeneratorKit;
 import im.webuzz.config.loader.ConfigFileWatcher;
 import im.webuzz.config.loader.ConfigMemoryFS;
+import im.webuzz.config.loader.ConfigSnapshot;
 import im.webuzz.config.notifier.ConfigConsoleNotifier;
 import im.webuzz.config.notifier.ConfigNotifier;
 import im.webuzz.config.loader.ConfigLoader;
 import im.webuzz.config.parser.ConfigArgumentsParser;
 import im.webuzz.config.parser.ConfigINIParser;
 import im.webuzz.config.parser.ConfigJSParser;
+import im.webuzz.config.parser.ConfigJSONParser;
 import im.webuzz.config.parser.ConfigParser;
 import im.webuzz.config.parser.ConfigXMLParser;
 
@@ -77,7 +80,7 @@ public class Config {
 	@ConfigNotNull
 	@ConfigNotEmpty(depth = 1)
 	@ConfigPattern("(\\.[a-zA-Z0-9]+)")
-	public static List<String> configurationScanningExtensions = Arrays.asList(new String[] { ".ini", ".js", ".xml" });
+	public static List<String> configurationScanningExtensions = Arrays.asList(new String[] { ".ini", ".js", ".xml", ".json" });
 	
 	@ConfigComment("Parsers for different configuration file extensions. Each file uses a corresponding parser.")
 	@ConfigNotEmpty
@@ -90,9 +93,19 @@ public class Config {
 		parsers.put("ini", ConfigINIParser.class);
 		parsers.put("js", ConfigJSParser.class);
 		parsers.put("xml", ConfigXMLParser.class);
+		parsers.put("json", ConfigJSONParser.class);
 		configurationParsers = Collections.unmodifiableMap(parsers);
 	}
 	
+	@ConfigComment("Tokenize .ini content bytes directly. Set to false to fall back to java.util.Properties loading.")
+	public static boolean configurationINITokenizer = true;
+
+	@ConfigComment({
+		"Maximum .js, .xml or .json conversion results cached by content digest. 0 disables the cache.",
+		".js files are cached only if they are plain object literals, not evaluated by the script engine."
+	})
+	public static int configurationConversionCacheSize = 64;
+
 	@ConfigComment("Singleton parser for command line arguments. Default: ConfigArgumentsParser.")
 	// The command line argument parser is a singleton, configure parser object directly.
 	public static ConfigParser<String[], String[]> commandLineParser = new ConfigArgumentsParser();
@@ -125,6 +138,7 @@ public class Config {
 		"Loader for managing configuration files. Available loaders:",
 		"- ConfigFileWatcher: Watches a local folder for configuration updates (default).",
 		"- ConfigFileOnce: Loads configuration files once without watching for updates.",
+		"- ConfigSnapshotOnce: Loads the snapshot compiled by --run:snapshot once, or configuration files if it is stale.",
 		"- ConfigWebWatcher: Fetches configurations from a remote server and checks for updates periodically.",
 		"- ConfigWebOnce: Fetches configurations from a remote server once without watching for updates.",
 		"- ConfigHybridWatcher: Checks both local folder and remote server for updates.",
@@ -181,28 +195,43 @@ public class Config {
 	})
 	public static boolean configurationSkipInvalidUpdate = true;
 
+	@ConfigComment({
+		"If true, configuration files are read, and then parsed and checked concurrently by",
+		"the binding pool (see LocalFSConfig.parallelBindingWorkers), and then fields are updated in registration",
+		"order. Default: sequential."
+	})
+	public static boolean configurationParallelBinding = false;
+
 	private static Map<String, Class<?>> allConfigs = new ConcurrentHashMap<>();
 	private static List<Class<?>> orderedConfigs = new ArrayList<>();
 	static volatile ClassLoader classLoader = null;
 	
 	private static Map<String, String> environments = new ConcurrentHashMap<String, String>();
+
+	// Cached key prefixes, and the configurations which they are resolved with
+	private static volatile Map<Class<?>, String> keyPrefixes = new ConcurrentHashMap<Class<?>, String>();
+	private static volatile Object fileNamePatterns = null;
+	private static volatile Object supportedEnvironments = null;
+	private static volatile Object prefixAnnotations = null;
 	
 	/*
 	 * In case configurations got updated from file, try to add class into configuration system
 	 */
 	public static void update(Properties prop) {
+		List<Class<?>> batch = new ArrayList<Class<?>>();
 		List<Class<?>> configClasses = configurationClasses;
 		if (configClasses != null) {
 			for (Class<?> clazz : configClasses) {
-				if (!allConfigs.containsValue(clazz)) registerClass(clazz);
+				if (!allConfigs.containsValue(clazz)) registerClass(clazz, batch);
 			}
 		}
 		List<String> configPakages = configurationPackages;
 		if (configPakages != null) {
 			for (String pkg : configPakages) {
-				if (!allConfigs.containsKey(pkg)) register(pkg);
+				if (!allConfigs.containsKey(pkg)) registerInBatch(pkg, batch);
 			}
 		}
+		addBatch(batch);
 		InternalConfigUtils.checkStrategyLoader();
 	}
 
@@ -215,6 +244,8 @@ public class Config {
 	 */
 	public static void setEnvironment(String key, String defaultValue) {
 		environments.put(key, defaultValue);
+		invalidateKeyPrefixes();
+		ConfigBindingPlan.invalidate(); // key prefixes may be changed
 	}
 	
 	/*
@@ -222,6 +253,8 @@ public class Config {
 	 */
 	public static void setEnvironments(Map<String, String> envs) {
 		environments.putAll(envs);
+		invalidateKeyPrefixes();
+		ConfigBindingPlan.invalidate(); // key prefixes may be changed
 	}
 	
 	public static String getEnvironment(String key) {
@@ -234,48 +267,73 @@ public class Config {
 			registerClass((Class<?>) cfg);
 			return;
 		}
+		registerAll(Collections.singletonList(cfg));
+	}
+	// For reflection only
+	public static void register(Object... cfgs) {
+		registerAll(Arrays.asList(cfgs));
+	}
+
+	/**
+	 * Register configuration classes, class names or packages (e.g. "a.b.*") in
+	 * a batch. All new classes are added to the configuration loader at once, so
+	 * configuration files are looked up, read and parsed in one round.
+	 * @param cfgs
+	 */
+	public static void registerAll(Collection<?> cfgs) {
+		List<Class<?>> batch = new ArrayList<Class<?>>();
+		for (Object c : cfgs) {
+			registerInBatch(c, batch);
+		}
+		addBatch(batch);
+	}
+
+	private static void registerInBatch(Object cfg, List<Class<?>> batch) {
+		if (cfg instanceof Class<?>) {
+			registerClass((Class<?>) cfg, batch);
+			return;
+		}
 		if (cfg instanceof String) {
 			String clazz = (String) cfg;
 			if (clazz.endsWith(".*")) {
-				registerPackage(clazz);
+				registerPackage(clazz, batch);
 				return;
 			}
 			Class<?> clz = InternalConfigUtils.loadConfigurationClass(clazz);
 			if (clz != null) {
-				registerClass(clz);
+				registerClass(clz, batch);
 			}
 			return;
 		}
 		if (cfg instanceof Object[]) {
 			Object[] cfgs = (Object[]) cfg;
 			for (Object c : cfgs) {
-				register(c);
+				registerInBatch(c, batch);
 			}
 			return;
 		}
 		if (cfg instanceof Collection<?>) {
 			Collection<?> cfgs = (Collection<?>) cfg;
 			for (Object c : cfgs) {
-				register(c);
+				registerInBatch(c, batch);
 			}
 			return;
 		}
 		System.out.println("[Config:ERROR] Unknown configuration item " + cfg);
 	}
-	// For reflection only
-	public static void register(Object... cfgs) {
-		for (Object c : cfgs) {
-			register(c);
-		}
-	}
 
 	protected static void registerPackage(String starredPkgName) {
+		List<Class<?>> batch = new ArrayList<Class<?>>();
+		registerPackage(starredPkgName, batch);
+		addBatch(batch);
+	}
+
+	private static void registerPackage(String starredPkgName, List<Class<?>> batch) {
 		String pkgName = starredPkgName.substring(0, starredPkgName.length() - 2);
 		try {
 			List<Class<?>> classes = InternalConfigUtils.getConfigClassesInPackage(pkgName);
 			for (Class<?> clz : classes) {
-				// Add new configuration class may trigger file reading, might be IO blocking
-				registerClass(clz);
+				registerClass(clz, batch);
 			}
 			allConfigs.put(starredPkgName, Config.class);
 		} catch (ClassNotFoundException e) {
@@ -286,6 +344,14 @@ public class Config {
 	}
 	
 	protected static void registerClass(Class<?> clazz) {
+		registerClass(clazz, null);
+	}
+
+	/*
+	 * Register the given class, and add it to the loader. If batch is given,
+	 * the class is added to the batch, and will be added to the loader later.
+	 */
+	private static void registerClass(Class<?> clazz, List<Class<?>> batch) {
 		if (clazz == null) return;
 		boolean updating = allConfigs.put(clazz.getName(), clazz) != clazz;
 		if (!updating) return;
@@ -293,12 +359,28 @@ public class Config {
 		InternalConfigUtils.initializedTime = System.currentTimeMillis();
 		ConfigParser<String[], String[]> cmdParser = commandLineParser;
 		if (cmdParser != null) cmdParser.parseConfiguration(clazz, ConfigParser.FLAG_UPDATE);
+		if (batch != null) {
+			batch.add(clazz);
+			return;
+		}
 		if (InternalConfigUtils.strategyLoader != null) InternalConfigUtils.strategyLoader.add(clazz);
 		if (configurationLogging) {
 			System.out.println("[Config:INFO] Registering configuration class " + clazz.getName() + " done.");
 		}
 	}
 
+	private static void addBatch(List<Class<?>> batch) {
+		if (batch.isEmpty()) return;
+		// Add new configuration classes may trigger file reading, might be IO blocking
+		ConfigLoader loader = InternalConfigUtils.strategyLoader;
+		if (loader != null) loader.addAll(batch.toArray(new Class<?>[batch.size()]));
+		if (configurationLogging) {
+			for (Class<?> clazz : batch) {
+				System.out.println("[Config:INFO] Registering configuration class " + clazz.getName() + " done.");
+			}
+		}
+	}
+
 	// Use Config#register instead
 	// May dependent on disk IO
 	@Deprecated
@@ -411,6 +493,9 @@ public class Config {
 			case "wrapper":
 				runWrapper(retArgs, indexOffset);
 				break;
+			case "snapshot":
+				ConfigSnapshot.run(retArgs, indexOffset);
+				break;
 			default:
 				System.out.println("[Config:ERROR] Unknown action: \"" + actionStr + "\".");
 				break;
@@ -455,7 +540,7 @@ public class Config {
 	private static void printUsage() {
 		System.out.println("Usage:");
 		System.out.println("\tjava (vm arguments, classpath...) " + Config.class.getName() + " [--c:xxx=### ...] <config file (e.g., config.ini)>"
-				+ " [--run:<usage | generator | encoder | decoder | validator | synchronizer | wrapper>] [...]");
+				+ " [--run:<usage | generator | encoder | decoder | validator | synchronizer | wrapper | snapshot>] [...]");
 		System.out.println();
 		System.out.println("For arguments like --c:xxx=###, supported formats include:");
 		System.out.println("\t--c:port=6173");
@@ -471,6 +556,7 @@ public class Config {
 		System.out.println("\t--run:validator\t\tValidates configuration files.");
 		System.out.println("\t--run:synchronizer\tSynchronizes local configurations with a remote server.");
 		System.out.println("\t--run:wrapper <class>\tExecutes the main method of the specified class.");
+		System.out.println("\t--run:snapshot [file]\tCompiles configurations into a binary snapshot.");
 	}
 
 	/*
@@ -488,7 +574,40 @@ public class Config {
 		Config.classLoader = classLoader;
 	}
 
+	/**
+	 * Return the resolved key prefix (file name) of the given configuration class.
+	 * Resolved prefixes are cached until configurationFileNamePatterns,
+	 * configurationSupportedEnvironments, configurationAnnotations or environments
+	 * are changed.
+	 * @param clz
+	 * @return null if the class has no key prefix
+	 */
 	public static String getKeyPrefix(Class<?> clz) {
+		Map<Class<?>, String> prefixes = keyPrefixes;
+		if (fileNamePatterns != configurationFileNamePatterns
+				|| supportedEnvironments != configurationSupportedEnvironments
+				|| prefixAnnotations != configurationAnnotations) {
+			prefixes = invalidateKeyPrefixes();
+		}
+		String keyPrefix = prefixes.get(clz);
+		if (keyPrefix == null) {
+			keyPrefix = resolveKeyPrefix(clz);
+			if (keyPrefix == null) keyPrefix = ""; // no key prefix
+			prefixes.put(clz, keyPrefix);
+		}
+		return keyPrefix.length() == 0 ? null : keyPrefix;
+	}
+
+	private static synchronized Map<Class<?>, String> invalidateKeyPrefixes() {
+		// Resolving threads may still put stale prefixes into the old map, which is dropped
+		keyPrefixes = new ConcurrentHashMap<Class<?>, String>();
+		fileNamePatterns = configurationFileNamePatterns;
+		supportedEnvironments = configurationSupportedEnvironments;
+		prefixAnnotations = configurationAnnotations;
+		return keyPrefixes;
+	}
+
+	private static String resolveKeyPrefix(Class<?> clz) {
 		String keyPrefix = null;
 		ConfigKeyPrefix prefixAnn = InternalConfigUtils.getSingleKnownAnnotations(clz, ConfigKeyPrefix.class);
 		if (prefixAnn != null) keyPrefix = prefixAnn.value();
@@ -11,6 +11,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -303,9 +304,23 @@ public class InternalConfigUtils {
 	}
 
 	public static File getConfigFile(String folder, String keyPrefix, StringBuilder extBuilder) {
+		return getConfigFile(folder, keyPrefix, extBuilder, null);
+	}
+
+	/**
+	 * Find the configuration file of the given key prefix. If listings is given,
+	 * existence of files is checked by the listing of the file's folder, which is
+	 * listed only once and cached in listings, instead of probing each extension.
+	 * @param folder
+	 * @param keyPrefix
+	 * @param extBuilder
+	 * @param listings, folder path => file names, null to probe files directly
+	 * @return configuration file, which may not exist
+	 */
+	public static File getConfigFile(String folder, String keyPrefix, StringBuilder extBuilder, Map<String, Set<String>> listings) {
 		String mainExt = Config.configMainExtension;
 		File fileMainExt = new File(folder, FileUtils.parseFilePath(keyPrefix + mainExt));
-		if (fileMainExt.exists()) {
+		if (fileExists(fileMainExt, listings)) {
 			if (extBuilder != null) extBuilder.append(mainExt);
 			return fileMainExt;
 		}
@@ -315,7 +330,7 @@ public class InternalConfigUtils {
 				if (firstExt == null) firstExt = ext;
 				if (ext.equals(mainExt)) continue;
 				File file = new File(folder, FileUtils.parseFilePath(keyPrefix + ext));
-				if (file.exists()) {
+				if (fileExists(file, listings)) {
 					if (extBuilder != null) extBuilder.append(ext);
 					return file;
 				}
@@ -325,6 +340,25 @@ public class InternalConfigUtils {
 		return new File(folder, FileUtils.parseFilePath(keyPrefix + firstExt));
 	}
 
+	/**
+	 * Check whether the given file exists by the cached listing of its folder.
+	 * @param file
+	 * @param listings, folder path => file names, null to probe the file directly
+	 * @return
+	 */
+	public static boolean fileExists(File file, Map<String, Set<String>> listings) {
+		if (listings == null) return file.exists();
+		File parent = file.getParentFile();
+		String path = parent == null ? "" : parent.getPath();
+		Set<String> names = listings.get(path);
+		if (names == null) {
+			String[] list = parent == null ? null : parent.list();
+			names = list == null ? Collections.<String>emptySet() : new HashSet<String>(Arrays.asList(list));
+			listings.put(path, names);
+		}
+		return names.contains(file.getName());
+	}
+
 	public static Class<?> loadConfigurationClass(String clazz) {
 		return loadConfigurationClass(clazz, null);
 	}
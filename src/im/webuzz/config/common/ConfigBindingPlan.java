@@ -0,0 +1,273 @@
+package im.webuzz.config.common;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import im.webuzz.config.Config;
+import im.webuzz.config.InternalConfigUtils;
+import im.webuzz.config.annotation.ConfigLength;
+import im.webuzz.config.annotation.ConfigNotEmpty;
+import im.webuzz.config.annotation.ConfigNotNull;
+import im.webuzz.config.annotation.ConfigPreferredCodec;
+
+/**
+ * Immutable and cached binding plan for a configuration class or an object type.
+ *
+ * A plan keeps the filtered fields, prebuilt key names, resolved annotations
+ * and the generic type decomposition of each field, so parsers and generators
+ * do not need to walk fields and annotations again on every reload.
+ *
+ * All plans are dropped once Config.configurationAnnotations,
+ * Config.configurationFileNamePatterns or Config.configurationSupportedEnvironments
+ * is changed, or #invalidate is called.
+ */
+public class ConfigBindingPlan {
+
+	// Container annotation types, same as those used by validator and comment writer
+	public static final Class<?>[] containerAnnotationTypes = new Class<?>[] {
+		ConfigNotNull.class, ConfigNotEmpty.class, ConfigLength.class, ConfigPreferredCodec.class
+	};
+
+	private static final int STATIC_FIELDS = 0;
+	private static final int STATIC_REMOTE_FIELDS = 1;
+	private static final int OBJECT_FIELDS = 2;
+	private static final int OBJECT_DECLARED_FIELDS = 3;
+
+	// Plans of one class, one for each mode
+	private static class ClassPlans {
+		volatile ConfigBindingPlan staticPlan;
+		volatile ConfigBindingPlan staticRemotePlan;
+		volatile ConfigBindingPlan objectPlan;
+		volatile ConfigBindingPlan objectDeclaredPlan;
+	}
+
+	private static final Object mutex = new Object();
+	// Replaced on clearing, entries are kept along with the classes
+	private static volatile ClassValue<ClassPlans> plans = newPlanCache();
+	// Replaced on clearing, entries are kept along with the declaring classes
+	private static volatile ClassValue<Map<Field, List<Annotation>>> fieldAnnotations = newAnnotationCache();
+
+	private static volatile Object lastAnnotations = null;
+	private static volatile Object lastFileNamePatterns = null;
+	private static volatile Object lastSupportedEnvironments = null;
+
+	public static class FieldBinding {
+		public final Field field;
+		public final ConfigField accessor;
+		public final String name;
+		// Key name with the class' key prefix, e.g. "prefix.name", same as name if no key prefix.
+		public final String prefixedName;
+		public final Class<?> type;
+		public final Type genericType;
+		// For array, list, set: element type; For map: value type
+		public final Class<?> valueType;
+		public final Type valueParamType;
+		// For map only
+		public final Class<?> keyType;
+		public final Type keyParamType;
+		// All known annotations, with containerAnnotationTypes expanded
+		public final List<Annotation> annotations;
+		public final ConfigPreferredCodec[] preferredCodecs;
+
+		FieldBinding(Field f, String keyPrefix) {
+			field = f;
+			accessor = ConfigFieldHandle.of(f);
+			name = f.getName();
+			prefixedName = keyPrefix != null ? keyPrefix + "." + name : name;
+			type = f.getType();
+			genericType = f.getGenericType();
+			Class<?> vType = type.isArray() ? type.getComponentType() : null;
+			Type vParamType = null;
+			Class<?> kType = null;
+			Type kParamType = null;
+			if (genericType instanceof ParameterizedType) {
+				Type[] args = ((ParameterizedType) genericType).getActualTypeArguments();
+				if (args.length == 2) { // Map<K, V>
+					kParamType = args[0];
+					kType = TypeUtils.getRawType(kParamType);
+					vParamType = args[1];
+					vType = TypeUtils.getRawType(vParamType);
+				} else if (args.length == 1) {
+					vParamType = args[0];
+					vType = TypeUtils.getRawType(vParamType);
+				}
+			} else if (genericType instanceof GenericArrayType) {
+				vParamType = ((GenericArrayType) genericType).getGenericComponentType();
+			}
+			valueType = vType;
+			valueParamType = vParamType;
+			keyType = kType;
+			keyParamType = kParamType;
+			annotations = getKnownAnnotations(f);
+			preferredCodecs = f.getAnnotationsByType(ConfigPreferredCodec.class);
+		}
+	}
+
+	public final Class<?> type;
+	// Key prefix at the time this plan was built, null for object types or classes without prefix
+	public final String keyPrefix;
+	// Filtered fields, in declaring order. Do not modify.
+	public final FieldBinding[] fields;
+	private final Map<String, FieldBinding> nameBindings;
+	// Names of fields skipped by filters, e.g. by Config.configurationAnnotations
+	private final Set<String> filteredNames;
+
+	private ConfigBindingPlan(Class<?> type, int mode) {
+		this.type = type;
+		boolean staticFields = mode == STATIC_FIELDS || mode == STATIC_REMOTE_FIELDS;
+		this.keyPrefix = staticFields ? Config.getKeyPrefix(type) : null;
+		Map<Class<?>, Map<String, Annotation[]>> typeAnns = Config.configurationAnnotations;
+		Map<String, Annotation[]> fieldAnns = typeAnns == null ? null : typeAnns.get(type);
+		Field[] allFields = mode == OBJECT_FIELDS ? type.getFields() : type.getDeclaredFields();
+		List<FieldBinding> bindings = new ArrayList<FieldBinding>(allFields.length);
+		Map<String, FieldBinding> names = new HashMap<String, FieldBinding>();
+		Set<String> filtered = new HashSet<String>();
+		for (Field f : allFields) {
+			if (InternalConfigUtils.isFiltered(f, fieldAnns, !staticFields, mode == STATIC_REMOTE_FIELDS)) {
+				filtered.add(f.getName());
+				continue;
+			}
+			FieldBinding binding = new FieldBinding(f, keyPrefix);
+			bindings.add(binding);
+			if (!names.containsKey(binding.name)) names.put(binding.name, binding);
+		}
+		this.fields = bindings.toArray(new FieldBinding[bindings.size()]);
+		this.nameBindings = Collections.unmodifiableMap(names);
+		filtered.removeAll(names.keySet());
+		this.filteredNames = filtered;
+	}
+
+	/**
+	 * Return the field binding by the field name.
+	 * @param name
+	 * @return null if there is no such field or the field is filtered.
+	 */
+	public FieldBinding getBinding(String name) {
+		return nameBindings.get(name);
+	}
+
+	/**
+	 * Return true if the given name is a field of the type, but it is filtered,
+	 * e.g. by modifiers, @ConfigIgnored or Config.configurationAnnotations.
+	 * @param name
+	 * @return
+	 */
+	public boolean isFiltered(String name) {
+		return filteredNames.contains(name);
+	}
+
+	/**
+	 * Get plan of the static fields of the given configuration class.
+	 * @param clz
+	 * @param filterLocalOnly, skip @ConfigLocalOnly fields, for remote configurations
+	 * @return cached plan
+	 */
+	public static ConfigBindingPlan forClass(Class<?> clz, boolean filterLocalOnly) {
+		return getPlan(clz, filterLocalOnly ? STATIC_REMOTE_FIELDS : STATIC_FIELDS);
+	}
+
+	/**
+	 * Get plan of the public instance fields of the given object type.
+	 * @param type
+	 * @param declaredOnly, true: only fields declared in the given type; false: all public fields
+	 * @return cached plan
+	 */
+	public static ConfigBindingPlan forObject(Class<?> type, boolean declaredOnly) {
+		return getPlan(type, declaredOnly ? OBJECT_DECLARED_FIELDS : OBJECT_FIELDS);
+	}
+
+	private static ConfigBindingPlan getPlan(Class<?> clz, int mode) {
+		checkValidity();
+		ClassPlans classPlans = plans.get(clz);
+		ConfigBindingPlan plan;
+		switch (mode) {
+		case STATIC_FIELDS: plan = classPlans.staticPlan; break;
+		case STATIC_REMOTE_FIELDS: plan = classPlans.staticRemotePlan; break;
+		case OBJECT_FIELDS: plan = classPlans.objectPlan; break;
+		default: plan = classPlans.objectDeclaredPlan; break;
+		}
+		if (plan != null) return plan;
+		// Plans are immutable, building the same plan twice in a race is harmless
+		plan = new ConfigBindingPlan(clz, mode);
+		switch (mode) {
+		case STATIC_FIELDS: classPlans.staticPlan = plan; break;
+		case STATIC_REMOTE_FIELDS: classPlans.staticRemotePlan = plan; break;
+		case OBJECT_FIELDS: classPlans.objectPlan = plan; break;
+		default: classPlans.objectDeclaredPlan = plan; break;
+		}
+		return plan;
+	}
+
+	private static ClassValue<ClassPlans> newPlanCache() {
+		return new ClassValue<ClassPlans>() {
+			@Override
+			protected ClassPlans computeValue(Class<?> clazz) {
+				return new ClassPlans();
+			}
+		};
+	}
+
+	/**
+	 * Get all known annotations of the given field, with containerAnnotationTypes expanded.
+	 * @param f
+	 * @return cached annotation list, do not modify.
+	 */
+	public static List<Annotation> getKnownAnnotations(Field f) {
+		checkValidity();
+		Map<Field, List<Annotation>> classAnnotations = fieldAnnotations.get(f.getDeclaringClass());
+		List<Annotation> anns = classAnnotations.get(f);
+		if (anns != null) return anns;
+		anns = Collections.unmodifiableList(InternalConfigUtils.getAllKnownAnnotations(f, containerAnnotationTypes));
+		classAnnotations.put(f, anns);
+		return anns;
+	}
+
+	private static ClassValue<Map<Field, List<Annotation>>> newAnnotationCache() {
+		return new ClassValue<Map<Field, List<Annotation>>>() {
+			@Override
+			protected Map<Field, List<Annotation>> computeValue(Class<?> clazz) {
+				return new ConcurrentHashMap<Field, List<Annotation>>();
+			}
+		};
+	}
+
+	private static void checkValidity() {
+		Object anns = Config.configurationAnnotations;
+		Object patterns = Config.configurationFileNamePatterns;
+		Object envs = Config.configurationSupportedEnvironments;
+		if (anns == lastAnnotations && patterns == lastFileNamePatterns && envs == lastSupportedEnvironments) return;
+		synchronized (mutex) {
+			if (anns == lastAnnotations && patterns == lastFileNamePatterns && envs == lastSupportedEnvironments) return;
+			clear();
+			lastAnnotations = anns;
+			lastFileNamePatterns = patterns;
+			lastSupportedEnvironments = envs;
+		}
+	}
+
+	private static void clear() {
+		plans = newPlanCache();
+		fieldAnnotations = newAnnotationCache();
+	}
+
+	/**
+	 * Drop all cached plans, e.g. after environments are changed.
+	 */
+	public static void invalidate() {
+		synchronized (mutex) {
+			clear();
+		}
+	}
+
+}
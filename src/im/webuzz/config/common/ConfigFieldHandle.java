@@ -0,0 +1,319 @@
+package im.webuzz.config.common;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Field accessor backed by method handles, which are resolved only once
+ * for each field and then reused by all parsers and generators.
+ *
+ * Use {@link #of(Field)} to get the cached accessor. Accessors generated by
+ * the annotation processor ({@link ConfigStaticField}) are preferred. If
+ * method handles can not be created for the given field (e.g. not accessible),
+ * a plain {@link ConfigFieldProxy} will be returned instead.
+ */
+public class ConfigFieldHandle implements ConfigField {
+
+	private static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+	private static final MethodType objectGetterType = MethodType.methodType(Object.class, Object.class);
+	private static final MethodType objectSetterType = MethodType.methodType(void.class, Object.class, Object.class);
+
+	// Accessors are kept along with the declaring class, so class loaders are not pinned after redeploying
+	private static final ClassValue<Map<Field, ConfigField>> accessors = new ClassValue<Map<Field, ConfigField>>() {
+		@Override
+		protected Map<Field, ConfigField> computeValue(Class<?> clazz) {
+			return new ConcurrentHashMap<Field, ConfigField>();
+		}
+	};
+
+	private final Field field;
+	private final Class<?> type;
+	// Typed handles: (Object)T and (Object, T)void, owner is ignored for static fields
+	private final MethodHandle getter;
+	private final MethodHandle setter;
+	// Boxed handles: (Object)Object and (Object, Object)void
+	private final MethodHandle objectGetter;
+	private final MethodHandle objectSetter;
+
+	private ConfigFieldHandle(Field field) throws IllegalAccessException {
+		super();
+		this.field = field;
+		this.type = field.getType();
+		MethodHandle g = lookup.unreflectGetter(field);
+		MethodHandle s = lookup.unreflectSetter(field);
+		if (Modifier.isStatic(field.getModifiers())) {
+			g = MethodHandles.dropArguments(g, 0, Object.class);
+			s = MethodHandles.dropArguments(s, 0, Object.class);
+		} else {
+			g = g.asType(g.type().changeParameterType(0, Object.class));
+			s = s.asType(s.type().changeParameterType(0, Object.class));
+		}
+		this.getter = g;
+		this.setter = s;
+		this.objectGetter = g.asType(objectGetterType);
+		this.objectSetter = s.asType(objectSetterType);
+	}
+
+	/**
+	 * Return the cached accessor for the given field.
+	 * @param field
+	 * @return method handle based accessor, or a reflection based proxy as fallback.
+	 */
+	public static ConfigField of(Field field) {
+		Map<Field, ConfigField> classAccessors = accessors.get(field.getDeclaringClass());
+		ConfigField accessor = classAccessors.get(field);
+		if (accessor != null) return accessor;
+		try {
+			accessor = ConfigStaticField.forField(field); // generated at compile time
+			if (accessor == null) accessor = new ConfigFieldHandle(field);
+		} catch (Throwable e) {
+			// Not accessible for method handles (e.g. non-public class), fall back to reflection.
+			// Do not cache it, the field may be set accessible later.
+			return new ConfigFieldProxy(field);
+		}
+		ConfigField existed = classAccessors.putIfAbsent(field, accessor);
+		return existed != null ? existed : accessor;
+	}
+
+	private static IllegalArgumentException wrap(Throwable e) {
+		if (e instanceof RuntimeException) throw (RuntimeException) e;
+		if (e instanceof Error) throw (Error) e;
+		return new IllegalArgumentException(e);
+	}
+
+	@Override
+	public Field getField() {
+		return field;
+	}
+
+	@Override
+	public Class<?> getType() {
+		return type;
+	}
+
+	@Override
+	public Type getGenericType() {
+		return field.getGenericType();
+	}
+
+	@Override
+	public String getName() {
+		return field.getName();
+	}
+
+	@Override
+	public int getInt(Object owner) throws IllegalArgumentException, IllegalAccessException {
+		if (type != int.class) return field.getInt(owner);
+		try {
+			return (int) getter.invokeExact(owner);
+		} catch (Throwable e) {
+			throw wrap(e);
+		}
+	}
+
+	@Override
+	public long getLong(Object owner) throws IllegalArgumentException, IllegalAccessException {
+		if (type != long.class) return field.getLong(owner);
+		try {
+			return (long) getter.invokeExact(owner);
+		} catch (Throwable e) {
+			throw wrap(e);
+		}
+	}
+
+	@Override
+	public float getFloat(Object owner) throws IllegalArgumentException, IllegalAccessException {
+		if (type != float.class) return field.getFloat(owner);
+		try {
+			return (float) getter.invokeExact(owner);
+		} catch (Throwable e) {
+			throw wrap(e);
+		}
+	}
+
+	@Override
+	public double getDouble(Object owner) throws IllegalArgumentException, IllegalAccessException {
+		if (type != double.class) return field.getDouble(owner);
+		try {
+			return (double) getter.invokeExact(owner);
+		} catch (Throwable e) {
+			throw wrap(e);
+		}
+	}
+
+	@Override
+	public byte getByte(Object owner) throws IllegalArgumentException, IllegalAccessException {
+		if (type != byte.class) return field.getByte(owner);
+		try {
+			return (byte) getter.invokeExact(owner);
+		} catch (Throwable e) {
+			throw wrap(e);
+		}
+	}
+
+	@Override
+	public short getShort(Object owner) throws IllegalArgumentException, IllegalAccessException {
+		if (type != short.class) return field.getShort(owner);
+		try {
+			return (short) getter.invokeExact(owner);
+		} catch (Throwable e) {
+			throw wrap(e);
+		}
+	}
+
+	@Override
+	public boolean getBoolean(Object owner) throws IllegalArgumentException, IllegalAccessException {
+		if (type != boolean.class) return field.getBoolean(owner);
+		try {
+			return (boolean) getter.invokeExact(owner);
+		} catch (Throwable e) {
+			throw wrap(e);
+		}
+	}
+
+	@Override
+	public char getChar(Object owner) throws IllegalArgumentException, IllegalAccessException {
+		if (type != char.class) return field.getChar(owner);
+		try {
+			return (char) getter.invokeExact(owner);
+		} catch (Throwable e) {
+			throw wrap(e);
+		}
+	}
+
+	@Override
+	public void setInt(Object owner, int v) throws IllegalArgumentException, IllegalAccessException {
+		if (type != int.class) {
+			field.setInt(owner, v);
+			return;
+		}
+		try {
+			setter.invokeExact(owner, v);
+		} catch (Throwable e) {
+			throw wrap(e);
+		}
+	}
+
+	@Override
+	public void setLong(Object owner, long v) throws IllegalArgumentException, IllegalAccessException {
+		if (type != long.class) {
+			field.setLong(owner, v);
+			return;
+		}
+		try {
+			setter.invokeExact(owner, v);
+		} catch (Throwable e) {
+			throw wrap(e);
+		}
+	}
+
+	@Override
+	public void setFloat(Object owner, float v) throws IllegalArgumentException, IllegalAccessException {
+		if (type != float.class) {
+			field.setFloat(owner, v);
+			return;
+		}
+		try {
+			setter.invokeExact(owner, v);
+		} catch (Throwable e) {
+			throw wrap(e);
+		}
+	}
+
+	@Override
+	public void setDouble(Object owner, double v) throws IllegalArgumentException, IllegalAccessException {
+		if (type != double.class) {
+			field.setDouble(owner, v);
+			return;
+		}
+		try {
+			setter.invokeExact(owner, v);
+		} catch (Throwable e) {
+			throw wrap(e);
+		}
+	}
+
+	@Override
+	public void setByte(Object owner, byte v) throws IllegalArgumentException, IllegalAccessException {
+		if (type != byte.class) {
+			field.setByte(owner, v);
+			return;
+		}
+		try {
+			setter.invokeExact(owner, v);
+		} catch (Throwable e) {
+			throw wrap(e);
+		}
+	}
+
+	@Override
+	public void setShort(Object owner, short v) throws IllegalArgumentException, IllegalAccessException {
+		if (type != short.class) {
+			field.setShort(owner, v);
+			return;
+		}
+		try {
+			setter.invokeExact(owner, v);
+		} catch (Throwable e) {
+			throw wrap(e);
+		}
+	}
+
+	@Override
+	public void setBoolean(Object owner, boolean v) throws IllegalArgumentException, IllegalAccessException {
+		if (type != boolean.class) {
+			field.setBoolean(owner, v);
+			return;
+		}
+		try {
+			setter.invokeExact(owner, v);
+		} catch (Throwable e) {
+			throw wrap(e);
+		}
+	}
+
+	@Override
+	public void setChar(Object owner, char v) throws IllegalArgumentException, IllegalAccessException {
+		if (type != char.class) {
+			field.setChar(owner, v);
+			return;
+		}
+		try {
+			setter.invokeExact(owner, v);
+		} catch (Throwable e) {
+			throw wrap(e);
+		}
+	}
+
+	@Override
+	public Object get(Object owner) throws IllegalArgumentException, IllegalAccessException {
+		try {
+			return (Object) objectGetter.invokeExact(owner);
+		} catch (Throwable e) {
+			throw wrap(e);
+		}
+	}
+
+	@Override
+	public void set(Object owner, Object v) throws IllegalArgumentException, IllegalAccessException {
+		if (v == null && type.isPrimitive()) {
+			field.set(owner, v); // Throws IllegalArgumentException, same as Field#set
+			return;
+		}
+		try {
+			objectSetter.invokeExact(owner, v);
+		} catch (ClassCastException e) {
+			// Keep the same exception type as Field#set
+			throw new IllegalArgumentException(e.getMessage(), e);
+		} catch (Throwable e) {
+			throw wrap(e);
+		}
+	}
+
+}
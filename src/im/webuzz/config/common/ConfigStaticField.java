@@ -0,0 +1,188 @@
+package im.webuzz.config.common;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+
+/**
+ * Base class of static field accessors generated at compile time by the
+ * simpleconfig-processor annotation processor.
+ *
+ * For configuration class a.b.C, the processor generates class a.b.C$ConfigFields,
+ * which reads and writes C's static fields directly, without reflection or
+ * method handles. Its no-argument instance is used as the factory of accessors
+ * for each field, see {@link #create(Field)}.
+ *
+ * Typed getters and setters not overridden by the generated class fall back
+ * to reflection, the same as {@link ConfigFieldHandle}. The generated class
+ * overrides {@link #getType()} with the field types known at compile time,
+ * so accessors of an out-of-date generated class are not used.
+ */
+public abstract class ConfigStaticField implements ConfigField {
+
+	public static final String GENERATED_SUFFIX = "$ConfigFields";
+
+	private static final Object notGenerated = new Object();
+	// Kept along with the configuration classes, so class loaders are not pinned
+	private static final ClassValue<Object> factories = new ClassValue<Object>() {
+		@Override
+		protected Object computeValue(Class<?> clz) {
+			try {
+				Class<?> generated = Class.forName(clz.getName() + GENERATED_SUFFIX, true, clz.getClassLoader());
+				if (ConfigStaticField.class.isAssignableFrom(generated)) return generated.newInstance();
+			} catch (ClassNotFoundException e) {
+				// not generated, use reflection
+			} catch (Throwable e) {
+				System.out.println("[Config:WARN] Failed to load generated field accessors for " + clz.getName()
+						+ ", use reflection instead: " + e);
+			}
+			return notGenerated;
+		}
+	};
+
+	protected final Field field;
+	// Generated index of the field, -1 for the factory instance
+	protected final int index;
+
+	protected ConfigStaticField(Field field, int index) {
+		super();
+		this.field = field;
+		this.index = index;
+	}
+
+	/**
+	 * Create accessor for the given field of the configuration class.
+	 * @param field
+	 * @return null if the field is not known to the generated class.
+	 */
+	public abstract ConfigField create(Field field);
+
+	/**
+	 * Return generated accessor for the given static field, if there is a
+	 * generated class for its declaring class on the class path.
+	 * @param field
+	 * @return null if no accessor is generated.
+	 */
+	public static ConfigField forField(Field field) {
+		if ((field.getModifiers() & Modifier.STATIC) == 0) return null;
+		Object factory = factories.get(field.getDeclaringClass());
+		if (factory == notGenerated) return null;
+		ConfigField accessor = ((ConfigStaticField) factory).create(field);
+		// Generated class may be out of date, compare its compile-time type with the field type
+		return accessor != null && accessor.getType() == field.getType() ? accessor : null;
+	}
+
+	@Override
+	public Field getField() {
+		return field;
+	}
+
+	/**
+	 * Return the field type. Generated classes return the type at compile time.
+	 */
+	@Override
+	public Class<?> getType() {
+		return field.getType();
+	}
+
+	@Override
+	public Type getGenericType() {
+		return field.getGenericType();
+	}
+
+	@Override
+	public String getName() {
+		return field.getName();
+	}
+
+	@Override
+	public int getInt(Object owner) throws IllegalArgumentException, IllegalAccessException {
+		return field.getInt(owner);
+	}
+
+	@Override
+	public long getLong(Object owner) throws IllegalArgumentException, IllegalAccessException {
+		return field.getLong(owner);
+	}
+
+	@Override
+	public float getFloat(Object owner) throws IllegalArgumentException, IllegalAccessException {
+		return field.getFloat(owner);
+	}
+
+	@Override
+	public double getDouble(Object owner) throws IllegalArgumentException, IllegalAccessException {
+		return field.getDouble(owner);
+	}
+
+	@Override
+	public byte getByte(Object owner) throws IllegalArgumentException, IllegalAccessException {
+		return field.getByte(owner);
+	}
+
+	@Override
+	public short getShort(Object owner) throws IllegalArgumentException, IllegalAccessException {
+		return field.getShort(owner);
+	}
+
+	@Override
+	public boolean getBoolean(Object owner) throws IllegalArgumentException, IllegalAccessException {
+		return field.getBoolean(owner);
+	}
+
+	@Override
+	public char getChar(Object owner) throws IllegalArgumentException, IllegalAccessException {
+		return field.getChar(owner);
+	}
+
+	@Override
+	public void setInt(Object owner, int v) throws IllegalArgumentException, IllegalAccessException {
+		field.setInt(owner, v);
+	}
+
+	@Override
+	public void setLong(Object owner, long v) throws IllegalArgumentException, IllegalAccessException {
+		field.setLong(owner, v);
+	}
+
+	@Override
+	public void setFloat(Object owner, float v) throws IllegalArgumentException, IllegalAccessException {
+		field.setFloat(owner, v);
+	}
+
+	@Override
+	public void setDouble(Object owner, double v) throws IllegalArgumentException, IllegalAccessException {
+		field.setDouble(owner, v);
+	}
+
+	@Override
+	public void setByte(Object owner, byte v) throws IllegalArgumentException, IllegalAccessException {
+		field.setByte(owner, v);
+	}
+
+	@Override
+	public void setShort(Object owner, short v) throws IllegalArgumentException, IllegalAccessException {
+		field.setShort(owner, v);
+	}
+
+	@Override
+	public void setBoolean(Object owner, boolean v) throws IllegalArgumentException, IllegalAccessException {
+		field.setBoolean(owner, v);
+	}
+
+	@Override
+	public void setChar(Object owner, char v) throws IllegalArgumentException, IllegalAccessException {
+		field.setChar(owner, v);
+	}
+
+	@Override
+	public Object get(Object owner) throws IllegalArgumentException, IllegalAccessException {
+		return field.get(owner);
+	}
+
+	@Override
+	public void set(Object owner, Object v) throws IllegalArgumentException, IllegalAccessException {
+		field.set(owner, v);
+	}
+
+}
@@ -1,36 +1,108 @@
 package im.webuzz.config.common;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 
 public class FileUtils {
 
+	/**
+	 * Read all bytes of the given file, return null if it can not be read.
+	 * The buffer is presized by the file size, so bytes are copied only once.
+	 */
 	public static byte[] readFileBytes(File file) {
-		FileInputStream fis = null;
-		byte[] buffer = new byte[8096];
-		int read = -1;
-		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		FileChannel channel = null;
 		try {
-			fis = new FileInputStream(file);
-			while ((read = fis.read(buffer)) != -1) {
-				baos.write(buffer, 0, read);
+			channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE - 8) return null; // Too large for an array
+			byte[] bytes = new byte[(int) size];
+			int length = 0;
+			while (true) {
+				if (length == bytes.length) {
+					// File may grow while reading, or its size is unknown, e.g. special files
+					ByteBuffer next = ByteBuffer.allocate(1);
+					if (channel.read(next) == -1) break;
+					bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, 8096));
+					bytes[length++] = next.get(0);
+					continue;
+				}
+				int read = channel.read(ByteBuffer.wrap(bytes, length, bytes.length - length));
+				if (read == -1) break;
+				length += read;
 			}
+			return length == bytes.length ? bytes : Arrays.copyOf(bytes, length);
 		} catch (IOException e1) {
 			//e1.printStackTrace();
 			return null;
 		} finally {
-			if (fis != null) {
+			if (channel != null) {
 				try {
-					fis.close();
+					channel.close();
 				} catch (IOException e) {
 					//e.printStackTrace();
 				}
 			}
 		}
-		return baos.toByteArray();
+	}
+
+	/**
+	 * Read the given file into a buffer, return null if it can not be read.
+	 * Files not smaller than the threshold are memory mapped, without being
+	 * copied into heap. Mapping is disabled if the threshold is not positive.
+	 */
+	public static ByteBuffer readFileBuffer(File file, long mappingThreshold) {
+		if (mappingThreshold > 0 && file.length() >= mappingThreshold) {
+			FileChannel channel = null;
+			try {
+				channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+				// Mapping is still valid after the channel is closed
+				return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			} catch (IOException e) {
+				// Try to read it into heap
+			} finally {
+				if (channel != null) {
+					try {
+						channel.close();
+					} catch (IOException e) {
+						//e.printStackTrace();
+					}
+				}
+			}
+		}
+		byte[] bytes = readFileBytes(file);
+		return bytes != null ? ByteBuffer.wrap(bytes) : null;
+	}
+
+	/**
+	 * Return remaining bytes of the given buffer. The backing array is returned
+	 * without copying if it contains exactly the remaining bytes.
+	 */
+	public static byte[] toBytes(ByteBuffer buffer) {
+		if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.position() == 0
+				&& buffer.remaining() == buffer.array().length) {
+			return buffer.array();
+		}
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.duplicate().get(bytes);
+		return bytes;
+	}
+
+	/**
+	 * Return SHA-256 digest of the given content.
+	 */
+	public static byte[] digest(byte[] content) {
+		try {
+			return MessageDigest.getInstance("SHA-256").digest(content);
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
 	}
 
 	public static boolean writeFileBytes(File file, byte[] bytes, long lastModified) {
@@ -1,5 +1,8 @@
 package im.webuzz.config.common;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class StringUtils {
 
 	public static String formatAsProperties(String str) {
@@ -16,4 +19,43 @@ public class StringUtils {
 		return str.replaceAll("\\\\", "\\\\\\\\").replaceAll("\r", "\\\\r").replaceAll("\n", "\\\\n").replaceAll("\t", "\\\\t").trim();
 	}
 
+	/**
+	 * Split the given string by the separator and the white spaces around it,
+	 * without regular expressions. Same result as
+	 * str.split("\\s*;\\s*") for separator ';' or
+	 * str.split("\\s*>+\\s*") for separator '>' with repeatable being true.
+	 * @param str
+	 * @param separator
+	 * @param repeatable, whether continuous separators are treated as one
+	 * @return
+	 */
+	public static String[] split(String str, char separator, boolean repeatable) {
+		int idx = str.indexOf(separator);
+		if (idx == -1) return new String[] { str };
+		List<String> items = new ArrayList<String>();
+		int length = str.length();
+		int start = 0;
+		while (idx != -1) {
+			int end = idx;
+			while (end > start && isWhitespace(str.charAt(end - 1))) end--;
+			items.add(str.substring(start, end));
+			idx++;
+			if (repeatable) {
+				while (idx < length && str.charAt(idx) == separator) idx++;
+			}
+			while (idx < length && isWhitespace(str.charAt(idx))) idx++;
+			start = idx;
+			idx = str.indexOf(separator, start);
+		}
+		items.add(str.substring(start));
+		int size = items.size();
+		while (size > 0 && items.get(size - 1).length() == 0) size--; // remove trailing empty strings
+		return items.subList(0, size).toArray(new String[size]);
+	}
+
+	// Same as regular expression \\s
+	private static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+	}
+
 }
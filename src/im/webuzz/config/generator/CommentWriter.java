@@ -28,6 +28,7 @@ import java.util.Set;
 import im.webuzz.config.InternalConfigUtils;
 import im.webuzz.config.annotation.*;
 import im.webuzz.config.common.AnnotationWriter;
+import im.webuzz.config.common.ConfigBindingPlan;
 import im.webuzz.config.common.CommentClassWriter;
 
 public class CommentWriter {
@@ -86,8 +87,7 @@ public class CommentWriter {
 
 	protected int appendAllFieldAnnotations(StringBuilder annBuilder, Field f) {
 		int annCount = 0;
-		List<Annotation> anns = InternalConfigUtils.getAllKnownAnnotations(f,
-				new Class<?>[] { ConfigNotNull.class, ConfigNotEmpty.class, ConfigLength.class, ConfigPreferredCodec.class });
+		List<Annotation> anns = ConfigBindingPlan.getKnownAnnotations(f);
 		Class<?>[] annotationOrders = new Class<?>[] {
 			ConfigOverridden.class,
 			Configurable.class,
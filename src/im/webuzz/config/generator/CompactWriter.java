@@ -14,7 +14,6 @@
 
 package im.webuzz.config.generator;
 
-import java.lang.annotation.Annotation;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.GenericArrayType;
@@ -27,9 +26,9 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
-import im.webuzz.config.Config;
-import im.webuzz.config.InternalConfigUtils;
 import im.webuzz.config.annotation.ConfigPreferredCodec;
+import im.webuzz.config.common.ConfigBindingPlan;
+import im.webuzz.config.common.ConfigBindingPlan.FieldBinding;
 import im.webuzz.config.common.TypeUtils;
 
 public class CompactWriter {
@@ -226,24 +225,20 @@ public class CompactWriter {
 			return false;
 		}
 		Class<?> clz = value.getClass();
-		Field[] fields = clz.getDeclaredFields();
+		FieldBinding[] fields = ConfigBindingPlan.forObject(clz, true).fields;
 		if (fields.length == 0) return true;
-		Map<Class<?>, Map<String, Annotation[]>> typeAnns = Config.configurationAnnotations;
-		Map<String, Annotation[]> fieldAnns = typeAnns == null ? null : typeAnns.get(clz);
 		for (int i = 0; i < fields.length; i++) {
-			Field f = fields[i];
-			if (InternalConfigUtils.isFiltered(f, fieldAnns, true, false)) continue;
-			Class<?> type = f.getType();
+			FieldBinding f = fields[i];
+			Class<?> type = f.type;
 			if (type == String.class || type.isPrimitive() || TypeUtils.isBasicDataType(type)) {
 				continue; // ignore
 			}
 			if (field == null) return false; // Map object is wrapped in another object
 			if (forKeys) return false;
 			try {
-				Object v = f.get(value);
-				Type genericType = f.getGenericType();
-				if (!checkCompactness(generator, v, type, genericType,
-						forKeys, forValues, depth, codecs, f)) return false;
+				Object v = f.accessor.get(value);
+				if (!checkCompactness(generator, v, type, f.genericType,
+						forKeys, forValues, depth, codecs, f.accessor)) return false;
 			} catch (Throwable e) {
 			}
 		}
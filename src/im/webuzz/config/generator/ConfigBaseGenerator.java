@@ -34,14 +34,15 @@ import java.util.Map;
 import java.util.Set;
 
 import im.webuzz.config.Config;
-import im.webuzz.config.InternalConfigUtils;
 import im.webuzz.config.annotation.ConfigPreferredCodec;
 import im.webuzz.config.codec.ConfigCodec;
 import im.webuzz.config.common.AnnotationField;
 import im.webuzz.config.common.AnnotationProxy;
 import im.webuzz.config.common.AnnotationWriter;
+import im.webuzz.config.common.ConfigBindingPlan;
+import im.webuzz.config.common.ConfigBindingPlan.FieldBinding;
 import im.webuzz.config.common.ConfigField;
-import im.webuzz.config.common.ConfigFieldProxy;
+import im.webuzz.config.common.ConfigFieldHandle;
 import im.webuzz.config.common.TypeUtils;
 
 public abstract class ConfigBaseGenerator implements CommentWriter.CommentWrapper, ConfigGenerator<StringBuilder> {
@@ -81,6 +82,14 @@ public abstract class ConfigBaseGenerator implements CommentWriter.CommentWrappe
 
 	protected abstract void appendSeparator(StringBuilder builder, boolean compact);
 	
+	protected void appendDouble(StringBuilder builder, double d) {
+		builder.append(d);
+	}
+
+	protected void appendFloat(StringBuilder builder, float f) {
+		builder.append(f);
+	}
+
 	protected void appendChar(StringBuilder builder, char ch) {
 		if (0x20 <= ch && ch <= 0x7e) {
 			builder.append('\'').append(ch).append('\'');
@@ -126,8 +135,8 @@ public abstract class ConfigBaseGenerator implements CommentWriter.CommentWrappe
 				if (type == int.class) valueBuilder.append(f.getInt(o));
 				else if (type == boolean.class) valueBuilder.append(f.getBoolean(o));
 				else if (type == long.class) valueBuilder.append(f.getLong(o));
-				else if (type == double.class) valueBuilder.append(f.getDouble(o));
-				else if (type == float.class) valueBuilder.append(f.getFloat(o));
+				else if (type == double.class) appendDouble(valueBuilder, f.getDouble(o));
+				else if (type == float.class) appendFloat(valueBuilder, f.getFloat(o));
 				else if (type == short.class) valueBuilder.append(f.getShort(o));
 				else if (type == byte.class) valueBuilder.append(f.getByte(o));
 				else appendChar(valueBuilder, f.getChar(o)); // if (type == char.class) {
@@ -417,8 +426,8 @@ public abstract class ConfigBaseGenerator implements CommentWriter.CommentWrappe
 		else if (compType == byte.class) builder.append(Array.getByte(vs, k));
 		else if (compType == short.class) builder.append(Array.getShort(vs, k));
 		else if (compType == boolean.class) builder.append(Array.getBoolean(vs, k));
-		else if (compType == float.class) builder.append(Array.getFloat(vs, k));
-		else if (compType == double.class) builder.append(Array.getDouble(vs, k));
+		else if (compType == float.class) appendFloat(builder, Array.getFloat(vs, k));
+		else if (compType == double.class) appendDouble(builder, Array.getDouble(vs, k));
 		else if (compType == char.class) appendChar(builder, Array.getChar(vs, k));
 		return builder;
 	}
@@ -554,21 +563,18 @@ public abstract class ConfigBaseGenerator implements CommentWriter.CommentWrappe
 		compactWriter.increaseIndent();
 		boolean generated = false;
 		boolean separatorGenerated = !needsSeparator; //false;
-		Field[] fields = o.getClass().getDeclaredFields();
-		Map<Class<?>, Map<String, Annotation[]>> typeAnns = Config.configurationAnnotations;
-		Map<String, Annotation[]> fieldAnns = typeAnns == null ? null : typeAnns.get(o.getClass());
+		FieldBinding[] fields = ConfigBindingPlan.forObject(o.getClass(), true).fields;
 		for (int i = 0; i < fields.length; i++) {
-			Field f = fields[i];
-			if (InternalConfigUtils.isFiltered(f, fieldAnns, true, false)) continue;
+			FieldBinding f = fields[i];
 			if (!separatorGenerated) {
 				appendSeparator(builder, compact);
 				separatorGenerated = true;
 			}
-			String name = f.getName();
+			String name = f.name;
 			if (keyPrefix != null)  name = prefixedField(keyPrefix, name);
 			int oldLength = builder.length();
-			generateFieldValue(builder, new ConfigFieldProxy(f), name, o, null, null, null,
-					false, false, 0, f.getAnnotationsByType(ConfigPreferredCodec.class),
+			generateFieldValue(builder, f.accessor, name, o, null, null, null,
+					false, false, 0, f.preferredCodecs,
 					false, false, compact, true, false);
 			if (builder.length() > oldLength) {
 				separatorGenerated = false;
@@ -699,25 +705,22 @@ public abstract class ConfigBaseGenerator implements CommentWriter.CommentWrappe
 		//boolean skipUnchangedLines = false;
 		//String keyPrefix = Config.getKeyPrefix(clz);
 		commentWriter.generateTypeComment(builder, clz);
-		Field[] fields = clz.getDeclaredFields();
+		FieldBinding[] fields = ConfigBindingPlan.forClass(clz, false).fields;
 		String clzName = clz.getName();
-		Map<Class<?>, Map<String, Annotation[]>> typeAnns = Config.configurationAnnotations;
-		Map<String, Annotation[]> fieldAnns = typeAnns == null ? null : typeAnns.get(clz);
 		for (int i = 0; i < fields.length; i++) {
-			Field f = fields[i];
-			if (InternalConfigUtils.isFiltered(f, fieldAnns, false, false)) continue;
+			FieldBinding f = fields[i];
 			//if (keyPrefix != null) name = prefixedField(keyPrefix, name);
 			// To check if there are duplicate fields over multiple configuration classes, especially for
 			// those classes without stand-alone configuration files.
-			String name = f.getName();
+			String name = f.name;
 			String fullFieldName = clzName + "." + name;
 			if (allFields.containsKey(name) && !fullFieldName.equals(allFields.get(name))) {
 				System.out.println("[Config:WARN] " + fullFieldName + " is duplicated with " + (allFields.get(name)));
 			}
 			allFields.put(name, fullFieldName);
 			int oldLength = builder.length();
-			generateFieldValue(builder, new ConfigFieldProxy(f), name, clz, null, null, null,
-					false, false, 0, f.getAnnotationsByType(ConfigPreferredCodec.class),
+			generateFieldValue(builder, f.accessor, name, clz, null, null, null,
+					false, false, 0, f.preferredCodecs,
 					false, false, false, true, true);
 			if (builder.length() > oldLength) {
 				compactWriter.appendLinebreak(builder);
@@ -765,7 +768,7 @@ public abstract class ConfigBaseGenerator implements CommentWriter.CommentWrappe
 			if (startIdx > 0) baos.write(content, 0, startIdx);
 			StringBuilder builder = new StringBuilder();
 			compactWriter.increaseIndent();
-			generateFieldValue(builder, new ConfigFieldProxy(f), f.getName(), f.getDeclaringClass(), null, null, null,
+			generateFieldValue(builder, ConfigFieldHandle.of(f), f.getName(), f.getDeclaringClass(), null, null, null,
 					false, false, 0, f.getAnnotationsByType(ConfigPreferredCodec.class),
 					false, false, false, true, true);
 			compactWriter.decreaseIndent();
@@ -799,7 +802,7 @@ public abstract class ConfigBaseGenerator implements CommentWriter.CommentWrappe
 				StringBuilder simpleBuilder = new StringBuilder();
 				compactWriter.increaseIndent();
 				// Generate the field for the second time, comments for sub-object's fields won't be generated.
-				generateFieldValue(simpleBuilder, new ConfigFieldProxy(f), f.getName(), f.getDeclaringClass(), null, null, null,
+				generateFieldValue(simpleBuilder, ConfigFieldHandle.of(f), f.getName(), f.getDeclaringClass(), null, null, null,
 						false, false, 0, f.getAnnotationsByType(ConfigPreferredCodec.class),
 						false, false, false, true, true);
 				compactWriter.decreaseIndent();
@@ -103,6 +103,16 @@ public class ConfigJSGenerator extends ConfigBaseGenerator {
 	protected String prefixedField(String prefix, String name) {
 		return FieldUtils.wrapAsJSFieldName(name);
 	}
+
+	// Append the name of an object property, e.g. a field name or "value"
+	protected StringBuilder appendKey(StringBuilder builder, String key) {
+		return builder.append(key);
+	}
+
+	// Remove the separator after the last item, before closing an array or an object
+	protected void trimSeparator(StringBuilder builder) {
+		// Trailing commas are allowed in JavaScript, keep them for adding items easily
+	}
 	
 	@Override
 	protected void appendSeparator(StringBuilder builder, boolean compact) {
@@ -150,6 +160,7 @@ public class ConfigJSGenerator extends ConfigBaseGenerator {
 
 	@Override
 	protected void endObjectBlock(StringBuilder builder, Class<?> type, boolean needsIndents, boolean needsWrapping) {
+		trimSeparator(builder);
 		if (needsIndents) {
 			compactWriter.appendIndents(builder);
 		} else {
@@ -175,7 +186,7 @@ public class ConfigJSGenerator extends ConfigBaseGenerator {
 
 	@Override
 	protected void appendEncodedString(StringBuilder builder, String codecKey, String encoded) {
-		builder.append("{ ").append(codecKey).append(": \"").append(encoded).append("\" }");
+		appendKey(builder.append("{ "), codecKey).append(": \"").append(encoded).append("\" }");
 	}
 
 	@Override
@@ -233,7 +244,7 @@ public class ConfigJSGenerator extends ConfigBaseGenerator {
 			builder.append("\"").append(v.getName()).append("\"");
 			return true;
 		}
-		builder.append("{ Class: \"").append(v.getName()).append("\" }");
+		appendKey(builder.append("{ "), "Class").append(": \"").append(v.getName()).append("\" }");
 		return true;
 	}
 	
@@ -244,7 +255,7 @@ public class ConfigJSGenerator extends ConfigBaseGenerator {
 			builder.append('\"').append(v.name()).append('\"');
 			return true;
 		}
-		if (type != Enum.class) builder.append("{ Enum: ");
+		if (type != Enum.class) appendKey(builder.append("{ "), "Enum").append(": ");
 		builder.append('\"').append(v.getClass().getName()).append('.').append(v.name()).append('\"');
 		if (type != Enum.class) builder.append(" }");
 		return true;
@@ -254,11 +265,15 @@ public class ConfigJSGenerator extends ConfigBaseGenerator {
 	protected void generateBasicData(StringBuilder builder, Object v, Class<?> type,
 			boolean needsTypeInfo, boolean needsWrapping, boolean compact) {
 		Class<? extends Object> clazz = v.getClass();
-		if (needsTypeInfo) builder.append("{ ").append(clazz.getSimpleName()).append(": ");
+		if (needsTypeInfo) appendKey(builder.append("{ "), clazz.getSimpleName()).append(": ");
 		if (BigInteger.class == clazz || BigDecimal.class == clazz) {
 			builder.append("\"").append(v).append("\"");
 		} else if (Character.class == clazz) {
 			appendChar(builder, ((Character) v).charValue());
+		} else if (Double.class == clazz) {
+			appendDouble(builder, ((Double) v).doubleValue());
+		} else if (Float.class == clazz) {
+			appendFloat(builder, ((Float) v).floatValue());
 		} else {
 			builder.append(v);
 		}
@@ -299,7 +314,7 @@ public class ConfigJSGenerator extends ConfigBaseGenerator {
 					builder.append(':');
 					typeWriter.appendFieldType(builder, valueType, null);
 				}
-				builder.append("\", value: ");
+				appendKey(builder.append("\", "), "value").append(": ");
 			}
 		}
 		if (compact) {
@@ -371,6 +386,7 @@ public class ConfigJSGenerator extends ConfigBaseGenerator {
 			builder.delete(length - 3, length).append(needsTypeInfo ? " ] }" : " ]");
 			//builder.insert(length - 3, needsTypeInfo ? " ] }" : " ]");
 		} else {
+			trimSeparator(builder);
 			builder.append("]");
 			if (needsTypeInfo) {
 				builder.append(" }");
@@ -428,6 +444,7 @@ public class ConfigJSGenerator extends ConfigBaseGenerator {
 			appendMapEntry(valueBuilder, null, k, vs.get(k),
 					keyType, keyParamType, valueType, valueParamType,
 					depth, codecs);
+			trimSeparator(valueBuilder);
 			if (i != keys.length - 1) {
 				compactWriter.decreaseIndent();
 				compactWriter.appendIndents(valueBuilder).append("}, {\r\n");
@@ -448,7 +465,7 @@ public class ConfigJSGenerator extends ConfigBaseGenerator {
 		} //*/
 		if (name != null && name.length() > 0) {
 			if (!compact) compactWriter.appendIndents(builder);
-			return builder.append(name).append(": ").append(value);
+			return appendKey(builder, name).append(": ").append(value);
 		}
 		
 		// name is empty, inside complicate object
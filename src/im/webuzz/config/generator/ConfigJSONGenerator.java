@@ -0,0 +1,160 @@
+package im.webuzz.config.generator;
+
+import java.lang.reflect.Field;
+
+/**
+ * Generate configuration default file in JSON format.
+ *
+ * Values are generated in the same structure as ConfigJSGenerator does, but
+ * written as strict JSON directly: keys and strings are double quoted JSON
+ * strings, characters and non-finite numbers are written as JSON values, the
+ * separator after the last item of an object or an array is removed when the
+ * block is closed, and comments are dropped, as JSON has no comments.
+ */
+public class ConfigJSONGenerator extends ConfigJSGenerator {
+
+	// Start of the current comment in the builder, it is removed once ended
+	private int commentStart = -1;
+
+	@Override
+	public void startLineComment(StringBuilder builder) {
+		commentStart = builder.length();
+	}
+
+	@Override
+	public void endLineComment(StringBuilder builder) {
+		if (commentStart >= 0) builder.setLength(commentStart);
+		commentStart = -1;
+	}
+
+	@Override
+	public void startBlockComment(StringBuilder builder) {
+		commentStart = builder.length();
+	}
+
+	@Override
+	public StringBuilder addMiddleComment(StringBuilder builder) {
+		return builder;
+	}
+
+	@Override
+	public void endBlockComment(StringBuilder builder) {
+		if (commentStart >= 0) builder.setLength(commentStart);
+		commentStart = -1;
+	}
+
+	@Override
+	public void startClassBlock(StringBuilder builder) {
+		builder.append("{\r\n");
+	}
+
+	@Override
+	public void endClassBlock(StringBuilder builder) {
+		trimSeparator(builder);
+		super.endClassBlock(builder);
+	}
+
+	@Override
+	protected String prefixedField(String prefix, String name) {
+		return name; // Quoted by #appendKey
+	}
+
+	@Override
+	protected StringBuilder appendKey(StringBuilder builder, String key) {
+		return appendString(builder, key);
+	}
+
+	@Override
+	protected void trimSeparator(StringBuilder builder) {
+		int idx = builder.length();
+		while (idx > 0) {
+			char c = builder.charAt(idx - 1);
+			if (c != ' ' && c != '\t' && c != '\r' && c != '\n') break;
+			idx--;
+		}
+		if (idx > 0 && builder.charAt(idx - 1) == ',') builder.deleteCharAt(idx - 1);
+	}
+
+	@Override
+	protected void generateString(StringBuilder builder, String v) {
+		appendString(builder, v);
+	}
+
+	@Override
+	protected void appendEncodedString(StringBuilder builder, String codecKey, String encoded) {
+		appendKey(builder.append("{ "), codecKey).append(": ");
+		appendString(builder, encoded).append(" }");
+	}
+
+	@Override
+	protected void appendChar(StringBuilder builder, char ch) {
+		if (0x20 <= ch && ch <= 0x7e) {
+			appendString(builder, String.valueOf(ch));
+		} else {
+			builder.append((int) ch); // Same as JavaScript's 0x7f
+		}
+	}
+
+	@Override
+	protected void appendDouble(StringBuilder builder, double d) {
+		if (Double.isNaN(d) || Double.isInfinite(d)) {
+			appendString(builder, String.valueOf(d)); // Not a JSON number
+		} else {
+			builder.append(d);
+		}
+	}
+
+	@Override
+	protected void appendFloat(StringBuilder builder, float f) {
+		if (Float.isNaN(f) || Float.isInfinite(f)) {
+			appendString(builder, String.valueOf(f)); // Not a JSON number
+		} else {
+			builder.append(f);
+		}
+	}
+
+	@Override
+	protected int checkSuffix(byte[] content, int contentLength, int nextIdx, int nameLength, Field field, Field nextField, boolean generated, boolean found) {
+		int idx = super.checkSuffix(content, contentLength, nextIdx, nameLength, field, nextField, generated, found);
+		if (idx != contentLength || generated) return idx;
+		// The last field has no trailing ",", stop before the closing "}"
+		while (idx > nextIdx && content[idx - 1] != '}') idx--;
+		if (idx <= nextIdx) return -1;
+		idx--;
+		while (idx > nextIdx && (content[idx - 1] == '\r' || content[idx - 1] == '\n'
+				|| content[idx - 1] == ' ' || content[idx - 1] == '\t')) {
+			idx--;
+		}
+		return idx;
+	}
+
+	private static StringBuilder appendString(StringBuilder out, CharSequence value) {
+		out.append('\"');
+		int length = value.length();
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '\"': out.append("\\\""); break;
+			case '\\': out.append("\\\\"); break;
+			case '\n': out.append("\\n"); break;
+			case '\r': out.append("\\r"); break;
+			case '\t': out.append("\\t"); break;
+			case '\b': out.append("\\b"); break;
+			case '\f': out.append("\\f"); break;
+			default:
+				if (c < 0x20) {
+					String hex = Integer.toHexString(c);
+					out.append("\\u");
+					for (int j = hex.length(); j < 4; j++) {
+						out.append('0');
+					}
+					out.append(hex);
+				} else {
+					out.append(c);
+				}
+			}
+		}
+		return out.append('\"');
+	}
+
+}
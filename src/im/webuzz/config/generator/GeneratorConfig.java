@@ -60,6 +60,7 @@ public class GeneratorConfig {
 		generators.put("ini", ConfigINIGenerator.class);
 		generators.put("js", ConfigJSGenerator.class);
 		generators.put("xml", ConfigXMLGenerator.class);
+		generators.put("json", ConfigJSONGenerator.class);
 		generatorExtensions = Collections.unmodifiableMap(generators);
 	}
 	
@@ -1,21 +1,70 @@
 package im.webuzz.config.loader;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import im.webuzz.config.Config;
 import im.webuzz.config.InternalConfigUtils;
 import im.webuzz.config.common.FileUtils;
+import im.webuzz.config.parser.ConfigIncrementalParser;
+import im.webuzz.config.parser.ConfigItemStore;
 import im.webuzz.config.parser.ConfigParser;
 import im.webuzz.config.parser.ConfigParserBuilder;
 
 public class ConfigFileOnce implements ConfigLoader {
 
+	// Parsing results of a configuration class, before its fields are updated
+	private static class ClassBinding {
+		final Class<?> clz;
+		String keyPrefix;
+		File localFile; // the class' own key prefix file, null if it does not exist
+		String extension;
+		ConfigMemoryFile memFile; // updated key prefix file, before being parsed
+		int mainChecked; // -1 if items in the main file are invalid
+		FileBinding file; // for the class' own key prefix file
+
+		ClassBinding(Class<?> clz) {
+			this.clz = clz;
+		}
+	}
+
+	// Parser of an updated key prefix file, before fields are updated
+	private static class FileBinding {
+		final ConfigMemoryFile memFile;
+		final ConfigParser<?, ?> parser;
+		int flag;
+		int checked; // -1 if items are invalid
+
+		FileBinding(ConfigMemoryFile memFile, ConfigParser<?, ?> parser) {
+			this.memFile = memFile;
+			this.parser = parser;
+		}
+	}
+
+	private static final int STAGE_READ = 0;
+	private static final int STAGE_PARSE = 1;
+
+	private static volatile ThreadPoolExecutor bindingPool;
+
 	protected boolean running = false;
 	protected Map<String, Long> fileLastUpdateds = new ConcurrentHashMap<String, Long>();
 	protected Map<String, Class<?>> keyPrefixClassMap = new ConcurrentHashMap<String, Class<?>>();
 
+	// Files whose contents are bound to the classes, see ConfigMemoryFile#boundDigest
+	private Map<Class<?>, ConfigMemoryFile> boundFiles = new ConcurrentHashMap<Class<?>, ConfigMemoryFile>();
+	private ConfigMemoryFile boundMainFile = null;
+
 	private long mainFileLastUpdated = 0;
 	private ConfigParser<?, ?> defaultParser = null;
 
@@ -57,7 +106,11 @@ public class ConfigFileOnce implements ConfigLoader {
 			fileLastUpdateds.put(file.getName(), lastUpdated);
 			keyPrefixClassMap.put(keyPrefix, configClazz);
 			InternalConfigUtils.recordConfigExtension(configClazz, extension); // always update the configuration class' file extension
-			parser.parseConfiguration(configClazz, ConfigParser.FLAG_UPDATE);
+			int result = parser.parseConfiguration(configClazz, ConfigParser.FLAG_UPDATE);
+			memFile.boundItems = result != -1 && parser instanceof ConfigIncrementalParser
+					? ((ConfigIncrementalParser) parser).getItems() : null;
+			memFile.boundDigest = result != -1 ? memFile.getContentDigest() : null;
+			if (result != -1) boundFiles.put(configClazz, memFile);
 			if (Config.configurationLogging) {
 				System.out.println("[Config:INFO] Configuration " + configClazz.getName() + " at " + file.getAbsolutePath() + " loaded.");
 			}
@@ -66,122 +119,427 @@ public class ConfigFileOnce implements ConfigLoader {
 		}
 	}
 
+	@Override
+	public void addAll(Class<?>[] configClazzes) {
+		if (!running) return; // Not started yet
+		bindConfigurations(configClazzes, defaultParser, 0, Config.getConfigFolder(), Config.getConfigMainExtension());
+	}
+
 	protected void loadAllResourceFiles() {
 		String[] extraFiles = RemoteCCConfig.extraResourceFiles;
 		if (extraFiles == null || extraFiles.length == 0) return;
-		String[] extraExts = RemoteCCConfig.extraResourceExtensions;
 		String configFolder = Config.getConfigFolder();
 		for (String path : extraFiles) {
-			path = FileUtils.parseFilePath(path);
-			File f = new File(configFolder, path);
-			String folder = f.getParent();
-			if (folder == null) folder = ".";
-			String filePath = folder + File.separatorChar;
-			String name = f.getName();
-			String fileName = null;
-			String fileExt = null;
-			boolean matched = false;
-			for (String extraExt : extraExts) {
-				if (path.endsWith(extraExt)) {
-					matched = true;
-					fileName = name.substring(0, name.length() - extraExt.length());
-					fileExt = extraExt;
-					break;
-				}
+			loadResourceFile(configFolder, path);
+		}
+	}
+
+	/*
+	 * Load the given resource file into ConfigMemoryFS, return false if its
+	 * extension is not permitted.
+	 */
+	protected boolean loadResourceFile(String configFolder, String path) {
+		String[] extraExts = RemoteCCConfig.extraResourceExtensions;
+		path = FileUtils.parseFilePath(path);
+		File f = new File(configFolder, path);
+		String folder = f.getParent();
+		if (folder == null) folder = ".";
+		String filePath = folder + File.separatorChar;
+		String name = f.getName();
+		String fileName = null;
+		String fileExt = null;
+		boolean matched = false;
+		for (String extraExt : extraExts) {
+			if (path.endsWith(extraExt)) {
+				matched = true;
+				fileName = name.substring(0, name.length() - extraExt.length());
+				fileExt = extraExt;
+				break;
 			}
-			if (!matched) continue;
-			/*
-			if (!matched) {
-				if (Config.configurationLogging) {
-					System.out.println("[Config:INFO] Resource file " + path + " is skipped as its extension is not permitted.");
-				}
-				continue;
+		}
+		if (!matched) return false;
+		/*
+		if (!matched) {
+			if (Config.configurationLogging) {
+				System.out.println("[Config:INFO] Resource file " + path + " is skipped as its extension is not permitted.");
 			}
-			//*/
-			ConfigMemoryFile memFile = ConfigMemoryFS.checkAndPrepareFile(filePath, fileName, fileExt);
-			memFile.synchronizeWithLocal(f, false);
+			return false;
 		}
+		//*/
+		ConfigMemoryFile memFile = ConfigMemoryFS.checkAndPrepareFile(filePath, fileName, fileExt);
+		memFile.synchronizeWithLocal(f, false, LocalFSConfig.mappedReadingThreshold);
+		return true;
 	}
 
-	private boolean parseConfig(ConfigParser<?, ?> parser, Class<?> config) {
+	private int parseConfig(ConfigParser<?, ?> parser, Class<?> config, int flag) {
 		if (Config.configurationSkipInvalidUpdate) {
-			if (parser.parseConfiguration(config, ConfigParser.FLAG_CHECK) != -1) { // checking
-				return parser.parseConfiguration(config, ConfigParser.FLAG_UPDATE) == 1;
-			}
-			return false;
+			if (parser.parseConfiguration(config, ConfigParser.FLAG_CHECK | flag) == -1) return -1; // checking
 		}
-		return parser.parseConfiguration(config, ConfigParser.FLAG_UPDATE) == 1;
+		return parser.parseConfiguration(config, ConfigParser.FLAG_UPDATE | flag);
+	}
+
+	/*
+	 * Let the parser know which items are already bound, and return the flag
+	 * for incremental parsing, or 0 if it is not supported.
+	 */
+	private int prepareIncremental(ConfigParser<?, ?> parser, ConfigItemStore boundItems) {
+		if (!(parser instanceof ConfigIncrementalParser)) return 0;
+		((ConfigIncrementalParser) parser).setPreviousItems(boundItems);
+		return ConfigParser.FLAG_INCREMENTAL;
 	}
 	
 	protected void updateAllConfigurations(String configFolder, String configName, String configExtension) {
+		updateAllConfigurations(configFolder, configName, configExtension, false);
+	}
+
+	/*
+	 * Update all configurations. If forced is true, the main file is read even
+	 * if its last modified time is not changed, e.g. modified twice in one second.
+	 */
+	protected void updateAllConfigurations(String configFolder, String configName, String configExtension, boolean forced) {
 		//if (configPath == null) return;
 		String configPath = configFolder + configName + configExtension;
 		File file = new File(configPath);
 		if (!file.exists()) {
 			System.out.println("[Config:ERROR] Given main configuration file \"" + configPath + "\" does not exist!");
 			//return;
-		} else if (file.lastModified() != mainFileLastUpdated) {
+		} else if (forced || file.lastModified() != mainFileLastUpdated) {
 			ConfigMemoryFile memFile = ConfigMemoryFS.checkAndPrepareFile(configFolder, configName, configExtension);
 			memFile.synchronizeWithLocal(file, false);
-			if (Config.configurationLogging && mainFileLastUpdated > 0) {
-				System.out.println("[Config:INFO] Configuration file " + configPath + " updated.");
-			}
-			try {
-				defaultParser = ConfigParserBuilder.prepareParser(configExtension, memFile.content, true);
-				if (defaultParser == null) {
-					System.out.println("[Config:ERROR] Fail to prepare parser for file extension \"" + configExtension + "\"!");
+			if (isBound(memFile, boundMainFile)) {
+				// Touched or rewritten with the same content, no need to parse it again
+				mainFileLastUpdated = file.lastModified();
+			} else {
+				if (Config.configurationLogging && mainFileLastUpdated > 0) {
+					System.out.println("[Config:INFO] Configuration file " + configPath + " updated.");
+				}
+				try {
+					defaultParser = ConfigParserBuilder.prepareParser(configExtension, memFile.content, true);
+					if (defaultParser == null) {
+						System.out.println("[Config:ERROR] Fail to prepare parser for file extension \"" + configExtension + "\"!");
+						//return;
+					}
+					mainFileLastUpdated = file.lastModified();
+				} catch (Throwable e) {
+					e.printStackTrace();
 					//return;
 				}
-				mainFileLastUpdated = file.lastModified();
-			} catch (Throwable e) {
-				e.printStackTrace();
-				//return;
 			}
 		}
+		ConfigParser<?, ?> parser = defaultParser;
+		ConfigMemoryFile mainFile = null;
+		int mainFlag = 0;
+		if (parser != null && file.exists()) {
+			mainFile = ConfigMemoryFS.checkAndPrepareFile(configFolder, configName, configExtension);
+			if (isBound(mainFile, boundMainFile)) {
+				// Items of the main file are bound to all classes already, only check key prefix files
+				parser = null;
+			} else {
+				// Only re-bind fields of changed items, if the main file is bound before
+				mainFlag = prepareIncremental(parser, mainFile.boundItems);
+			}
+		}
+		boolean mainBound = true;
 		Class<?> oldLoader = Config.configurationLoader; // old loader should be this class
-		if (defaultParser != null && parseConfig(defaultParser, Config.class)) {
+		int result = parser != null ? parseConfig(parser, Config.class, mainFlag) : 0;
+		if (result == -1) mainBound = false;
+		if (result == 1) {
 			//InternalConfigUtils.recordConfigExtension(Config.class, configExtension);
 			if (oldLoader != Config.configurationLoader) { // loader changed!
 				InternalConfigUtils.checkStrategyLoader();
 			}
 		}
-		for (Class<?> clz : Config.getAllConfigurations()) {
-			String keyPrefix = Config.getKeyPrefix(clz);
-			if (defaultParser != null && parseConfig(defaultParser, clz)) {
-				if (keyPrefix == null || keyPrefix.length() == 0) {
+		if (!bindConfigurations(Config.getAllConfigurations(), parser, mainFlag, configFolder, configExtension)) mainBound = false;
+		if (mainFlag != 0) {
+			((ConfigIncrementalParser) parser).setPreviousItems(null); // later added classes need full binding
+			mainFile.boundItems = mainBound ? ((ConfigIncrementalParser) parser).getItems() : null;
+		}
+		if (parser != null && mainFile != null) {
+			mainFile.boundDigest = mainBound ? mainFile.getContentDigest() : null;
+			boundMainFile = mainBound ? mainFile : null;
+		}
+	}
+
+	/*
+	 * Return true if the given file is the last file bound and its content is
+	 * not changed since then.
+	 */
+	private static boolean isBound(ConfigMemoryFile memFile, ConfigMemoryFile boundFile) {
+		if (memFile != boundFile || memFile.boundDigest == null) return false;
+		return Arrays.equals(memFile.getContentDigest(), memFile.boundDigest);
+	}
+
+	/*
+	 * Bind the given classes with the main file parser and their own key
+	 * prefix files. Files are discovered, read and parsed for all classes
+	 * first, and then fields are updated in the given order.
+	 * Return false if items in the main file are invalid for any class.
+	 */
+	private boolean bindConfigurations(Class<?>[] configs, ConfigParser<?, ?> parser, int mainFlag, String configFolder, String configExtension) {
+		boolean mainBound = true;
+		ClassBinding[] bindings = new ClassBinding[configs.length];
+		for (int i = 0; i < configs.length; i++) {
+			bindings[i] = new ClassBinding(configs[i]);
+		}
+		boolean parallel = Config.configurationParallelBinding && configs.length > 1;
+		// Discover all key prefix files, with one listing per folder
+		long time = System.currentTimeMillis();
+		Map<String, Set<String>> listings = new HashMap<String, Set<String>>();
+		for (ClassBinding binding : bindings) {
+			discoverBinding(binding, configFolder, listings);
+		}
+		long now = System.currentTimeMillis();
+		long discoverCost = now - time;
+		long readCost = 0;
+		long parseCost = 0;
+		if (parallel) {
+			// Read all files concurrently, then parse and check all classes concurrently, no fields are updated here
+			time = now;
+			runStage(STAGE_READ, bindings, parser, mainFlag, configFolder);
+			now = System.currentTimeMillis();
+			readCost = now - time;
+			time = now;
+			runStage(STAGE_PARSE, bindings, parser, mainFlag, configFolder);
+			now = System.currentTimeMillis();
+			parseCost = now - time;
+		}
+		time = now;
+		for (ClassBinding binding : bindings) { // update fields in registration order
+			if (!parallel) {
+				long before = System.currentTimeMillis();
+				readBinding(binding, configFolder);
+				long read = System.currentTimeMillis();
+				parseBinding(binding, parser, mainFlag);
+				readCost += read - before;
+				parseCost += System.currentTimeMillis() - read;
+			}
+			Class<?> clz = binding.clz;
+			int result = 0;
+			if (binding.mainChecked == -1) {
+				result = -1;
+			} else if (parser != null) {
+				result = parser.parseConfiguration(clz, ConfigParser.FLAG_UPDATE | mainFlag);
+			}
+			if (result == -1) mainBound = false;
+			if (result == 1) {
+				if (binding.keyPrefix == null || binding.keyPrefix.length() == 0) {
 					InternalConfigUtils.recordConfigExtension(clz, configExtension);
 				}
 			}
-			if (keyPrefix == null || keyPrefix.length() == 0) continue;
-			keyPrefixClassMap.put(keyPrefix, clz);
-			StringBuilder extBuilder = new StringBuilder();
-			file = InternalConfigUtils.getConfigFile(configFolder, keyPrefix, extBuilder);
-			if (!file.exists()) continue;
-			updateSingleConfiguration(file, configFolder, keyPrefix, extBuilder.toString(), clz);
+			if (binding.file != null) commitSingleConfiguration(binding.file, clz);
+		}
+		if (Config.configurationLogging && !running) {
+			long bindCost = System.currentTimeMillis() - time - (parallel ? 0 : readCost + parseCost);
+			System.out.println("[Config:INFO] Configuration files of " + bindings.length + " classes loaded, discover="
+					+ discoverCost + "ms, read=" + readCost + "ms, parse=" + parseCost + "ms, bind=" + bindCost + "ms.");
+		}
+		return mainBound;
+	}
+
+	/*
+	 * Resolve the class' key prefix and its own key prefix file.
+	 */
+	private void discoverBinding(ClassBinding binding, String configFolder, Map<String, Set<String>> listings) {
+		String keyPrefix = Config.getKeyPrefix(binding.clz);
+		binding.keyPrefix = keyPrefix;
+		if (keyPrefix == null || keyPrefix.length() == 0) return;
+		keyPrefixClassMap.put(keyPrefix, binding.clz);
+		StringBuilder extBuilder = new StringBuilder();
+		File file = InternalConfigUtils.getConfigFile(configFolder, keyPrefix, extBuilder, listings);
+		if (!InternalConfigUtils.fileExists(file, listings)) return;
+		binding.localFile = file;
+		binding.extension = extBuilder.toString();
+	}
+
+	/*
+	 * Run the given stage for all classes concurrently. No fields are updated
+	 * in these stages.
+	 */
+	private void runStage(final int stage, ClassBinding[] bindings, final ConfigParser<?, ?> parser, final int mainFlag, final String configFolder) {
+		Executor executor = getBindingExecutor();
+		FutureTask<?>[] tasks = new FutureTask<?>[bindings.length];
+		for (int i = 0; i < bindings.length; i++) {
+			final ClassBinding binding = bindings[i];
+			FutureTask<Object> task = new FutureTask<Object>(new Runnable() {
+				@Override
+				public void run() {
+					if (stage == STAGE_READ) {
+						readBinding(binding, configFolder);
+					} else {
+						parseBinding(binding, parser, mainFlag);
+					}
+				}
+			}, null);
+			tasks[i] = task;
+			executor.execute(task);
+		}
+		boolean interrupted = false;
+		try {
+			for (FutureTask<?> task : tasks) {
+				while (true) {
+					try {
+						task.get();
+						break;
+					} catch (InterruptedException e) {
+						interrupted = true; // fields are updated after this stage, wait for all tasks
+					} catch (ExecutionException e) {
+						Throwable cause = e.getCause();
+						if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+						if (cause instanceof Error) throw (Error) cause;
+						throw new RuntimeException(cause);
+					}
+				}
+			}
+		} finally {
+			if (interrupted) Thread.currentThread().interrupt();
+		}
+	}
+
+	/*
+	 * Return LocalFSConfig.parallelBindingExecutor if given, or the dedicated
+	 * pool, which is sized by LocalFSConfig.parallelBindingWorkers. Blocking
+	 * file reading should not occupy the common ForkJoinPool.
+	 */
+	static Executor getBindingExecutor() {
+		Executor executor = LocalFSConfig.parallelBindingExecutor;
+		if (executor != null) return executor;
+		int workers = Math.max(1, LocalFSConfig.parallelBindingWorkers);
+		ThreadPoolExecutor pool = bindingPool;
+		if (pool == null) {
+			synchronized (ConfigFileOnce.class) {
+				pool = bindingPool;
+				if (pool == null) {
+					pool = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+							new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+						@Override
+						public Thread newThread(Runnable r) {
+							Thread thread = new Thread(r, "Configuration File Binder");
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+					pool.allowCoreThreadTimeOut(true);
+					bindingPool = pool;
+				}
+			}
+		}
+		if (pool.getMaximumPoolSize() != workers) {
+			synchronized (pool) {
+				if (workers > pool.getMaximumPoolSize()) {
+					pool.setMaximumPoolSize(workers);
+					pool.setCorePoolSize(workers);
+				} else if (workers < pool.getMaximumPoolSize()) {
+					pool.setCorePoolSize(workers);
+					pool.setMaximumPoolSize(workers);
+				}
+			}
+		}
+		return pool;
+	}
+
+	private void readBinding(ClassBinding binding, String configFolder) {
+		if (binding.localFile == null) return;
+		binding.memFile = readSingleConfiguration(binding.localFile, configFolder, binding.keyPrefix, binding.extension, binding.clz, false);
+	}
+
+	/*
+	 * Check given class against the main file, and prepare its own key prefix
+	 * file. No fields are updated, so it can be run concurrently for different
+	 * classes.
+	 */
+	private void parseBinding(ClassBinding binding, ConfigParser<?, ?> parser, int mainFlag) {
+		Class<?> clz = binding.clz;
+		if (parser != null && Config.configurationSkipInvalidUpdate) {
+			binding.mainChecked = parser.parseConfiguration(clz, ConfigParser.FLAG_CHECK | mainFlag);
 		}
+		if (binding.memFile == null) return;
+		binding.file = parseSingleConfiguration(binding.memFile, binding.localFile, binding.keyPrefix + binding.extension, binding.extension, clz);
+		binding.memFile = null;
 	}
 
 	protected void updateSingleConfiguration(File file, String filePath, String filePrefix, String extension, Class<?> clz) {
+		updateSingleConfiguration(file, filePath, filePrefix, extension, clz, false);
+	}
+
+	/*
+	 * Update the given configuration. If forced is true, the file is read even
+	 * if its last modified time is not changed.
+	 */
+	protected void updateSingleConfiguration(File file, String filePath, String filePrefix, String extension, Class<?> clz, boolean forced) {
+		FileBinding binding = prepareSingleConfiguration(file, filePath, filePrefix, extension, clz, forced);
+		if (binding != null) commitSingleConfiguration(binding, clz);
+	}
+
+	/*
+	 * Load the updated file and check its items, return null if the file is
+	 * not updated or no parser is available.
+	 */
+	private FileBinding prepareSingleConfiguration(File file, String filePath, String filePrefix, String extension, Class<?> clz, boolean forced) {
+		ConfigMemoryFile memFile = readSingleConfiguration(file, filePath, filePrefix, extension, clz, forced);
+		if (memFile == null) return null;
+		return parseSingleConfiguration(memFile, file, filePrefix + extension, extension, clz);
+	}
+
+	/*
+	 * Read the updated file into memory, return null if the file is not updated.
+	 */
+	private ConfigMemoryFile readSingleConfiguration(File file, String filePath, String filePrefix, String extension, Class<?> clz, boolean forced) {
 		String fileName = filePrefix + extension;
 		long lastUpdated = 0;
 		Long v = fileLastUpdateds.get(fileName);
 		if (v != null) {
 			lastUpdated = v.longValue();
 		}
-		if (file.lastModified() == lastUpdated) return;
+		if (!forced && file.lastModified() == lastUpdated) return null;
 		ConfigMemoryFile memFile = ConfigMemoryFS.checkAndPrepareFile(filePath, filePrefix, extension);
 		memFile.synchronizeWithLocal(file, false); // file.exists() == true, see call hierarchy
+		if (isBound(memFile, boundFiles.get(clz))) {
+			// Touched or rewritten with the same content, no need to parse it again
+			fileLastUpdateds.put(fileName, file.lastModified());
+			return null;
+		}
 		
 		if (Config.configurationLogging && lastUpdated > 0) {
 			System.out.println("[Config:INFO] Configuration " + clz.getName() + " at " + file.getAbsolutePath() + " updated.");
 		}
+		return memFile;
+	}
+
+	/*
+	 * Parse the file read into memory and check its items, return null if no
+	 * parser is available.
+	 */
+	private FileBinding parseSingleConfiguration(ConfigMemoryFile memFile, File file, String fileName, String extension, Class<?> clz) {
 		try {
 			ConfigParser<?, ?> parser = ConfigParserBuilder.prepareParser(extension, memFile.content, false);
-			if (parser == null) return;
-			lastUpdated = file.lastModified();
-			fileLastUpdateds.put(fileName, lastUpdated);
+			if (parser == null) return null;
+			fileLastUpdateds.put(fileName, file.lastModified());
 			InternalConfigUtils.recordConfigExtension(clz, extension); // always update the configuration class' file extension
-			parseConfig(parser, clz);
+			ConfigItemStore boundItems = memFile.boundItems;
+			memFile.boundItems = null;
+			memFile.boundDigest = null;
+			FileBinding binding = new FileBinding(memFile, parser);
+			binding.flag = prepareIncremental(parser, boundItems);
+			if (Config.configurationSkipInvalidUpdate) {
+				binding.checked = parser.parseConfiguration(clz, ConfigParser.FLAG_CHECK | binding.flag);
+			}
+			return binding;
+		} catch (Throwable e) {
+			e.printStackTrace();
+		}
+		return null;
+	}
+
+	private void commitSingleConfiguration(FileBinding binding, Class<?> clz) {
+		if (binding.checked == -1) return;
+		try {
+			ConfigParser<?, ?> parser = binding.parser;
+			if (parser.parseConfiguration(clz, ConfigParser.FLAG_UPDATE | binding.flag) != -1) {
+				ConfigMemoryFile memFile = binding.memFile;
+				if (binding.flag != 0) memFile.boundItems = ((ConfigIncrementalParser) parser).getItems();
+				memFile.boundDigest = memFile.getContentDigest();
+				boundFiles.put(clz, memFile);
+			}
 		} catch (Throwable e) {
 			e.printStackTrace();
 		}
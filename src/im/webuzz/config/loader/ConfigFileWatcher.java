@@ -7,18 +7,53 @@ import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.FileSystems;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
 import java.nio.file.WatchEvent;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import im.webuzz.config.Config;
 import im.webuzz.config.InternalConfigUtils;
+import im.webuzz.config.common.FileUtils;
 
 public class ConfigFileWatcher extends ConfigFileOnce implements Runnable {
 
+	// File attributes for change detection in polling mode
+	private static class FileStamp {
+		final long size;
+		final FileTime modified;
+		final Object fileKey; // inode on Unix-like systems, may be null
+
+		FileStamp(BasicFileAttributes attrs) {
+			size = attrs.size();
+			modified = attrs.lastModifiedTime();
+			fileKey = attrs.fileKey();
+		}
+
+		boolean matches(FileStamp s) {
+			return size == s.size && modified.equals(s.modified)
+					&& (fileKey == null ? s.fileKey == null : fileKey.equals(s.fileKey));
+		}
+	}
+
 	@Override
 	public boolean start() {
 		Class<? extends ConfigLoader> oldLoaderClass = Config.configurationLoader;
@@ -31,12 +66,41 @@ public class ConfigFileWatcher extends ConfigFileOnce implements Runnable {
 		return true;
 	}
 	
+	// Changed files waiting for the quiet window, file name => { first event time, last event time }
+	// File names are relative to the main configuration folder, separated by "/"
+	private final Map<String, long[]> pendingFiles = new LinkedHashMap<String, long[]>();
+
+	// Folders with key prefix files or resource files, all watched by one WatchService
+	private final Map<WatchKey, Path> watchedKeys = new ConcurrentHashMap<WatchKey, Path>();
+	private final Map<Path, WatchKey> watchedFolders = new ConcurrentHashMap<Path, WatchKey>();
+	private WatchService watchService;
+	private Map<String, FileStamp> fileStamps; // for polling mode
+	private Path mainPath;
+
+	private String mainKeyPrefix;
+	private String mainExtension;
+	private String mainFolder;
+
+	@Override
+	public void add(Class<?> configClazz) {
+		super.add(configClazz);
+		if (running) refreshWatchedFolders(false); // key prefix may be in a new folder
+	}
+
+	@Override
+	public void addAll(Class<?>[] configClazzes) {
+		super.addAll(configClazzes);
+		if (running) refreshWatchedFolders(false);
+	}
+
 	@Override
 	public void run() {
-		String mainKeyPrefix = Config.getConfigMainName();
-		String mainExtension = Config.getConfigMainExtension();
-		String mainFolder = Config.getConfigFolder();
+		mainKeyPrefix = Config.getConfigMainName();
+		mainExtension = Config.getConfigMainExtension();
+		mainFolder = Config.getConfigFolder();
+		mainPath = Paths.get(mainFolder).toAbsolutePath().normalize();
 		if (!LocalFSConfig.enableFileWatcher) {
+			fileStamps = statFiles(); // files are loaded already
 			while (running) {
 				for (int i = 0; i < LocalFSConfig.pollingIntervalSeconds; i++) {
 					try {
@@ -46,108 +110,356 @@ public class ConfigFileWatcher extends ConfigFileOnce implements Runnable {
 					}
 					if (!running) break;
 				}
-				if (running) updateAllConfigurations(mainFolder, mainKeyPrefix, mainExtension);
+				if (running) pollFiles();
 			}
 			return;
 		}
-		Path path = Paths.get(mainFolder);
 		try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
-			WatchKey watchKey;
-			if (LocalFSConfig.enablePrivateHighWatcherSensitivity) {
-				try {
-					// SensitivityWatchEventModifier.HIGH); // Private SUN API
-					@SuppressWarnings({ "unchecked", "rawtypes" })
-					Enum modifier = Enum.valueOf((Class<? extends Enum>) Class.forName("com.sun.nio.file.SensitivityWatchEventModifier"), "HIGH");
-					watchKey = path.register(watchService, new WatchEvent.Kind[]{ENTRY_MODIFY, ENTRY_CREATE, ENTRY_DELETE}, (WatchEvent.Modifier) modifier);
-				} catch (Throwable e) {
-					// e.printStackTrace();
-					watchKey = path.register(watchService, new WatchEvent.Kind[]{ENTRY_MODIFY, ENTRY_CREATE, ENTRY_DELETE});
-				}
-			} else {
-				watchKey = path.register(watchService, new WatchEvent.Kind[]{ENTRY_MODIFY, ENTRY_CREATE, ENTRY_DELETE});
-			}
+			this.watchService = watchService;
+			refreshWatchedFolders(false);
 
 			while (running) {
-				WatchKey key = watchService.take();
-
-				for (WatchEvent<?> event : key.pollEvents()) {
-					WatchEvent.Kind<?> kind = event.kind();
-					//System.out.println(kind);
-					if (kind != ENTRY_MODIFY && kind != ENTRY_CREATE && kind != ENTRY_DELETE) continue;
-					Path filePath = (Path) event.context();
-					String newFileName = filePath.getFileName().toString();
-					int dotIndex = newFileName.lastIndexOf('.');
-					if (dotIndex == -1) continue; // skip
-					String extension = newFileName.substring(dotIndex); //.toLowerCase();
-					List<String> exts = Config.configurationScanningExtensions;
-					if (!exts.contains(extension)) continue; // Unsupported extensions
-					String newKeyPrefix = newFileName.substring(0, dotIndex);
-					// To check if the current key prefix and the extension is the
-					// first available(or active) combination or not
-					// If not, print warning and continue
-					StringBuilder extBuilder = new StringBuilder();
-					File file = InternalConfigUtils.getConfigFile(newKeyPrefix, extBuilder);
-					//System.out.println(file);
-					if (!file.exists()) {
-						// kind == ENTRY_DELETE may run into this branch
-						// Remove current file from fileLastUpdateds map
-						fileLastUpdateds.remove(newFileName);
-						
-						// In this case, the given file is deleted, and no new configuration files are
-						// found, print warning, no need to update configurations.
-						System.out.println("[Config:WARN] After " + newFileName + " being deleted, no replacment configuration files are found!");
-						System.out.println("[Config:WARN] Application restarting may run with incorrect configurations!");
-						continue;
-					}
-					// It should always be true for ENTRY_MODIFY and ENTRY_CREATE here
-					String activeFileName = file.getName();
-					if (kind == ENTRY_MODIFY || kind == ENTRY_CREATE) {
-						if (!activeFileName.equals(newFileName)) {
-							// inactive configuration file for the extension
-							System.out.println("[Config:WARN] The updated file " + newFileName + " is disabled for configurations. Current enabled file is " + activeFileName);
-							continue;
-						} // else continue following logic codes
-					} else { // kind == ENTRY_DELETE
-						// As the file exists, so the current(DELETED) entry/file should be disabled
-						// and load the new existing file
-						
-						// Remove current file from fileLastUpdateds map
-						fileLastUpdateds.remove(newFileName);
-						// Update extension with the enable file
-						extension = extBuilder.toString();
+				WatchKey key = pollKey(watchService);
+				if (key != null) {
+					long now = System.currentTimeMillis();
+					Path folder = watchedKeys.get(key);
+					boolean foldersChanged = false;
+					if (folder != null) {
+						for (WatchEvent<?> event : key.pollEvents()) {
+							WatchEvent.Kind<?> kind = event.kind();
+							//System.out.println(kind);
+							if (kind != ENTRY_MODIFY && kind != ENTRY_CREATE && kind != ENTRY_DELETE) continue;
+							Path filePath = folder.resolve((Path) event.context());
+							if (kind != ENTRY_MODIFY && (watchedFolders.containsKey(filePath) || Files.isDirectory(filePath))) {
+								foldersChanged = true; // sub folder created or deleted
+								continue;
+							}
+							addPendingFile(filePath, now);
+						} // end of for key.pollEvents
 					}
-					Class<?> clz = keyPrefixClassMap.get(newKeyPrefix);
-					//System.out.println("Yoho " + clz + " // " + newKeyPrefix + " xxx " + keyPrefixClassMap.size());
-					if (clz != null) {
-						String oldExtension = InternalConfigUtils.getConfigExtension(clz);
-						if (oldExtension != null && !oldExtension.equals(extension)) {
-							if (Config.configurationLogging) System.out.println("[Config:INFO] Configuration extension changed: switching from "
-									+ newKeyPrefix + oldExtension + " to " + newKeyPrefix + extension);
+
+					boolean valid = key.reset();
+					if (!valid) {
+						if (folder == null || folder.equals(mainPath)) {
+							System.out.println("[Config:ERROR] The watching key of the file system's WatchService is invalid!");
 						}
-						//Path fullPath = path.resolve(filePath);
-						updateSingleConfiguration(file, mainFolder, newKeyPrefix, extension, clz);
-					} else if (newKeyPrefix.equals(mainKeyPrefix)) {
-						if (mainExtension != null && !mainExtension.equals(extension)) {
-							if (Config.configurationLogging) System.out.println("[Config:INFO] Configuration extension changed: switching from "
-									+ newKeyPrefix + mainExtension + " to " + newKeyPrefix + extension);
+						if (folder != null) {
+							// Folder is deleted, watch its parent folder for re-creation
+							watchedKeys.remove(key);
+							watchedFolders.remove(folder);
+							foldersChanged = true;
 						}
-						Config.updateConfigMainExtension(extension);
-						mainExtension = extension;
-						updateAllConfigurations(mainFolder, mainKeyPrefix, extension);
-					} // else unknown files
-				} // end of for key.pollEvents
-
-				boolean valid = key.reset();
-				if (!valid) {
-					System.out.println("[Config:ERROR] The watching key of the file system's WatchService is invalid!");
-					//break;
+						//break;
+					}
+					if (foldersChanged) refreshWatchedFolders(true);
 				}
+				updatePendingFiles();
+			}
+			for (WatchKey watchKey : watchedKeys.keySet()) {
+				watchKey.cancel();
 			}
-			watchKey.cancel();
+			this.watchService = null;
 			watchService.close();
 		} catch (IOException | InterruptedException e) {
 			e.printStackTrace();
 		}
 		if (Config.configurationLogging) System.out.println("[Config:INFO] Local configuration file watcher stopped.");
 	}
+
+	/*
+	 * Register all folders with active key prefix files or resource files,
+	 * and cancel folders which are no longer needed. For a folder which does
+	 * not exist yet, its nearest existing parent folder is watched instead, so
+	 * its creation is noticed. Files of newly registered folders are checked
+	 * if scanning is true, as they may be created before registering.
+	 */
+	private synchronized void refreshWatchedFolders(boolean scanning) {
+		WatchService watchService = this.watchService;
+		if (watchService == null) return;
+		boolean registered;
+		do {
+			// Sub folders may be created before their parent folder is registered
+			registered = false;
+			Set<Path> folders = getFolders();
+			for (Iterator<Map.Entry<Path, WatchKey>> itr = watchedFolders.entrySet().iterator(); itr.hasNext();) {
+				Map.Entry<Path, WatchKey> entry = itr.next();
+				if (folders.contains(entry.getKey())) continue;
+				WatchKey key = entry.getValue();
+				key.cancel();
+				watchedKeys.remove(key);
+				itr.remove();
+			}
+			for (Path folder : folders) {
+				if (watchedFolders.containsKey(folder)) continue;
+				try {
+					WatchKey key = registerFolder(watchService, folder);
+					watchedKeys.put(key, folder);
+					watchedFolders.put(folder, key);
+					registered = true;
+					if (Config.configurationLogging && !folder.equals(mainPath)) {
+						System.out.println("[Config:INFO] Watching configuration folder " + folder);
+					}
+				} catch (IOException e) {
+					e.printStackTrace();
+					continue;
+				}
+				if (!scanning) continue;
+				File[] files = folder.toFile().listFiles();
+				if (files == null) continue;
+				long now = System.currentTimeMillis();
+				for (File f : files) {
+					if (f.isFile()) addPendingFile(f.toPath(), now);
+				}
+			}
+		} while (registered);
+	}
+
+	/*
+	 * Return folders with key prefix files or resource files.
+	 */
+	private Set<Path> getFolders() {
+		Set<Path> folders = new HashSet<Path>();
+		folders.add(mainPath);
+		for (String keyPrefix : keyPrefixClassMap.keySet()) {
+			addFolder(folders, FileUtils.parseFilePath(keyPrefix));
+		}
+		String[] extraFiles = RemoteCCConfig.extraResourceFiles;
+		if (extraFiles != null) {
+			for (String path : extraFiles) {
+				if (path != null) addFolder(folders, FileUtils.parseFilePath(path));
+			}
+		}
+		return folders;
+	}
+
+	private void addFolder(Set<Path> folders, String filePath) {
+		if (filePath.indexOf('/') == -1) return; // in main folder
+		Path folder = mainPath.resolve(filePath).normalize().getParent();
+		if (folder == null || !folder.startsWith(mainPath)) return;
+		while (!folder.equals(mainPath) && !Files.isDirectory(folder)) {
+			folder = folder.getParent();
+		}
+		folders.add(folder);
+	}
+
+	private static WatchKey registerFolder(WatchService watchService, Path path) throws IOException {
+		if (LocalFSConfig.enablePrivateHighWatcherSensitivity) {
+			try {
+				// SensitivityWatchEventModifier.HIGH); // Private SUN API
+				@SuppressWarnings({ "unchecked", "rawtypes" })
+				Enum modifier = Enum.valueOf((Class<? extends Enum>) Class.forName("com.sun.nio.file.SensitivityWatchEventModifier"), "HIGH");
+				return path.register(watchService, new WatchEvent.Kind[]{ENTRY_MODIFY, ENTRY_CREATE, ENTRY_DELETE}, (WatchEvent.Modifier) modifier);
+			} catch (IOException e) {
+				throw e;
+			} catch (Throwable e) {
+				// e.printStackTrace();
+			}
+		}
+		return path.register(watchService, new WatchEvent.Kind[]{ENTRY_MODIFY, ENTRY_CREATE, ENTRY_DELETE});
+	}
+
+	/*
+	 * Check attributes of all files in the folders, only files with changed
+	 * sizes, last modified times or file keys are read and updated.
+	 */
+	private void pollFiles() {
+		Map<String, FileStamp> stamps = statFiles();
+		List<String> changedFiles = new ArrayList<String>();
+		for (Map.Entry<String, FileStamp> entry : stamps.entrySet()) {
+			FileStamp stamp = fileStamps.get(entry.getKey());
+			if (stamp == null || !stamp.matches(entry.getValue())) changedFiles.add(entry.getKey());
+		}
+		for (String fileName : fileStamps.keySet()) {
+			if (!stamps.containsKey(fileName)) changedFiles.add(fileName); // deleted
+		}
+		fileStamps = stamps;
+		for (String fileName : changedFiles) {
+			// Modified time may be the same on file systems with coarse time granularity
+			updateFile(fileName, true);
+		}
+	}
+
+	/*
+	 * Read attributes of files folder by folder. Attributes are read along
+	 * with the folder listing on file systems which support it.
+	 */
+	private Map<String, FileStamp> statFiles() {
+		final Map<String, FileStamp> stamps = new HashMap<String, FileStamp>();
+		for (Path folder : getFolders()) {
+			try {
+				Files.walkFileTree(folder, EnumSet.noneOf(FileVisitOption.class), 1, new SimpleFileVisitor<Path>() {
+					@Override
+					public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+						if (!attrs.isRegularFile()) return FileVisitResult.CONTINUE;
+						String fileName = getFileName(file);
+						if (isWatchedFile(fileName)) stamps.put(fileName, new FileStamp(attrs));
+						return FileVisitResult.CONTINUE;
+					}
+
+					@Override
+					public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
+						return FileVisitResult.CONTINUE; // e.g. deleted after being listed
+					}
+				});
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		return stamps;
+	}
+
+	// Return file name relative to the main configuration folder, separated by "/"
+	private String getFileName(Path filePath) {
+		String newFileName = mainPath.relativize(filePath).toString();
+		if (File.separatorChar != '/') newFileName = newFileName.replace(File.separatorChar, '/');
+		return newFileName;
+	}
+
+	private void addPendingFile(Path filePath, long now) {
+		String newFileName = getFileName(filePath);
+		if (!isWatchedFile(newFileName)) return;
+		// Editors and deploying tools may generate a burst of events for one saving
+		long[] times = pendingFiles.get(newFileName);
+		if (times == null) {
+			pendingFiles.put(newFileName, new long[] { now, now });
+		} else {
+			times[1] = now;
+		}
+	}
+
+	private boolean isWatchedFile(String newFileName) {
+		int dotIndex = newFileName.lastIndexOf('.');
+		if (dotIndex == -1 || dotIndex < newFileName.lastIndexOf('/')) return false; // skip
+		String extension = newFileName.substring(dotIndex); //.toLowerCase();
+		List<String> exts = Config.configurationScanningExtensions;
+		if (exts.contains(extension)) return true;
+		return getResourcePath(newFileName) != null; // Unsupported extensions
+	}
+
+	// Return the path in RemoteCCConfig.extraResourceFiles for the given file
+	private static String getResourcePath(String newFileName) {
+		String[] extraFiles = RemoteCCConfig.extraResourceFiles;
+		if (extraFiles == null) return null;
+		for (String path : extraFiles) {
+			if (path != null && newFileName.equals(FileUtils.parseFilePath(path))) return path;
+		}
+		return null;
+	}
+
+	// Return the registered key prefix for the given file path prefix
+	private String getKeyPrefix(String filePrefix) {
+		if (keyPrefixClassMap.containsKey(filePrefix)) return filePrefix;
+		for (String keyPrefix : keyPrefixClassMap.keySet()) {
+			if (filePrefix.equals(FileUtils.parseFilePath(keyPrefix))) return keyPrefix;
+		}
+		return filePrefix;
+	}
+
+	/*
+	 * Wait for the next watch key, or until the earliest pending file is due.
+	 */
+	private WatchKey pollKey(WatchService watchService) throws InterruptedException {
+		if (pendingFiles.isEmpty()) return watchService.take();
+		long due = Long.MAX_VALUE;
+		for (long[] times : pendingFiles.values()) {
+			due = Math.min(due, getDueTime(times));
+		}
+		long wait = due - System.currentTimeMillis();
+		if (wait <= 0) return watchService.poll();
+		return watchService.poll(wait, TimeUnit.MILLISECONDS);
+	}
+
+	private static long getDueTime(long[] times) {
+		return Math.min(times[1] + LocalFSConfig.watcherQuietMillis, times[0] + LocalFSConfig.watcherMaxDelayMillis);
+	}
+
+	private void updatePendingFiles() {
+		long now = System.currentTimeMillis();
+		List<String> dueFiles = null;
+		for (Iterator<Map.Entry<String, long[]>> itr = pendingFiles.entrySet().iterator(); itr.hasNext();) {
+			Map.Entry<String, long[]> entry = itr.next();
+			if (getDueTime(entry.getValue()) > now) continue;
+			if (dueFiles == null) dueFiles = new ArrayList<String>();
+			dueFiles.add(entry.getKey());
+			itr.remove();
+		}
+		if (dueFiles == null) return;
+		for (String fileName : dueFiles) {
+			updateFile(fileName, false);
+		}
+	}
+
+	/*
+	 * Update configurations for the given changed file. Events of the file
+	 * are coalesced, so its current state is checked instead of event kinds.
+	 * If forced is true, the file is read even if its modified time is not changed.
+	 */
+	private void updateFile(String newFileName, boolean forced) {
+		boolean deleted = !new File(mainFolder, newFileName).exists();
+		String resourcePath = getResourcePath(newFileName);
+		if (resourcePath != null && !deleted) {
+			if (loadResourceFile(mainFolder, resourcePath) && Config.configurationLogging) {
+				System.out.println("[Config:INFO] Resource file " + newFileName + " updated.");
+			}
+		}
+		int dotIndex = newFileName.lastIndexOf('.');
+		String extension = newFileName.substring(dotIndex);
+		if (!Config.configurationScanningExtensions.contains(extension)) return;
+		String newKeyPrefix = getKeyPrefix(newFileName.substring(0, dotIndex));
+		if (resourcePath != null && !keyPrefixClassMap.containsKey(newKeyPrefix)
+				&& !newKeyPrefix.equals(mainKeyPrefix)) return; // resource file only
+		// To check if the current key prefix and the extension is the
+		// first available(or active) combination or not
+		// If not, print warning and continue
+		StringBuilder extBuilder = new StringBuilder();
+		File file = InternalConfigUtils.getConfigFile(newKeyPrefix, extBuilder);
+		//System.out.println(file);
+		if (!file.exists()) {
+			// deleted file may run into this branch
+			// Remove current file from fileLastUpdateds map
+			fileLastUpdateds.remove(newKeyPrefix + extension);
+			
+			// In this case, the given file is deleted, and no new configuration files are
+			// found, print warning, no need to update configurations.
+			System.out.println("[Config:WARN] After " + newFileName + " being deleted, no replacment configuration files are found!");
+			System.out.println("[Config:WARN] Application restarting may run with incorrect configurations!");
+			return;
+		}
+		// It should always be true for modified or created files here
+		String activeFileName = file.getName();
+		if (!deleted) {
+			if (!file.equals(new File(mainFolder, FileUtils.parseFilePath(newFileName)))) {
+				// inactive configuration file for the extension
+				System.out.println("[Config:WARN] The updated file " + newFileName + " is disabled for configurations. Current enabled file is " + activeFileName);
+				return;
+			} // else continue following logic codes
+		} else {
+			// As the file exists, so the current(DELETED) entry/file should be disabled
+			// and load the new existing file
+			
+			// Remove current file from fileLastUpdateds map
+			fileLastUpdateds.remove(newKeyPrefix + extension);
+			// Update extension with the enable file
+			extension = extBuilder.toString();
+		}
+		Class<?> clz = keyPrefixClassMap.get(newKeyPrefix);
+		//System.out.println("Yoho " + clz + " // " + newKeyPrefix + " xxx " + keyPrefixClassMap.size());
+		if (clz != null) {
+			String oldExtension = InternalConfigUtils.getConfigExtension(clz);
+			if (oldExtension != null && !oldExtension.equals(extension)) {
+				if (Config.configurationLogging) System.out.println("[Config:INFO] Configuration extension changed: switching from "
+						+ newKeyPrefix + oldExtension + " to " + newKeyPrefix + extension);
+			}
+			//Path fullPath = path.resolve(filePath);
+			updateSingleConfiguration(file, mainFolder, newKeyPrefix, extension, clz, forced);
+		} else if (newKeyPrefix.equals(mainKeyPrefix)) {
+			if (mainExtension != null && !mainExtension.equals(extension)) {
+				if (Config.configurationLogging) System.out.println("[Config:INFO] Configuration extension changed: switching from "
+						+ newKeyPrefix + mainExtension + " to " + newKeyPrefix + extension);
+			}
+			Config.updateConfigMainExtension(extension);
+			mainExtension = extension;
+			updateAllConfigurations(mainFolder, mainKeyPrefix, extension, forced);
+		} // else unknown files
+	}
 }
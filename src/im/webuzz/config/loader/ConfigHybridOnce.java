@@ -1,7 +1,6 @@
 package im.webuzz.config.loader;
 
 import java.io.File;
-import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -9,7 +8,8 @@ import java.util.List;
 import java.util.Map;
 
 import im.webuzz.config.Config;
-import im.webuzz.config.InternalConfigUtils;
+import im.webuzz.config.common.ConfigBindingPlan;
+import im.webuzz.config.common.ConfigBindingPlan.FieldBinding;
 import im.webuzz.config.generator.ConfigGenerator;
 import im.webuzz.config.generator.GeneratorKit;
 
@@ -45,6 +45,15 @@ public class ConfigHybridOnce extends ConfigWebOnce {
 		super.add(configClazz);
 	}
 
+	@Override
+	public void addAll(Class<?>[] configClazzes) {
+		if (!running) return;
+		fileOnce.addAll(configClazzes);
+		for (Class<?> clz : configClazzes) {
+			super.add(clz);
+		}
+	}
+
 	@Override
 	protected void fetchAllResourceFiles() {
 		// ConfigFileOnce does not load resources into ConfigMemoryFS, so ConfigWebOnce
@@ -66,8 +75,7 @@ public class ConfigHybridOnce extends ConfigWebOnce {
 	protected static void checkAndMergeFields(ConfigMemoryFile file, Map<String, Class<?>> keyPrefixClassMap) {
 		List<Field> localOnlyFields = new ArrayList<Field>();
 		List<Field> nextFields = new ArrayList<Field>(); // Following field
-		Map<Class<?>, Map<String, Annotation[]>> typeAnns = Config.configurationAnnotations;
-		List<Field> allFields = new ArrayList<Field>();
+		List<FieldBinding> allFields = new ArrayList<FieldBinding>();
 		List<Class<?>> allClasses = new ArrayList<Class<?>>();
 		Class<?> clz = keyPrefixClassMap.get(file.name);
 		boolean globalConfig = false;
@@ -83,21 +91,16 @@ public class ConfigHybridOnce extends ConfigWebOnce {
 				String keyPrefix = Config.getKeyPrefix(clazz);
 				if (keyPrefix != null && keyPrefix.length() > 0) continue;
 			}
-			Map<String, Annotation[]> fieldAnns = typeAnns == null ? null : typeAnns.get(clazz);
-			for (Field f : clazz.getDeclaredFields()) {
-				if (!InternalConfigUtils.isFiltered(f, fieldAnns, false, false)) {
-					allFields.add(f);
-				}
-			}
+			allFields.addAll(Arrays.asList(ConfigBindingPlan.forClass(clazz, false).fields));
 		}
 		int size = allFields.size();
 		for (int i = 0; i < size; i++) {
-			Field f = allFields.get(i);
-			Map<String, Annotation[]> fieldAnns = typeAnns == null ? null : typeAnns.get(f.getDeclaringClass());
-			if (InternalConfigUtils.isFiltered(f, fieldAnns, false, true)) {
-				localOnlyFields.add(f);
+			FieldBinding f = allFields.get(i);
+			// Fields filtered out for remote configurations are @ConfigLocalOnly fields
+			if (ConfigBindingPlan.forClass(f.field.getDeclaringClass(), true).getBinding(f.name) == null) {
+				localOnlyFields.add(f.field);
 				if (i != size - 1) {
-					nextFields.add(allFields.get(i + 1));
+					nextFields.add(allFields.get(i + 1).field);
 				} else {
 					nextFields.add(null);
 				}
@@ -33,6 +33,15 @@ public class ConfigHybridWatcher extends ConfigWebWatcher {
 		super.add(configClazz);
 	}
 
+	@Override
+	public void addAll(Class<?>[] configClazzes) {
+		if (!running) return;
+		fileWatcher.addAll(configClazzes);
+		for (Class<?> clz : configClazzes) {
+			super.add(clz);
+		}
+	}
+
 	@Override
 	protected void fetchAllResourceFiles() {
 		// ConfigFileOnce does not load resources into ConfigMemoryFS, so ConfigWebOnce
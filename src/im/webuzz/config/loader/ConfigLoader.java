@@ -6,4 +6,16 @@ public interface ConfigLoader {
 	public boolean start();
 	public void stop();
 	public void add(Class<?> configClazz);
+
+	/**
+	 * Add configuration classes registered in a batch, see Config#registerAll.
+	 * Loaders may look up, read and parse configuration files for all classes
+	 * in one round.
+	 * @param configClazzes
+	 */
+	public default void addAll(Class<?>[] configClazzes) {
+		for (Class<?> clz : configClazzes) {
+			add(clz);
+		}
+	}
 }
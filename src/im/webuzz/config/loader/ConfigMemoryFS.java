@@ -3,10 +3,17 @@ package im.webuzz.config.loader;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.function.Predicate;
 
 import im.webuzz.config.Config;
 import im.webuzz.config.InternalConfigUtils;
@@ -91,9 +98,13 @@ public class ConfigMemoryFS {
 			}
 		
 			if (defaultParser.parseConfiguration(Config.class, ConfigParser.FLAG_VALIDATE) == -1) return false;
-			for (Class<?> config : Config.getAllConfigurations()) {
-				if (defaultParser.parseConfiguration(config, ConfigParser.FLAG_VALIDATE) == -1) return false;
-			}
+			final ConfigParser<?, ?> parser = defaultParser;
+			if (!validateAll(Config.getAllConfigurations(), new Predicate<Class<?>>() {
+				@Override
+				public boolean test(Class<?> config) {
+					return parser.parseConfiguration(config, ConfigParser.FLAG_VALIDATE) != -1;
+				}
+			})) return false;
 			Set<String> unused = defaultParser.unusedConfigurationItems();
 			if (unused != null) {
 				String[] unusedKeys = unused.toArray(new String[unused.size()]);
@@ -103,50 +114,97 @@ public class ConfigMemoryFS {
 				}
 			}
 		}
-		for (Class<?> clz : Config.getAllConfigurations()) { // configuration classes may be updated already 
-			String keyPrefix = Config.getKeyPrefix(clz);
-			if (keyPrefix == null || keyPrefix.length() == 0) continue;
-			String extension = InternalConfigUtils.getConfigExtension(clz);
-			if (extension == null) {
-				System.out.println("[Config:WARN] No existing " + keyPrefix + ".* files for configuration class " + clz.getName() + "!");
-				continue;
-			}
-			/*
-			StringBuilder extBuilder = new StringBuilder();
-			file = Config.getConfigFile(keyPrefix, extBuilder);
-			if (!file.exists()) {
-				System.out.println("[Config:WARN] " + file.getAbsolutePath() + " does not exist! The configuration file is expected for class " + clz.getName());
-				continue;
+		return validateAll(Config.getAllConfigurations(), new Predicate<Class<?>>() { // configuration classes may be updated already
+			@Override
+			public boolean test(Class<?> clz) {
+				return validateKeyPrefixFile(clz, configFolder);
 			}
-			String extension = extBuilder.toString();
-			//*/
-			memFile = ConfigMemoryFS.checkAndPrepareFile(configFolder, keyPrefix, extension);
-			if (memFile.content == null) {
-				System.out.println("[Config:WARN] File " + configFolder + keyPrefix + extension + ", which isexpected for class " + clz.getName() + ", does not exist!");
-				continue;
+		});
+	}
+
+	/*
+	 * Validate given classes in order, or concurrently on the binding executor
+	 * of ConfigFileOnce if parallel binding is enabled. Return false if any
+	 * class is invalid.
+	 */
+	private static boolean validateAll(Class<?>[] configs, final Predicate<Class<?>> validator) {
+		if (!Config.configurationParallelBinding || configs.length <= 1) {
+			for (Class<?> clz : configs) {
+				if (!validator.test(clz)) return false;
 			}
-			//memFile.loadFromFile(file);
-			try {
-				ConfigParser<?, ?> parser = ConfigParserBuilder.prepareParser(extension, memFile.content, false);
-				if (parser == null) {
-					System.out.println("[Config:ERROR] No parser for configuration extension " + extension);
-					return false;
-				}
-				if (parser.parseConfiguration(clz, ConfigParser.FLAG_VALIDATE) == -1) return false;
-				Set<String> unused = parser.unusedConfigurationItems();
-				if (unused != null) {
-					String[] unusedKeys = unused.toArray(new String[unused.size()]);
-					Arrays.sort(unusedKeys);
-					for (String key : unusedKeys) {
-						System.out.println("[Config:WARN] Unused configuration item \"" + key + "\"");
-					}
+			return true;
+		}
+		Executor executor = ConfigFileOnce.getBindingExecutor();
+		List<FutureTask<Boolean>> tasks = new ArrayList<FutureTask<Boolean>>(configs.length);
+		for (final Class<?> clz : configs) {
+			FutureTask<Boolean> task = new FutureTask<Boolean>(new Callable<Boolean>() {
+				@Override
+				public Boolean call() throws Exception {
+					return validator.test(clz);
 				}
-			} catch (Throwable e) {
-				e.printStackTrace();
+			});
+			tasks.add(task);
+			executor.execute(task);
+		}
+		boolean valid = true;
+		for (FutureTask<Boolean> task : tasks) {
+			try {
+				if (!task.get().booleanValue()) valid = false;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
 				return false;
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+				if (cause instanceof Error) throw (Error) cause;
+				throw new RuntimeException(cause);
 			}
 		}
-	
+		return valid;
+	}
+
+	private static boolean validateKeyPrefixFile(Class<?> clz, String configFolder) {
+		String keyPrefix = Config.getKeyPrefix(clz);
+		if (keyPrefix == null || keyPrefix.length() == 0) return true;
+		String extension = InternalConfigUtils.getConfigExtension(clz);
+		if (extension == null) {
+			System.out.println("[Config:WARN] No existing " + keyPrefix + ".* files for configuration class " + clz.getName() + "!");
+			return true;
+		}
+		/*
+		StringBuilder extBuilder = new StringBuilder();
+		file = Config.getConfigFile(keyPrefix, extBuilder);
+		if (!file.exists()) {
+			System.out.println("[Config:WARN] " + file.getAbsolutePath() + " does not exist! The configuration file is expected for class " + clz.getName());
+			return true;
+		}
+		String extension = extBuilder.toString();
+		//*/
+		ConfigMemoryFile memFile = ConfigMemoryFS.checkAndPrepareFile(configFolder, keyPrefix, extension);
+		if (memFile.content == null) {
+			System.out.println("[Config:WARN] File " + configFolder + keyPrefix + extension + ", which isexpected for class " + clz.getName() + ", does not exist!");
+			return true;
+		}
+		//memFile.loadFromFile(file);
+		try {
+			ConfigParser<?, ?> parser = ConfigParserBuilder.prepareParser(extension, memFile.content, false);
+			if (parser == null) {
+				System.out.println("[Config:ERROR] No parser for configuration extension " + extension);
+				return false;
+			}
+			if (parser.parseConfiguration(clz, ConfigParser.FLAG_VALIDATE) == -1) return false;
+			Set<String> unused = parser.unusedConfigurationItems();
+			if (unused != null) {
+				String[] unusedKeys = unused.toArray(new String[unused.size()]);
+				Arrays.sort(unusedKeys);
+				for (String key : unusedKeys) {
+					System.out.println("[Config:WARN] Unused configuration item \"" + key + "\"");
+				}
+			}
+		} catch (Throwable e) {
+			e.printStackTrace();
+			return false;
+		}
 		return true;
 	}
 }
@@ -1,9 +1,11 @@
 package im.webuzz.config.loader;
 
 import java.io.File;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 import im.webuzz.config.common.FileUtils;
+import im.webuzz.config.parser.ConfigItemStore;
 
 public class ConfigMemoryFile {
 
@@ -20,11 +22,42 @@ public class ConfigMemoryFile {
 	
 	public String md5ETag;
 	
+	// Items which are already bound to configuration fields, for incremental updating
+	public ConfigItemStore boundItems;
+	// Digest of the content which is bound to configuration fields from local file system
+	public byte[] boundDigest;
+
+	// Content and its digest, published together as file may be checked by other threads
+	private static class ContentDigest {
+		final byte[] content;
+		final byte[] digest;
+
+		ContentDigest(byte[] content, byte[] digest) {
+			this.content = content;
+			this.digest = digest;
+		}
+	}
+
+	private volatile ContentDigest contentDigest;
+
 	public boolean localExisted; // Existed in local file system or not
 	public boolean remoteExisted; // Existed in remote configuration center or not
 	
 	// File f.exists() is true, while force saving is false
 	public void synchronizeWithLocal(File f, boolean forceSaving) {
+		synchronizeWithLocal(f, forceSaving, 0);
+	}
+
+	/**
+	 * Synchronize with the given local file. If the local file is not smaller than
+	 * the given threshold and will not be written back, it is memory mapped for
+	 * comparing, and copied into heap only if it is changed. Use it for large
+	 * resource files which are never rewritten in place only.
+	 * @param f
+	 * @param forceSaving
+	 * @param mappingThreshold, 0 to always read the file into heap
+	 */
+	public void synchronizeWithLocal(File f, boolean forceSaving, long mappingThreshold) {
 		if (forceSaving && !f.exists()) {
 			if (FileUtils.writeFileBytes(f, content, modified)) {
 				// saved to local file system
@@ -33,16 +66,31 @@ public class ConfigMemoryFile {
 			return;
 		}
 		localExisted = true;
-		byte[] bytes = FileUtils.readFileBytes(f);
 		long lastModified = f.lastModified();
-		if (Arrays.equals(bytes, content)) {
-			if (modified > lastModified) f.setLastModified(modified);
-			return;
+		byte[] bytes = null;
+		boolean read = false;
+		// Mapped files are locked on Windows, do not map the file if it may be written back
+		if (mappingThreshold > 0 && modified <= lastModified) {
+			ByteBuffer buffer = FileUtils.readFileBuffer(f, mappingThreshold);
+			try {
+				if (isSameContent(buffer)) return;
+				bytes = buffer != null ? FileUtils.toBytes(buffer) : null;
+				read = true;
+			} catch (InternalError e) {
+				// Mapped file is truncated by others while being read, read it into heap instead
+			}
 		}
-		if (modified > lastModified) {
-			// The file in memory is the latest copy, save the content to local file system
-			FileUtils.writeFileBytes(f, content, modified);
-			return;
+		if (!read) {
+			bytes = FileUtils.readFileBytes(f);
+			if (Arrays.equals(bytes, content)) {
+				if (modified > lastModified) f.setLastModified(modified);
+				return;
+			}
+			if (modified > lastModified) {
+				// The file in memory is the latest copy, save the content to local file system
+				FileUtils.writeFileBytes(f, content, modified);
+				return;
+			}
 		}
 		modified = lastModified;
 		md5ETag = null;
@@ -54,6 +102,27 @@ public class ConfigMemoryFile {
 		}
 	}
 	
+	/**
+	 * Return SHA-256 digest of the content, it is cached until the content is changed.
+	 */
+	public byte[] getContentDigest() {
+		byte[] bytes = content;
+		if (bytes == null) return null;
+		ContentDigest cached = contentDigest;
+		if (cached == null || cached.content != bytes) {
+			cached = new ContentDigest(bytes, FileUtils.digest(bytes));
+			contentDigest = cached;
+		}
+		return cached.digest;
+	}
+
+	// Compare the mapped file with the content in memory, without copying it into heap
+	private boolean isSameContent(ByteBuffer buffer) {
+		if (buffer == null || content == null) return buffer == null && content == null;
+		if (buffer.remaining() != content.length) return false;
+		return buffer.equals(ByteBuffer.wrap(content));
+	}
+
 	public void synchronizeWithRemote(byte[] responseBytes, long lastModified) {
 		if (responseBytes == null) return;
 		if (lastModified <= 0) lastModified = System.currentTimeMillis();
@@ -0,0 +1,744 @@
+package im.webuzz.config.loader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import im.webuzz.config.Config;
+import im.webuzz.config.InternalConfigUtils;
+import im.webuzz.config.common.ConfigBindingPlan;
+import im.webuzz.config.common.ConfigBindingPlan.FieldBinding;
+import im.webuzz.config.common.FileUtils;
+import im.webuzz.config.parser.ConfigINIParser;
+import im.webuzz.config.parser.ConfigIncrementalParser;
+import im.webuzz.config.parser.ConfigItemStore;
+import im.webuzz.config.parser.ConfigParser;
+import im.webuzz.config.parser.ConfigParserBuilder;
+
+/**
+ * Compiled binary snapshot of the configuration folder, for fast cold start.
+ *
+ * Snapshot is compiled by --run:snapshot from the fields bound at that time,
+ * and is bound by ConfigSnapshotOnce without parsing any configuration files.
+ * Format, in big endian:
+ * header: magic "SCFG", version
+ * strings: count, (length, UTF-8 bytes)... all names and string values are
+ * indexes of this table
+ * sources: count, (key prefix, extension, length, SHA-256)... main file first
+ * classes: count, (class name, key prefix, extension, field count,
+ * (field name, typed value)..., item count, (key, value)...)...
+ *
+ * Primitives are stored raw and collections are stored with their element
+ * type. Values which can not be stored, values encoded by codecs and fields of
+ * classes with update(Properties) callback are kept as configuration items,
+ * which are bound by ConfigINIParser.
+ */
+public class ConfigSnapshot {
+
+	static final int MAGIC = 0x53434647; // "SCFG"
+	static final int VERSION = 1;
+
+	private static final byte TAG_NULL = 0;
+	private static final byte TAG_BOOLEAN = 1;
+	private static final byte TAG_BYTE = 2;
+	private static final byte TAG_SHORT = 3;
+	private static final byte TAG_INT = 4;
+	private static final byte TAG_LONG = 5;
+	private static final byte TAG_FLOAT = 6;
+	private static final byte TAG_DOUBLE = 7;
+	private static final byte TAG_CHAR = 8;
+	private static final byte TAG_STRING = 9;
+	private static final byte TAG_ENUM = 10;
+	private static final byte TAG_CLASS = 11;
+	private static final byte TAG_BIG_INTEGER = 12;
+	private static final byte TAG_BIG_DECIMAL = 13;
+	private static final byte TAG_ARRAY = 14;
+	private static final byte TAG_LIST = 15;
+	private static final byte TAG_SET = 16;
+	private static final byte TAG_MAP = 17;
+	private static final byte TAG_OBJECT = 18;
+
+	private static final int MAX_DEPTH = 32;
+
+	private static final Map<String, Class<?>> primitiveTypes = new HashMap<String, Class<?>>();
+
+	static {
+		for (Class<?> type : new Class<?>[] { boolean.class, byte.class, short.class, int.class,
+				long.class, float.class, double.class, char.class }) {
+			primitiveTypes.put(type.getName(), type);
+		}
+	}
+
+	// Value can not be stored in the snapshot, keep it as configuration items
+	private static class UnsupportedException extends Exception {
+
+		private static final long serialVersionUID = -2718355196305742151L;
+
+		UnsupportedException(String message) {
+			super(message);
+		}
+
+	}
+
+	private static class SourceEntry {
+		String keyPrefix; // main file name for the main file
+		String extension; // null if the file does not exist
+		long length;
+		byte[] digest;
+	}
+
+	private static class ClassEntry {
+		String keyPrefix;
+		String extension;
+		FieldBinding[] fields;
+		Object[] values;
+		ConfigItemStore items; // null if there are no items
+	}
+
+	private List<SourceEntry> sources;
+	private Map<Class<?>, ClassEntry> classes;
+
+	private ConfigSnapshot() {
+		super();
+	}
+
+	/**
+	 * Compile the current configurations into a snapshot file.
+	 * @param args
+	 * @param indexOffset, args[indexOffset] is the optional snapshot file path
+	 */
+	public static void run(String[] args, int indexOffset) {
+		String path = args != null && args.length > indexOffset ? args[indexOffset] : null;
+		File file = path != null && path.length() > 0 ? new File(path)
+				: new File(Config.getConfigFolder(), FileUtils.parseFilePath(LocalFSConfig.snapshotFileName));
+		try {
+			byte[] bytes = compile();
+			if (FileUtils.writeFileBytes(file, bytes, -1)) {
+				System.out.println("[Config:INFO] Configuration snapshot " + file.getAbsolutePath() + " compiled, size=" + bytes.length + ".");
+			}
+		} catch (Exception e) {
+			System.out.println("[Config:ERROR] Failed to compile configuration snapshot!");
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Compile the current configurations of all registered classes.
+	 * @return snapshot bytes
+	 * @throws IOException
+	 */
+	public static byte[] compile() throws IOException {
+		String folder = Config.getConfigFolder();
+		String mainName = Config.getConfigMainName();
+		String mainExt = Config.getConfigMainExtension();
+		Writer writer = new Writer();
+		ByteArrayOutputStream sourceBytes = new ByteArrayOutputStream();
+		DataOutputStream sourceOut = new DataOutputStream(sourceBytes);
+		ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+		DataOutputStream classOut = new DataOutputStream(classBytes);
+
+		File mainFile = new File(folder + mainName + mainExt);
+		byte[] mainContent = mainFile.exists() ? FileUtils.readFileBytes(mainFile) : null;
+		writer.writeSource(sourceOut, mainName, mainContent != null ? mainExt : null, mainContent);
+		ConfigItemStore mainItems = loadItems(mainContent, mainExt, true);
+		int sourceCount = 1;
+
+		Set<Class<?>> configs = new LinkedHashSet<Class<?>>();
+		configs.add(Config.class);
+		configs.addAll(Arrays.asList(Config.getAllConfigurations()));
+		for (Class<?> clz : configs) {
+			String keyPrefix = Config.getKeyPrefix(clz);
+			String extension = keyPrefix == null ? mainExt : null;
+			ConfigItemStore classItems = null;
+			if (keyPrefix != null) {
+				StringBuilder extBuilder = new StringBuilder();
+				File file = InternalConfigUtils.getConfigFile(folder, keyPrefix, extBuilder);
+				byte[] content = file.exists() ? FileUtils.readFileBytes(file) : null;
+				if (content != null) extension = extBuilder.toString();
+				writer.writeSource(sourceOut, keyPrefix, extension, content);
+				sourceCount++;
+				classItems = loadItems(content, extension, false);
+			}
+			writer.writeClass(classOut, clz, keyPrefix, extension, mainItems, classItems);
+		}
+
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(baos);
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(writer.strings.size());
+		for (String s : writer.strings.keySet()) {
+			byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+		out.writeInt(sourceCount);
+		sourceBytes.writeTo(out);
+		out.writeInt(configs.size());
+		classBytes.writeTo(out);
+		out.flush();
+		return baos.toByteArray();
+	}
+
+	private static ConfigItemStore loadItems(byte[] content, String extension, boolean combined) throws IOException {
+		if (content == null) return null;
+		ConfigParser<?, ?> parser = null;
+		try {
+			parser = ConfigParserBuilder.prepareParser(extension, content, combined);
+		} catch (Exception e) {
+			throw new IOException("Failed to parse " + extension + " file: " + e.getMessage(), e);
+		}
+		if (!(parser instanceof ConfigIncrementalParser)) {
+			throw new IOException("Configuration items of " + extension + " files are not supported!");
+		}
+		ConfigItemStore items = ((ConfigIncrementalParser) parser).getItems();
+		return items != null ? items : ConfigItemStore.EMPTY;
+	}
+
+	private static byte simpleTag(Class<?> type) {
+		if (type == String.class) return TAG_STRING;
+		if (type == Integer.class || type == int.class) return TAG_INT;
+		if (type == Long.class || type == long.class) return TAG_LONG;
+		if (type == Boolean.class || type == boolean.class) return TAG_BOOLEAN;
+		if (type == Double.class || type == double.class) return TAG_DOUBLE;
+		if (type == Float.class || type == float.class) return TAG_FLOAT;
+		if (type == Short.class || type == short.class) return TAG_SHORT;
+		if (type == Byte.class || type == byte.class) return TAG_BYTE;
+		if (type == Character.class || type == char.class) return TAG_CHAR;
+		return TAG_NULL;
+	}
+
+	private static Class<?> loadClass(String name) throws ClassNotFoundException {
+		Class<?> type = primitiveTypes.get(name);
+		if (type != null) return type;
+		ClassLoader loader = Config.getConfigurationClassLoader();
+		if (loader == null) loader = ConfigSnapshot.class.getClassLoader();
+		return Class.forName(name, true, loader);
+	}
+
+	private static boolean hasUpdateCallback(Class<?> clz) {
+		try {
+			Method method = clz.getMethod("update", Properties.class);
+			return (method.getModifiers() & Modifier.STATIC) != 0;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	// Codec encoded values, e.g. [secret:###], are decoded on binding
+	private static boolean isEncoded(String value) {
+		if (value == null || value.indexOf('[') == -1) return false;
+		Map<String, ?> codecs = Config.configurationCodecs;
+		if (codecs == null) return false;
+		for (String codecKey : codecs.keySet()) {
+			if (value.indexOf("[" + codecKey + ":") != -1 || value.indexOf("[" + codecKey + "]") != -1) return true;
+		}
+		return false;
+	}
+
+	private static class Writer {
+
+		final Map<String, Integer> strings = new LinkedHashMap<String, Integer>();
+
+		int index(String s) {
+			if (s == null) return -1;
+			Integer idx = strings.get(s);
+			if (idx == null) {
+				idx = strings.size();
+				strings.put(s, idx);
+			}
+			return idx.intValue();
+		}
+
+		void writeSource(DataOutputStream out, String keyPrefix, String extension, byte[] content) throws IOException {
+			out.writeInt(index(keyPrefix));
+			out.writeInt(index(content != null ? extension : null));
+			if (content == null) return;
+			out.writeLong(content.length);
+			out.write(FileUtils.digest(content));
+		}
+
+		void writeClass(DataOutputStream out, Class<?> clz, String keyPrefix, String extension,
+				ConfigItemStore mainItems, ConfigItemStore classItems) throws IOException {
+			ConfigBindingPlan plan = ConfigBindingPlan.forClass(clz, false);
+			boolean callback = hasUpdateCallback(clz);
+			ByteArrayOutputStream fieldBytes = new ByteArrayOutputStream();
+			DataOutputStream fieldOut = new DataOutputStream(fieldBytes);
+			int fieldCount = 0;
+			ConfigItemStore.Builder residual = ConfigItemStore.EMPTY.toBuilder();
+			int itemCount = 0;
+			for (FieldBinding f : plan.fields) {
+				// Items in the class' own file are bound after items in the main file
+				ConfigItemStore source = null;
+				String key = f.name;
+				if (classItems != null && classItems.get(key) != null) {
+					source = classItems;
+				} else if (mainItems != null) {
+					key = plan.keyPrefix != null ? f.prefixedName : f.name;
+					if (mainItems.get(key) != null) source = mainItems;
+				}
+				if (source == null) continue; // field is not configured, keep its default value
+				String[] suffixes = source.getKeyIndex().getDescendants(key + ".");
+				boolean encoded = isEncoded(source.get(key));
+				for (int i = 0; i < suffixes.length && !encoded; i++) {
+					encoded = isEncoded(source.get(key + "." + suffixes[i]));
+				}
+				if (!callback && !encoded && f.preferredCodecs.length == 0) {
+					ByteArrayOutputStream valueBytes = new ByteArrayOutputStream();
+					try {
+						writeValue(new DataOutputStream(valueBytes), f.accessor.get(null), 0);
+						fieldOut.writeInt(index(f.name));
+						valueBytes.writeTo(fieldOut);
+						fieldCount++;
+						continue;
+					} catch (UnsupportedException e) {
+						if (Config.configurationLogging) {
+							System.out.println("[Config:INFO] Configuration " + clz.getName() + "#" + f.name
+									+ " is kept as items in snapshot: " + e.getMessage());
+						}
+					} catch (IllegalAccessException e) {
+						throw new IOException(e);
+					}
+				}
+				residual.put(f.name, source.get(key));
+				itemCount++;
+				for (String suffix : suffixes) {
+					residual.put(f.name + "." + suffix, source.get(key + "." + suffix));
+					itemCount++;
+				}
+			}
+			out.writeInt(index(clz.getName()));
+			out.writeInt(index(keyPrefix));
+			out.writeInt(index(extension));
+			out.writeInt(fieldCount);
+			fieldBytes.writeTo(out);
+			out.writeInt(itemCount);
+			if (itemCount == 0) return;
+			ConfigItemStore items = residual.build();
+			for (String k : items.getKeyIndex().keys()) {
+				out.writeInt(index(k));
+				out.writeInt(index(items.get(k)));
+			}
+		}
+
+		void writeValue(DataOutputStream out, Object v, int depth) throws IOException, UnsupportedException, IllegalAccessException {
+			if (depth > MAX_DEPTH) throw new UnsupportedException("too deep");
+			if (v == null) {
+				out.writeByte(TAG_NULL);
+				return;
+			}
+			Class<?> type = v.getClass();
+			byte tag = simpleTag(type);
+			if (tag != TAG_NULL) {
+				out.writeByte(tag);
+				writeRaw(out, tag, v);
+			} else if (v instanceof Enum) {
+				out.writeByte(TAG_ENUM);
+				out.writeInt(index(((Enum<?>) v).getDeclaringClass().getName()));
+				out.writeInt(index(((Enum<?>) v).name()));
+			} else if (v instanceof Class) {
+				out.writeByte(TAG_CLASS);
+				out.writeInt(index(((Class<?>) v).getName()));
+			} else if (type == BigInteger.class || type == BigDecimal.class) {
+				out.writeByte(type == BigInteger.class ? TAG_BIG_INTEGER : TAG_BIG_DECIMAL);
+				out.writeInt(index(v.toString()));
+			} else if (type.isArray()) {
+				Class<?> compType = type.getComponentType();
+				int length = Array.getLength(v);
+				out.writeByte(TAG_ARRAY);
+				out.writeInt(index(compType.getName()));
+				out.writeInt(length);
+				if (compType.isPrimitive()) {
+					tag = simpleTag(compType);
+					for (int i = 0; i < length; i++) {
+						writeRaw(out, tag, Array.get(v, i));
+					}
+				} else {
+					writeElements(out, Arrays.asList((Object[]) v), depth);
+				}
+			} else if (v instanceof List || v instanceof Set) {
+				Collection<?> c = (Collection<?>) v;
+				out.writeByte(v instanceof List ? TAG_LIST : TAG_SET);
+				writeContainerType(out, type);
+				out.writeInt(c.size());
+				writeElements(out, c, depth);
+			} else if (v instanceof Map) {
+				Map<?, ?> m = (Map<?, ?>) v;
+				out.writeByte(TAG_MAP);
+				writeContainerType(out, type);
+				out.writeInt(m.size());
+				for (Map.Entry<?, ?> entry : m.entrySet()) {
+					writeValue(out, entry.getKey(), depth + 1);
+					writeValue(out, entry.getValue(), depth + 1);
+				}
+			} else {
+				String name = type.getName();
+				if (Proxy.isProxyClass(type) || name.startsWith("java.") || name.startsWith("javax.")
+						|| !Modifier.isPublic(type.getModifiers()) || !hasDefaultConstructor(type)) {
+					throw new UnsupportedException("type " + name + " is not supported");
+				}
+				FieldBinding[] fields = ConfigBindingPlan.forObject(type, false).fields;
+				out.writeByte(TAG_OBJECT);
+				out.writeInt(index(name));
+				out.writeInt(fields.length);
+				for (FieldBinding f : fields) {
+					out.writeInt(index(f.name));
+					writeValue(out, f.accessor.get(v), depth + 1);
+				}
+			}
+		}
+
+		void writeRaw(DataOutputStream out, byte tag, Object v) throws IOException {
+			switch (tag) {
+			case TAG_BOOLEAN: out.writeBoolean(((Boolean) v).booleanValue()); break;
+			case TAG_BYTE: out.writeByte(((Byte) v).byteValue()); break;
+			case TAG_SHORT: out.writeShort(((Short) v).shortValue()); break;
+			case TAG_INT: out.writeInt(((Integer) v).intValue()); break;
+			case TAG_LONG: out.writeLong(((Long) v).longValue()); break;
+			case TAG_FLOAT: out.writeFloat(((Float) v).floatValue()); break;
+			case TAG_DOUBLE: out.writeDouble(((Double) v).doubleValue()); break;
+			case TAG_CHAR: out.writeChar(((Character) v).charValue()); break;
+			default: out.writeInt(index((String) v)); break;
+			}
+		}
+
+		// Elements of the same simple type are stored raw after the element type
+		void writeElements(DataOutputStream out, Collection<?> values, int depth) throws IOException, UnsupportedException, IllegalAccessException {
+			Class<?> type = null;
+			for (Object v : values) {
+				if (v == null || (type != null && type != v.getClass())) {
+					type = null;
+					break;
+				}
+				type = v.getClass();
+			}
+			byte tag = type == null ? TAG_NULL : simpleTag(type);
+			out.writeByte(tag);
+			for (Object v : values) {
+				if (tag != TAG_NULL) {
+					writeRaw(out, tag, v);
+				} else {
+					writeValue(out, v, depth + 1);
+				}
+			}
+		}
+
+		void writeContainerType(DataOutputStream out, Class<?> type) throws IOException, UnsupportedException {
+			if (type.getName().startsWith("java.util.Collections$Unmodifiable")) {
+				// Read only view, see ConfigINIParser#parseAndUpdateField
+				out.writeInt(-1);
+				return;
+			}
+			if (!Modifier.isPublic(type.getModifiers()) || !hasDefaultConstructor(type)) {
+				throw new UnsupportedException("type " + type.getName() + " is not supported");
+			}
+			out.writeInt(index(type.getName()));
+		}
+
+		private static boolean hasDefaultConstructor(Class<?> type) {
+			try {
+				type.getConstructor();
+				return true;
+			} catch (NoSuchMethodException e) {
+				return false;
+			}
+		}
+
+	}
+
+	/**
+	 * Load the snapshot file. All values are decoded, and all classes and
+	 * fields are resolved.
+	 * @param file
+	 * @return null if the snapshot is invalid or can not be resolved.
+	 */
+	public static ConfigSnapshot load(File file) {
+		byte[] bytes = FileUtils.readFileBytes(file);
+		if (bytes == null) return null;
+		try {
+			return new Reader(bytes).read();
+		} catch (Exception e) {
+			if (Config.configurationLogging) {
+				System.out.println("[Config:WARN] Configuration snapshot " + file.getAbsolutePath() + " can not be loaded: " + e);
+			}
+			return null;
+		}
+	}
+
+	private static class Reader {
+
+		final DataInputStream in;
+		String[] strings;
+
+		Reader(byte[] bytes) {
+			in = new DataInputStream(new ByteArrayInputStream(bytes));
+		}
+
+		ConfigSnapshot read() throws IOException, ReflectiveOperationException {
+			if (in.readInt() != MAGIC) throw new IOException("Not a configuration snapshot");
+			int version = in.readInt();
+			if (version != VERSION) throw new IOException("Unsupported version " + version);
+			strings = new String[readSize()];
+			for (int i = 0; i < strings.length; i++) {
+				byte[] bytes = new byte[readSize()];
+				in.readFully(bytes);
+				strings[i] = new String(bytes, StandardCharsets.UTF_8);
+			}
+			ConfigSnapshot snapshot = new ConfigSnapshot();
+			int count = readSize();
+			snapshot.sources = new ArrayList<SourceEntry>(count);
+			for (int i = 0; i < count; i++) {
+				SourceEntry source = new SourceEntry();
+				source.keyPrefix = readString();
+				source.extension = readString();
+				if (source.extension != null) {
+					source.length = in.readLong();
+					source.digest = new byte[32];
+					in.readFully(source.digest);
+				}
+				snapshot.sources.add(source);
+			}
+			count = readSize();
+			snapshot.classes = new HashMap<Class<?>, ClassEntry>(count);
+			for (int i = 0; i < count; i++) {
+				Class<?> clz = loadClass(readString());
+				ClassEntry entry = new ClassEntry();
+				entry.keyPrefix = readString();
+				entry.extension = readString();
+				ConfigBindingPlan plan = ConfigBindingPlan.forClass(clz, false);
+				int fieldCount = readSize();
+				entry.fields = new FieldBinding[fieldCount];
+				entry.values = new Object[fieldCount];
+				for (int j = 0; j < fieldCount; j++) {
+					String name = readString();
+					FieldBinding f = plan.getBinding(name);
+					if (f == null) throw new IOException("Unknown field " + clz.getName() + "#" + name);
+					Object value = readValue(0);
+					Class<?> type = f.type;
+					if (type.isPrimitive() ? value == null || simpleTag(value.getClass()) != simpleTag(type)
+							: value != null && !type.isInstance(value)) {
+						throw new IOException("Mismatched value for " + clz.getName() + "#" + name);
+					}
+					entry.fields[j] = f;
+					entry.values[j] = value;
+				}
+				int itemCount = readSize();
+				if (itemCount > 0) {
+					ConfigItemStore.Builder builder = ConfigItemStore.EMPTY.toBuilder();
+					for (int j = 0; j < itemCount; j++) {
+						builder.put(readString(), readString());
+					}
+					entry.items = builder.build();
+				}
+				snapshot.classes.put(clz, entry);
+			}
+			return snapshot;
+		}
+
+		// Size of entries, each entry takes at least one byte
+		int readSize() throws IOException {
+			int size = in.readInt();
+			if (size < 0 || size > in.available()) throw new IOException("Invalid size " + size);
+			return size;
+		}
+
+		String readString() throws IOException {
+			int idx = in.readInt();
+			if (idx == -1) return null;
+			if (idx < 0 || idx >= strings.length) throw new IOException("Invalid string index " + idx);
+			return strings[idx];
+		}
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		Object readValue(int depth) throws IOException, ReflectiveOperationException {
+			if (depth > MAX_DEPTH) throw new IOException("Too deep value");
+			byte tag = in.readByte();
+			switch (tag) {
+			case TAG_NULL:
+				return null;
+			case TAG_ENUM:
+				Class<?> enumType = loadClass(readString());
+				return Enum.valueOf((Class) enumType.asSubclass(Enum.class), readString());
+			case TAG_CLASS:
+				return loadClass(readString());
+			case TAG_BIG_INTEGER:
+				return new BigInteger(readString());
+			case TAG_BIG_DECIMAL:
+				return new BigDecimal(readString());
+			case TAG_ARRAY: {
+				Class<?> compType = loadClass(readString());
+				int length = readSize();
+				Object value = Array.newInstance(compType, length);
+				if (compType.isPrimitive()) {
+					byte compTag = simpleTag(compType);
+					for (int i = 0; i < length; i++) {
+						Array.set(value, i, readRaw(compTag));
+					}
+				} else {
+					List<Object> elements = new ArrayList<Object>(length);
+					readElements(elements, length, depth);
+					for (int i = 0; i < length; i++) {
+						Array.set(value, i, elements.get(i));
+					}
+				}
+				return value;
+			}
+			case TAG_LIST:
+			case TAG_SET: {
+				String typeName = readString();
+				int size = readSize();
+				Collection<Object> value;
+				if (typeName == null) {
+					value = tag == TAG_LIST ? new ArrayList<Object>(size) : new LinkedHashSet<Object>();
+				} else {
+					value = (Collection<Object>) loadClass(typeName).newInstance();
+				}
+				readElements(value, size, depth);
+				if (typeName != null) return value;
+				return tag == TAG_LIST ? Collections.unmodifiableList((List<Object>) value)
+						: Collections.unmodifiableSet((Set<Object>) value);
+			}
+			case TAG_MAP: {
+				String typeName = readString();
+				int size = readSize();
+				Map<Object, Object> value = typeName == null ? new LinkedHashMap<Object, Object>()
+						: (Map<Object, Object>) loadClass(typeName).newInstance();
+				for (int i = 0; i < size; i++) {
+					Object key = readValue(depth + 1);
+					value.put(key, readValue(depth + 1));
+				}
+				return typeName == null ? Collections.unmodifiableMap(value) : value;
+			}
+			case TAG_OBJECT: {
+				Class<?> type = loadClass(readString());
+				ConfigBindingPlan plan = ConfigBindingPlan.forObject(type, false);
+				Object value = type.newInstance();
+				int count = readSize();
+				for (int i = 0; i < count; i++) {
+					String name = readString();
+					FieldBinding f = plan.getBinding(name);
+					if (f == null) throw new IOException("Unknown field " + type.getName() + "#" + name);
+					f.accessor.set(value, readValue(depth + 1));
+				}
+				return value;
+			}
+			default:
+				return readRaw(tag);
+			}
+		}
+
+		Object readRaw(byte tag) throws IOException {
+			switch (tag) {
+			case TAG_BOOLEAN: return in.readBoolean();
+			case TAG_BYTE: return in.readByte();
+			case TAG_SHORT: return in.readShort();
+			case TAG_INT: return in.readInt();
+			case TAG_LONG: return in.readLong();
+			case TAG_FLOAT: return in.readFloat();
+			case TAG_DOUBLE: return in.readDouble();
+			case TAG_CHAR: return in.readChar();
+			case TAG_STRING: return readString();
+			default: throw new IOException("Unknown value tag " + tag);
+			}
+		}
+
+		void readElements(Collection<Object> values, int size, int depth) throws IOException, ReflectiveOperationException {
+			byte tag = in.readByte();
+			for (int i = 0; i < size; i++) {
+				values.add(tag != TAG_NULL ? readRaw(tag) : readValue(depth + 1));
+			}
+		}
+
+	}
+
+	/**
+	 * Check the main file against its length and digest in the snapshot.
+	 * @param folder
+	 * @return false if the main file is changed
+	 */
+	public boolean checkMainSource(String folder) {
+		SourceEntry main = sources.get(0);
+		String mainExt = Config.getConfigMainExtension();
+		if (!main.keyPrefix.equals(Config.getConfigMainName())
+				|| (main.extension != null && !main.extension.equals(mainExt))) {
+			return false;
+		}
+		return checkSource(main, new File(folder + main.keyPrefix + mainExt), mainExt);
+	}
+
+	/**
+	 * Check all key prefix files against their lengths and digests in the snapshot.
+	 * New files of recorded key prefixes are considered as changes.
+	 * @param folder
+	 * @return false if any file is changed
+	 */
+	public boolean checkSources(String folder) {
+		for (int i = 1; i < sources.size(); i++) {
+			SourceEntry source = sources.get(i);
+			StringBuilder extBuilder = new StringBuilder();
+			File file = InternalConfigUtils.getConfigFile(folder, source.keyPrefix, extBuilder);
+			if (!checkSource(source, file, extBuilder.toString())) return false;
+		}
+		return true;
+	}
+
+	private static boolean checkSource(SourceEntry source, File file, String extension) {
+		if (!file.exists()) return source.extension == null;
+		if (source.extension == null || !source.extension.equals(extension)
+				|| file.length() != source.length) {
+			return false;
+		}
+		byte[] content = FileUtils.readFileBytes(file);
+		return content != null && MessageDigest.isEqual(FileUtils.digest(content), source.digest);
+	}
+
+	/**
+	 * Bind the snapshot values to the given class' fields.
+	 * @param clz
+	 * @return false if the class is not in the snapshot, or its key prefix is changed.
+	 */
+	public boolean bind(Class<?> clz) {
+		ClassEntry entry = classes.get(clz);
+		if (entry == null) return false;
+		String keyPrefix = Config.getKeyPrefix(clz);
+		if (keyPrefix == null ? entry.keyPrefix != null : !keyPrefix.equals(entry.keyPrefix)) return false;
+		try {
+			for (int i = 0; i < entry.fields.length; i++) {
+				entry.fields[i].accessor.set(null, entry.values[i]);
+			}
+			if (entry.items != null) {
+				ConfigINIParser parser = new ConfigINIParser();
+				parser.loadResource(entry.items, false);
+				if (parser.parseConfiguration(clz, ConfigParser.FLAG_UPDATE) == -1) return false;
+			}
+		} catch (Throwable e) {
+			e.printStackTrace();
+			return false;
+		}
+		if (entry.extension != null) InternalConfigUtils.recordConfigExtension(clz, entry.extension);
+		return true;
+	}
+
+}
@@ -0,0 +1,95 @@
+package im.webuzz.config.loader;
+
+import java.io.File;
+
+import im.webuzz.config.Config;
+import im.webuzz.config.InternalConfigUtils;
+import im.webuzz.config.common.FileUtils;
+
+/**
+ * Load configurations from the snapshot compiled by --run:snapshot once,
+ * without parsing configuration files.
+ *
+ * If the snapshot is missing or stale, e.g. any configuration file is changed
+ * after compiling, or a class is not compiled into the snapshot, configuration
+ * files are loaded as ConfigFileOnce does.
+ */
+public class ConfigSnapshotOnce extends ConfigFileOnce {
+
+	private ConfigSnapshot snapshot = null;
+
+	@Override
+	public boolean start() {
+		if (running) return false;
+		long before = System.currentTimeMillis();
+		String folder = Config.getConfigFolder();
+		File file = new File(folder, FileUtils.parseFilePath(LocalFSConfig.snapshotFileName));
+		if (file.exists()) {
+			ConfigSnapshot s = ConfigSnapshot.load(file);
+			if (s != null && bindAll(s, folder)) {
+				snapshot = s;
+				running = true;
+				if (Config.configurationLogging) {
+					System.out.println("[Config:INFO] Configuration snapshot " + file.getAbsolutePath() + " loaded, cost=" + (System.currentTimeMillis() - before) + "ms.");
+				}
+				return running;
+			}
+			if (Config.configurationLogging) {
+				System.out.println("[Config:INFO] Configuration snapshot " + file.getAbsolutePath() + " is stale, loading configuration files.");
+			}
+		}
+		return super.start();
+	}
+
+	private boolean bindAll(ConfigSnapshot s, String folder) {
+		if (!s.checkMainSource(folder)) return false;
+		Class<?> oldLoader = Config.configurationLoader; // old loader should be this class
+		if (!s.bind(Config.class)) return false;
+		if (oldLoader != Config.configurationLoader) { // loader changed!
+			InternalConfigUtils.checkStrategyLoader();
+		}
+		// Key prefixes and scanning extensions may be changed by Config
+		if (!s.checkSources(folder)) return false;
+		for (Class<?> clz : Config.getAllConfigurations()) {
+			if (!s.bind(clz)) return false;
+		}
+		return true;
+	}
+
+	@Override
+	public void add(Class<?> configClazz) {
+		if (!running) return; // Not started yet
+		ConfigSnapshot s = snapshot;
+		if (s == null) {
+			super.add(configClazz);
+			return;
+		}
+		if (!s.bind(configClazz)) switchToFiles(configClazz);
+	}
+
+	@Override
+	public void addAll(Class<?>[] configClazzes) {
+		if (!running) return; // Not started yet
+		ConfigSnapshot s = snapshot;
+		if (s == null) {
+			super.addAll(configClazzes);
+			return;
+		}
+		for (Class<?> clz : configClazzes) {
+			if (!s.bind(clz)) {
+				switchToFiles(clz); // all classes are loaded from files
+				return;
+			}
+		}
+	}
+
+	// Class is not in the snapshot, switch to configuration files
+	private void switchToFiles(Class<?> configClazz) {
+		snapshot = null;
+		if (Config.configurationLogging) {
+			System.out.println("[Config:INFO] Configuration " + configClazz.getName() + " is not in snapshot, loading configuration files.");
+		}
+		updateAllConfigurations(Config.getConfigFolder(), Config.getConfigMainName(), Config.getConfigMainExtension());
+	}
+
+}
@@ -360,6 +360,8 @@ public class ConfigWebOnce implements ConfigLoader {
 				}
 				ConfigParser<?, ?> parser = ConfigParserBuilder.prepareParser(webFile.extension, webFile.content, false);
 				if (parser == null) return null;
+				webFile.boundItems = null; // bound remotely, local updating will need to re-bind all fields
+				webFile.boundDigest = null;
 				if (clz == null) {
 					defaultParser = parser;
 					Class<?> oldLoader = Config.configurationLoader; // old loader should be this class
@@ -1,9 +1,13 @@
 package im.webuzz.config.loader;
 
+import java.util.concurrent.Executor;
+
 import im.webuzz.config.annotation.ConfigClass;
 import im.webuzz.config.annotation.ConfigComment;
+import im.webuzz.config.annotation.ConfigIgnored;
 import im.webuzz.config.annotation.ConfigKeyPrefix;
 import im.webuzz.config.annotation.ConfigLocalOnly;
+import im.webuzz.config.annotation.ConfigRange;
 
 @ConfigClass
 @ConfigLocalOnly
@@ -19,4 +23,36 @@ public class LocalFSConfig {
 
 	@ConfigComment("Enable high-sensitivity file watching using SUN's private API (macOS only).")
 	public static boolean enablePrivateHighWatcherSensitivity = true;
+
+	@ConfigComment({
+		"Quiet window (in milliseconds) in file watcher mode. Events of a file are coalesced",
+		"until no more events arrive in this window, then the file is updated once. 0: no waiting."
+	})
+	public static long watcherQuietMillis = 300;
+
+	@ConfigComment("Maximum delay (in milliseconds) for a file which keeps changing in file watcher mode.")
+	public static long watcherMaxDelayMillis = 3000;
+
+	@ConfigComment({
+		"Local resource files not smaller than this size (in bytes) are memory mapped for checking",
+		"changes, and copied into memory only if changed. Configuration files are always read into",
+		"memory. Set it to 0 (never) if resource files are rewritten in place, or on Windows, where",
+		"mapped files stay locked until they are garbage collected."
+	})
+	public static long mappedReadingThreshold = 1024 * 1024;
+
+	/**
+	 * Executor for reading and parsing files concurrently if Config.configurationParallelBinding
+	 * is true. Set by code only, it is not a configuration item. If null, a dedicated pool of
+	 * parallelBindingWorkers daemon threads is used.
+	 */
+	@ConfigIgnored
+	public static Executor parallelBindingExecutor = null;
+
+	@ConfigComment("Threads of the dedicated parallel binding pool. Idle threads exit after 60 seconds.")
+	@ConfigRange(min = 1, max = 64)
+	public static int parallelBindingWorkers = 4;
+
+	@ConfigComment("Binary snapshot file compiled by --run:snapshot, relative to the configuration folder. Used by ConfigSnapshotOnce.")
+	public static String snapshotFileName = "config.snapshot";
 }
\ No newline at end of file
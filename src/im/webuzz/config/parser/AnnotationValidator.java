@@ -9,7 +9,6 @@ import java.util.List;
 import java.util.Map;
 
 import im.webuzz.config.Config;
-import im.webuzz.config.InternalConfigUtils;
 import im.webuzz.config.annotation.ConfigEnum;
 import im.webuzz.config.annotation.ConfigLength;
 import im.webuzz.config.annotation.ConfigNonNegative;
@@ -21,6 +20,9 @@ import im.webuzz.config.annotation.ConfigPositive;
 import im.webuzz.config.annotation.ConfigPreferredCodec;
 import im.webuzz.config.annotation.ConfigRange;
 import im.webuzz.config.common.AnnotationWriter;
+import im.webuzz.config.common.ConfigBindingPlan;
+import im.webuzz.config.common.ConfigBindingPlan.FieldBinding;
+import im.webuzz.config.common.ConfigField;
 import im.webuzz.config.common.TypeUtils;
 
 public class AnnotationValidator {
@@ -51,8 +53,7 @@ public class AnnotationValidator {
 			List<Annotation> collectionAnnotations,
 			List<Annotation> mapAnnotations,
 			List<Annotation> nullAnnotations) {
-		List<Annotation> anns = InternalConfigUtils.getAllKnownAnnotations(f,
-				new Class<?>[] { ConfigNotNull.class, ConfigNotEmpty.class, ConfigLength.class, ConfigPreferredCodec.class });
+		List<Annotation> anns = ConfigBindingPlan.getKnownAnnotations(f);
 		for (Annotation ann : anns) {
 			if (ann instanceof ConfigEnum) {
 				stringAnnotations.add(ann);
@@ -343,12 +344,9 @@ public class AnnotationValidator {
 			}
 			return true;
 		} else { // 
-			Map<Class<?>, Map<String, Annotation[]>> typeAnns = Config.configurationAnnotations;
-			Map<String, Annotation[]> fieldAnns = typeAnns == null ? null : typeAnns.get(type);
-			Field[] fields = type.getFields();
+			FieldBinding[] fields = ConfigBindingPlan.forObject(type, false).fields;
 			for (int i = 0; i < fields.length; i++) {
-				Field f = fields[i];
-				if (InternalConfigUtils.isFiltered(f, fieldAnns, false, false)) continue;
+				ConfigField f = fields[i].accessor;
 				Class<?> fieldType = f.getType();
 				try {
 					if (fieldType.isPrimitive()) {
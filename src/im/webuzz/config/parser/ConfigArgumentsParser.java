@@ -13,6 +13,7 @@ public class ConfigArgumentsParser implements ConfigParser<String[], String[]> {
 	private static final char[] configChars = new char[] {'c', 'o', 'n', 'f', 'i', 'g'};
 
 	private ConfigINIParser iniParser;
+	private ConfigItemStore.Builder items; // only available while loading
 	private boolean continueStdinReading;
 
 	public ConfigArgumentsParser() {
@@ -43,6 +44,7 @@ public class ConfigArgumentsParser implements ConfigParser<String[], String[]> {
 		//String[] args = (String[]) source;
 		iniParser.combinedConfigs = combinedConfigs;
 		if (args == null || args.length == 0) return args;
+		items = iniParser.items.toBuilder();
 		boolean parsed = false;
 		List<String> argList = new ArrayList<String>(args.length);
 		for (int i = 0; i < args.length; i++) {
@@ -66,7 +68,7 @@ public class ConfigArgumentsParser implements ConfigParser<String[], String[]> {
 					}
 					builder.append(line).append("\r\n"); // normal properties format
 				}
-				if (builder.length() > 0) iniParser.props.load(new StringReader(builder.toString()));
+				if (builder.length() > 0) items.load(new StringReader(builder.toString()));
 			} catch (Exception e) {
 				e.printStackTrace();
 			} finally {
@@ -76,6 +78,8 @@ public class ConfigArgumentsParser implements ConfigParser<String[], String[]> {
 			}
 			System.out.println("[Config:INFO] Done with stdin input.");
 		}
+		iniParser.items = items.build();
+		items = null;
 		return !parsed ? args : argList.toArray(new String[argList.size()]);
 	}
 
@@ -124,8 +128,8 @@ public class ConfigArgumentsParser implements ConfigParser<String[], String[]> {
 				return parsed;
 			}
 		}
-		if (!iniParser.props.containsKey(key)) {
-			iniParser.props.put(key, value);
+		if (!items.containsKey(key)) {
+			items.put(key, value);
 		}
 		// logging-path, logging.path => loggingPath
 		char[] chars = key.toCharArray();
@@ -141,8 +145,8 @@ public class ConfigArgumentsParser implements ConfigParser<String[], String[]> {
 						chars[j] = chars[j + 1];
 					}
 					key = new String(chars, 0, len); 
-					if (!iniParser.props.containsKey(key)) {
-						iniParser.props.put(key, value);
+					if (!items.containsKey(key)) {
+						items.put(key, value);
 					}
 				}
 			}
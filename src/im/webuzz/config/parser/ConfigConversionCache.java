@@ -0,0 +1,116 @@
+package im.webuzz.config.parser;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import im.webuzz.config.Config;
+
+/**
+ * Bounded cache of items converted from .js, .xml or .json contents, keyed by the
+ * digest of the content bytes.
+ *
+ * The same content is converted many times, e.g. on checking and then
+ * updating, or re-reading a file which is just written by the loader.
+ * Items are immutable, so cached items can be shared by parsers directly.
+ * Least recently used entries are evicted once there are more entries than
+ * Config.configurationConversionCacheSize.
+ *
+ * Only deterministic conversions are cached, e.g. .js files evaluated by the
+ * script engine are converted every time.
+ */
+public class ConfigConversionCache {
+
+	private static class CacheEntry {
+		Object codecs; // Converted items depend on codec names
+		ConfigItemStore items;
+	}
+
+	private static final char[] hexDigits = "0123456789abcdef".toCharArray();
+
+	private static final Map<String, CacheEntry> cache = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+			return size() > Config.configurationConversionCacheSize;
+		}
+	};
+
+	private static final AtomicLong hits = new AtomicLong();
+	private static final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Return cache key for the given content, or null if caching is disabled.
+	 * @param type File extension, e.g. ".js"
+	 * @param content
+	 * @return
+	 */
+	public static String getKey(String type, byte[] content) {
+		if (Config.configurationConversionCacheSize <= 0 || content == null) return null;
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+			char[] chars = new char[digest.length * 2];
+			for (int i = 0; i < digest.length; i++) {
+				chars[i * 2] = hexDigits[(digest[i] >> 4) & 0xf];
+				chars[i * 2 + 1] = hexDigits[digest[i] & 0xf];
+			}
+			return type + ":" + content.length + ":" + new String(chars);
+		} catch (NoSuchAlgorithmException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * Return cached items for the given key, null if not cached.
+	 * @param key
+	 * @return
+	 */
+	public static ConfigItemStore get(String key) {
+		if (key == null) return null;
+		CacheEntry entry;
+		synchronized (cache) {
+			entry = cache.get(key);
+		}
+		if (entry == null || entry.codecs != Config.configurationCodecs) {
+			misses.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+		return entry.items;
+	}
+
+	public static void put(String key, ConfigItemStore items) {
+		if (key == null || items == null) return;
+		CacheEntry entry = new CacheEntry();
+		entry.codecs = Config.configurationCodecs;
+		entry.items = items;
+		synchronized (cache) {
+			cache.put(key, entry);
+		}
+	}
+
+	public static void clear() {
+		synchronized (cache) {
+			cache.clear();
+		}
+	}
+
+	public static int size() {
+		synchronized (cache) {
+			return cache.size();
+		}
+	}
+
+	public static long getHits() {
+		return hits.get();
+	}
+
+	public static long getMisses() {
+		return misses.get();
+	}
+
+}
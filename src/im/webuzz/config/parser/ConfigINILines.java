@@ -0,0 +1,88 @@
+package im.webuzz.config.parser;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Put generated "key=value" lines into the builder, with the same result as
+ * loading these lines in .properties format, without generating the whole
+ * .properties text.
+ *
+ * Most lines have plain keys and single line values, which are put into the
+ * builder directly. Other lines, e.g. keys with separators or values ending
+ * with line continuations, are joined and tokenized by ConfigINITokenizer.
+ */
+class ConfigINILines {
+
+	private final ConfigItemStore.Builder builder;
+
+	// Lines which need to be tokenized, null if there are none
+	private StringBuilder pending;
+
+	ConfigINILines(ConfigItemStore.Builder builder) {
+		super();
+		this.builder = builder;
+	}
+
+	/**
+	 * Add line "key=text", where text is not unescaped yet.
+	 * @param key
+	 * @param text
+	 */
+	void add(String key, String text) {
+		if (pending == null && isPlainKey(key) && isPlainText(text)) {
+			int start = 0;
+			int length = text.length();
+			while (start < length) {
+				char c = text.charAt(start);
+				if (c != ' ' && c != '\t' && c != '\f') break;
+				start++;
+			}
+			String value = start == 0 ? text : text.substring(start);
+			if (value.indexOf('\\') != -1) value = ConfigINITokenizer.unescape(value);
+			builder.put(key, value);
+			return;
+		}
+		if (pending == null) pending = new StringBuilder();
+		pending.append(key).append('=').append(text).append("\r\n");
+		if (!endsWithContinuation(text)) flush();
+	}
+
+	/**
+	 * Tokenize the remaining lines, if any.
+	 */
+	void flush() {
+		if (pending == null) return;
+		byte[] bytes = pending.toString().getBytes(StandardCharsets.UTF_8);
+		pending = null;
+		new ConfigINITokenizer(StandardCharsets.UTF_8, builder).tokenize(bytes, 0, bytes.length);
+	}
+
+	private static boolean isPlainKey(String key) {
+		int length = key.length();
+		if (length == 0) return false;
+		char first = key.charAt(0);
+		if (first == '#' || first == '!') return false;
+		for (int i = 0; i < length; i++) {
+			char c = key.charAt(i);
+			if (c == '=' || c == ':' || c == ' ' || c == '\t' || c == '\f' || c == '\\'
+					|| c == '\r' || c == '\n') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isPlainText(String text) {
+		return text.indexOf('\n') == -1 && text.indexOf('\r') == -1 && !endsWithContinuation(text);
+	}
+
+	// Odd number of trailing backslashes continues the line
+	private static boolean endsWithContinuation(String text) {
+		int count = 0;
+		for (int i = text.length() - 1; i >= 0 && text.charAt(i) == '\\'; i--) {
+			count++;
+		}
+		return (count & 1) == 1;
+	}
+
+}
@@ -1,8 +1,10 @@
 package im.webuzz.config.parser;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
@@ -14,6 +16,7 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -32,11 +35,13 @@ import im.webuzz.config.annotation.ConfigRange;
 import im.webuzz.config.codec.ConfigCodec;
 import im.webuzz.config.common.AnnotationField;
 import im.webuzz.config.common.AnnotationProxy;
+import im.webuzz.config.common.ConfigBindingPlan;
+import im.webuzz.config.common.ConfigBindingPlan.FieldBinding;
 import im.webuzz.config.common.ConfigField;
-import im.webuzz.config.common.ConfigFieldProxy;
+import im.webuzz.config.common.StringUtils;
 import im.webuzz.config.common.TypeUtils;
 
-public class ConfigINIParser implements ConfigParser<InputStream, Object> {
+public class ConfigINIParser implements ConfigParser<InputStream, Object>, ConfigIncrementalParser {
 
 	@ConfigRange(min = 1, max = 20)
 	public static int configurationMapSearchingDots = 10;	
@@ -55,13 +60,16 @@ public class ConfigINIParser implements ConfigParser<InputStream, Object> {
 	private final static int unchanged = 0;
 
 	private AnnotationValidator validator;
-	protected Properties props;
+	protected volatile ConfigItemStore items;
+	private ConfigItemStore previousItems;
+	private Set<String> changedKeys;
 	protected boolean combinedConfigs;
 	private Set<String> parsedKeys;
+
 	public ConfigINIParser() {
 		super();
 		this.validator = new AnnotationValidator();
-		this.props = new Properties();
+		this.items = ConfigItemStore.EMPTY;
 	}
 	
 	@Override
@@ -71,7 +79,7 @@ public class ConfigINIParser implements ConfigParser<InputStream, Object> {
 		InputStreamReader reader = null;
 		try {
 			reader = new InputStreamReader(fis, Config.configFileEncoding);
-			props.load(reader);
+			loadItems(reader);
 		} catch (Exception e) {
 			e.printStackTrace();
 		} finally {
@@ -86,6 +94,101 @@ public class ConfigINIParser implements ConfigParser<InputStream, Object> {
 		return null;
 	}
 
+	/**
+	 * Load items from the remaining bytes of the given buffer, which are encoded
+	 * in Config.configFileEncoding. Buffer's position is not changed.
+	 * @param buffer
+	 * @param combinedConfigs
+	 * @return
+	 */
+	public Object loadResource(ByteBuffer buffer, boolean combinedConfigs) {
+		if (buffer == null) return null;
+		if (!Config.configurationINITokenizer) {
+			byte[] bytes = new byte[buffer.remaining()];
+			buffer.duplicate().get(bytes);
+			return loadResource(new ByteArrayInputStream(bytes), combinedConfigs);
+		}
+		this.combinedConfigs = combinedConfigs;
+		try {
+			ConfigItemStore.Builder builder = items.toBuilder();
+			new ConfigINITokenizer(Config.configFileEncoding, builder).tokenize(buffer);
+			items = builder.build();
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+		return null;
+	}
+
+	/**
+	 * Load items which are already parsed, e.g. items kept in a configuration snapshot.
+	 * @param store
+	 * @param combinedConfigs
+	 * @return
+	 */
+	public Object loadResource(ConfigItemStore store, boolean combinedConfigs) {
+		if (store == null) return null;
+		this.combinedConfigs = combinedConfigs;
+		loadItems(store);
+		return null;
+	}
+
+	/**
+	 * Append items in .properties format from the given reader, and freeze them
+	 * into a new item store.
+	 * @param reader
+	 * @throws IOException
+	 */
+	void loadItems(Reader reader) throws IOException {
+		ConfigItemStore.Builder builder = items.toBuilder();
+		builder.load(reader);
+		items = builder.build();
+	}
+
+	/**
+	 * Append items converted from other formats.
+	 * @param converted
+	 */
+	void loadItems(ConfigItemStore converted) {
+		if (items.size() == 0) {
+			items = converted; // immutable, shared with the conversion cache
+			return;
+		}
+		ConfigItemStore.Builder builder = items.toBuilder();
+		builder.putAll(converted);
+		items = builder.build();
+	}
+
+	@Override
+	public ConfigItemStore getItems() {
+		return items;
+	}
+
+	@Override
+	public synchronized void setPreviousItems(ConfigItemStore previous) {
+		previousItems = previous;
+		changedKeys = null;
+	}
+
+	private synchronized ConfigItemStore getPreviousItems() {
+		return previousItems;
+	}
+
+	// Return null if all keys should be considered as changed
+	private synchronized Set<String> getChangedKeys() {
+		ConfigItemStore previous = previousItems;
+		if (previous == null) return null;
+		Set<String> changed = changedKeys;
+		if (changed == null) {
+			changed = items.getChangedKeys(previous);
+			changedKeys = changed;
+		}
+		return changed;
+	}
+
+	protected ConfigKeyIndex getKeyIndex() {
+		return items.getKeyIndex();
+	}
+
 	
 	/**
 	 * Parse the given properties map into the given class's static fields.
@@ -97,7 +200,7 @@ public class ConfigINIParser implements ConfigParser<InputStream, Object> {
 	 */
 	@Override
 	public int parseConfiguration(Class<?> clz, int flag) {
-		if (clz == null || props.size() == 0) {
+		if (clz == null || items.size() == 0) {
 			if ((flag & FLAG_VALIDATE) != 0) {
 				if (combinedConfigs) {
 					System.out.println("[Config:WARN] No combined configuration items!");
@@ -114,21 +217,18 @@ public class ConfigINIParser implements ConfigParser<InputStream, Object> {
 				}
 			}
 		}
-		String keyPrefix = null;
-		if (combinedConfigs) { // arguments or main file
-			// all configuration items are in one file, use key prefix to distinguish fields
-			keyPrefix = Config.getKeyPrefix(clz);
-		} // else // single file, no keyPrefix
-		Field[] fields = clz.getDeclaredFields();
-		Map<Class<?>, Map<String, Annotation[]>> typeAnns = Config.configurationAnnotations;
-		Map<String, Annotation[]> fieldAnns = typeAnns == null ? null : typeAnns.get(clz);
+		ConfigBindingPlan plan = ConfigBindingPlan.forClass(clz, (flag & ConfigParser.FLAG_REMOTE) != 0);
+		// all configuration items are in one file (arguments or main file), use key prefix to distinguish fields
+		String keyPrefix = combinedConfigs ? plan.keyPrefix : null; // else // single file, no keyPrefix
+		FieldBinding[] fields = plan.fields;
+		Set<String> changed = (flag & FLAG_INCREMENTAL) != 0 ? getChangedKeys() : null;
+		ConfigItemStore previous = changed != null ? getPreviousItems() : null;
 		boolean itemMatched = false;
 		for (int i = 0; i < fields.length; i++) {
-			Field f = fields[i];
-			if (InternalConfigUtils.isFiltered(f, fieldAnns, false, (flag & ConfigParser.FLAG_REMOTE) != 0)) continue;
-			String name = f.getName();
-			String keyName = keyPrefix != null ? keyPrefix + "." + name : name;
-			String p = props.getProperty(keyName);
+			FieldBinding f = fields[i];
+			String name = f.name;
+			String keyName = keyPrefix != null ? f.prefixedName : name;
+			String p = items.get(keyName);
 			if (p == null) {
 				if ((flag & FLAG_VALIDATE) != 0 && (!combinedConfigs || keyPrefix == null)) {
 					System.out.println("[Config:WARN] Missing \"" + keyName + "\" configuration for class \"" + clz.getName() + "\"");
@@ -137,11 +237,17 @@ public class ConfigINIParser implements ConfigParser<InputStream, Object> {
 			}
 			if (parsedKeys != null) parsedKeys.add(keyName);
 			itemMatched = true;
+			if (changed != null && !changed.contains(keyName) && isBoundValue(f, previous)) {
+				// already bound, and not modified by other sources, no need to parse again
+				if ((flag & FLAG_UPDATE) != 0) recordBoundValue(f, items);
+				continue;
+			}
 			p = p.trim();
 			// Should NOT skip empty string, as it may mean empty string or default value
 			//if (p.length() == 0) continue;
-			int result = parseAndUpdateField(keyName, p, clz, new ConfigFieldProxy(f), validator, flag);
+			int result = parseAndUpdateField(keyName, p, clz, f.accessor, validator, flag);
 			if (result == -1) return -1;
+			if ((flag & FLAG_UPDATE) != 0) recordBoundValue(f, items);
 			if (result == 1 && (flag & FLAG_UPDATE) != 0
 					&& Config.configurationLogging && InternalConfigUtils.isInitializationFinished()) {
 				System.out.println("[Config:INFO] Configuration " + clz.getName() + "#" + name + " updated.");
@@ -151,7 +257,7 @@ public class ConfigINIParser implements ConfigParser<InputStream, Object> {
 			try {
 				Method method = clz.getMethod("update", Properties.class);
 				if (method != null && (method.getModifiers() & Modifier.STATIC) != 0) {
-					method.invoke(null, props);
+					method.invoke(null, items.toProperties());
 				}
 			} catch (NoSuchMethodException e) {
 				// ignore
@@ -162,6 +268,53 @@ public class ConfigINIParser implements ConfigParser<InputStream, Object> {
 		return itemMatched ? 1 : 0;
 	}
 
+	/*
+	 * Items and value of the last binding of a static field. If the field is
+	 * bound by other sources (e.g. the main file, command line arguments or
+	 * remote configurations) or modified directly later, its value must be
+	 * parsed from the items again, even if its items are not changed.
+	 */
+	private static class BoundValue {
+		final ConfigItemStore items;
+		final Object value;
+
+		BoundValue(ConfigItemStore items, Object value) {
+			this.items = items;
+			this.value = value;
+		}
+	}
+
+	// Kept along with the declaring classes, so class loaders are not pinned
+	private static final ClassValue<Map<Field, BoundValue>> boundValues = new ClassValue<Map<Field, BoundValue>>() {
+		@Override
+		protected Map<Field, BoundValue> computeValue(Class<?> clazz) {
+			return new ConcurrentHashMap<Field, BoundValue>();
+		}
+	};
+
+	private static void recordBoundValue(FieldBinding f, ConfigItemStore items) {
+		try {
+			boundValues.get(f.field.getDeclaringClass()).put(f.field, new BoundValue(items, f.accessor.get(null)));
+		} catch (Exception e) {
+			boundValues.get(f.field.getDeclaringClass()).remove(f.field);
+		}
+	}
+
+	// Return true if the field's value is still the one bound from the given items
+	private static boolean isBoundValue(FieldBinding f, ConfigItemStore items) {
+		if (items == null) return false;
+		BoundValue bound = boundValues.get(f.field.getDeclaringClass()).get(f.field);
+		if (bound == null || bound.items != items) return false;
+		try {
+			Object value = f.accessor.get(null);
+			if (value == bound.value) return true;
+			// Primitive values are boxed on each reading
+			return f.type.isPrimitive() && value != null && value.equals(bound.value);
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
 	private Object parseEnumType(String p, String keyName) {
 		String suffix = null;
 		int length = p.length();
@@ -239,46 +392,43 @@ public class ConfigINIParser implements ConfigParser<InputStream, Object> {
 					changed = true;
 				}
 			} else if (type == int.class) {
-				int nv = Integer.decode(p).intValue();
+				int nv = PrimitiveDecoder.decodeInt(p, 0, p.length());
 				if (nv == f.getInt(obj)) return unchanged;
 				int result = validator == null ? 1 : validator.validatePrimitive(f.getField(), nv, keyName);
 				if (result == 1 && updatingField) f.setInt(obj, nv);
 				return result;
 			} else if (type == long.class) {
-				long nv = Long.decode(p).longValue();
+				long nv = PrimitiveDecoder.decodeLong(p, 0, p.length());
 				if (nv == f.getLong(obj)) return unchanged;
 				int result = validator == null ? 1 : validator.validatePrimitive(f.getField(), nv, keyName);
 				if (result == 1 && updatingField) f.setLong(obj, nv);
 				return result;
 			} else if (type == boolean.class) {
-				if (!"false".equals(p) && !"true".equals(p)) {
-					throw new RuntimeException("\"" + p + "\" is an invalid boolean value");
-				}
-				boolean nv = Boolean.parseBoolean(p);
+				boolean nv = PrimitiveDecoder.parseBoolean(p, 0, p.length());
 				if (nv == f.getBoolean(obj)) return unchanged;
 				// Just true or false, no validating
 				if (updatingField) f.setBoolean(obj, nv);
 				return 1;
 			} else if (type == double.class) {
-				double nv = Double.parseDouble(p);
+				double nv = PrimitiveDecoder.parseDouble(p, 0, p.length());
 				if (nv == f.getDouble(obj)) return unchanged;
 				int result = validator == null ? 1 : validator.validatePrimitive(f.getField(), nv, keyName);
 				if (result == 1 && updatingField) f.setDouble(obj, nv);
 				return result;
 			} else if (type == float.class) {
-				float nv = Float.parseFloat(p);
+				float nv = PrimitiveDecoder.parseFloat(p, 0, p.length());
 				if (nv == f.getFloat(obj)) return unchanged;
 				int result = validator == null ? 1 : validator.validatePrimitive(f.getField(), nv, keyName);
 				if (result == 1 && updatingField) f.setFloat(obj, nv);
 				return result;
 			} else if (type == short.class) {
-				short nv = Short.decode(p).shortValue();
+				short nv = PrimitiveDecoder.decodeShort(p, 0, p.length());
 				if (nv == f.getShort(obj)) return unchanged;
 				int result = validator == null ? 1 : validator.validatePrimitive(f.getField(), nv, keyName);
 				if (result == 1 && updatingField) f.setShort(obj, nv);
 				return result;
 			} else if (type == byte.class) {
-				byte nv = Byte.decode(p).byteValue();
+				byte nv = PrimitiveDecoder.decodeByte(p, 0, p.length());
 				if (nv == f.getByte(obj)) return unchanged;
 				int result = validator == null ? 1 : validator.validatePrimitive(f.getField(), nv, keyName);
 				if (result == -1) return -1;
@@ -335,27 +485,26 @@ public class ConfigINIParser implements ConfigParser<InputStream, Object> {
 					nv = decoded;
 					changed = ov == null ? true : !nv.equals(ov);
 				} else if (!p.equals($null)) {
-					int length = p.length();
-					if (length > 2 && p.charAt(0) == '[' && p.charAt(length - 1) == ']') {
+					// Decode [type:value] in place
+					int start = 0;
+					int end = p.length();
+					if (end > 2 && p.charAt(0) == '[' && p.charAt(end - 1) == ']') {
 						int idx = p.indexOf(':');
 						if (idx != -1) {
-							p = p.substring(idx + 1, length - 1);
+							start = idx + 1;
+							end--;
 						}
 					}
-					if (type == Integer.class) nv = Integer.decode(p);
-					else if (type == Long.class) nv = Long.decode(p);
-					else if (type == Short.class) nv = Short.decode(p);
-					else if (type == Byte.class) nv = Byte.decode(p);
-					else if (type == Float.class) nv = Float.valueOf(p);
-					else if (type == Double.class) nv = Double.valueOf(p);
-					else if (type == BigDecimal.class) nv = new BigDecimal(p);
-					else if (type == BigInteger.class) nv = new BigInteger(p);
-					else if (type == Boolean.class) {
-						if (!"false".equals(p) && !"true".equals(p)) {
-							throw new RuntimeException("\"" + p + "\" is an invalid boolean value");
-						}
-						nv = Boolean.valueOf(p);
-					}else nv = Character.valueOf(parseChar(p)); // Character.class
+					if (type == Integer.class) nv = Integer.valueOf(PrimitiveDecoder.decodeInt(p, start, end));
+					else if (type == Long.class) nv = Long.valueOf(PrimitiveDecoder.decodeLong(p, start, end));
+					else if (type == Short.class) nv = Short.valueOf(PrimitiveDecoder.decodeShort(p, start, end));
+					else if (type == Byte.class) nv = Byte.valueOf(PrimitiveDecoder.decodeByte(p, start, end));
+					else if (type == Float.class) nv = Float.valueOf(PrimitiveDecoder.parseFloat(p, start, end));
+					else if (type == Double.class) nv = Double.valueOf(PrimitiveDecoder.parseDouble(p, start, end));
+					else if (type == BigDecimal.class) nv = new BigDecimal(p.substring(start, end));
+					else if (type == BigInteger.class) nv = new BigInteger(p.substring(start, end));
+					else if (type == Boolean.class) nv = Boolean.valueOf(PrimitiveDecoder.parseBoolean(p, start, end));
+					else nv = Character.valueOf(PrimitiveDecoder.parseChar(p, start, end)); // Character.class
 					changed = ov == null ? true : !nv.equals(ov);
 				} else {
 					changed = ov != null;
@@ -611,22 +760,10 @@ public class ConfigINIParser implements ConfigParser<InputStream, Object> {
 				}
 			}
 			if (!singleLine) {
-				List<String> filteredNames = new ArrayList<String>();
-				Set<String> names = props.stringPropertyNames();
 				prefix = keyName + ".";
-				for (String propName : names) {
-					if (propName.startsWith(prefix)) {
-						String k = propName.substring(prefix.length());
-						String[] split = k.split("\\.");
-						if (split.length > 1) continue;
-						filteredNames.add(k);
-					}
-				}
-				arrayLength = filteredNames.size();
-				if (arrayLength > 0 && parsedKeys != null) parsedKeys.addAll(filteredNames);
-				keyNames = filteredNames.toArray(new String[arrayLength]);
-				//if (isArray || List.class.isAssignableFrom(type))
-				Arrays.sort(keyNames); // keep original order
+				// Direct children only, already sorted by index to keep original order
+				keyNames = getKeyIndex().getChildren(prefix);
+				arrayLength = keyNames.length;
 			} else {
 				// singleLine = true;
 				ss = new String[1];
@@ -634,8 +771,15 @@ public class ConfigINIParser implements ConfigParser<InputStream, Object> {
 				arrayLength = 1;
 			}
 		} else {
+			if (isArray && valueType != null && valueType.isPrimitive()) {
+				// Decode items into the primitive array directly, without splitting
+				arrayLength = PrimitiveDecoder.countItems(p);
+				Object value = createCollectionObject(type, arrayLength);
+				PrimitiveDecoder.fillArray(value, arrayLength, p);
+				return value;
+			}
 			singleLine = true;
-			ss = p.split("\\s*;\\s*");
+			ss = StringUtils.split(p, ';', false);
 			arrayLength = ss.length;
 		}
 		if (valueType == null) valueType = Object.class;
@@ -648,41 +792,14 @@ public class ConfigINIParser implements ConfigParser<InputStream, Object> {
 			String newPropName = keyName;
 			if (!singleLine) {
 				newPropName = prefix + keyNames[j];
-				v = (String) props.getProperty(newPropName);
+				v = items.get(newPropName);
 				if (parsedKeys != null) parsedKeys.add(newPropName);
 			} else {
 				v = ss[j];
 			}
 			if (isPrimitiveArray) {
-				if (v == null || v.length() == 0) {
-					if (type == boolean[].class) {
-						v = "false";
-					} else if (type == char[].class) {
-						v = "\0";
-					} else {
-						v = "0";
-					}
-				}
-				if (type == int[].class) {
-					Array.setInt(value, j, Integer.decode(v).intValue());
-				} else if (type == long[].class) {
-					Array.setLong(value, j, Long.decode(v).longValue());
-				} else if (type == byte[].class) {
-					Array.setByte(value, j, Byte.decode(v).byteValue());
-				} else if (type == short[].class) {
-					Array.setShort(value, j, Short.decode(v).shortValue());
-				} else if (type == float[].class) {
-					Array.setFloat(value, j, Float.parseFloat(v));
-				} else if (type == double[].class) {
-					Array.setDouble(value, j, Double.parseDouble(v));
-				} else if (type == boolean[].class) {
-					if (!"true".equals(v) && !"false".equals(v)) {
-						throw new RuntimeException("\"" + v + "\" is an invalid boolean value");
-					}
-					Array.setBoolean(value, j, Boolean.parseBoolean(v));
-				} else if (type == char[].class) {
-					Array.setChar(value, j, parseChar(v));
-				}
+				if (v == null) v = "";
+				PrimitiveDecoder.setElement(value, j, v, 0, v.length());
 			} else {
 				o = recognizeAndParseObject(newPropName, v, valueType, valueParamType, flag);
 				if (o == error) return error;
@@ -800,43 +917,37 @@ public class ConfigINIParser implements ConfigParser<InputStream, Object> {
 					}
 				}
 			}
-			Set<String> names = props.stringPropertyNames();
 			String prefix = keyName + ".";
-			int prefixLength = prefix.length();
 			boolean entriesMode = true;
-			Set<String> filteredKeyNames = new HashSet<String>();
-			for (String propName : names) {
-				if (propName.startsWith(prefix)) {
-					String k = propName.substring(prefixLength);
-					filteredKeyNames.add(k);
-					if (!entriesMode) continue;
-					int kLength = k.length();
-					for (int i = 0; i < kLength; i++) {
-						char c = k.charAt(i);
-						if (c == '.') break;
-						if (c < '0' || '9' < c) {
-							entriesMode = false;
-							break;
-						}
+			String[] filteredKeyNames = getKeyIndex().getDescendants(prefix);
+			for (String k : filteredKeyNames) {
+				int kLength = k.length();
+				for (int i = 0; i < kLength; i++) {
+					char c = k.charAt(i);
+					if (c == '.') break;
+					if (c < '0' || '9' < c) {
+						entriesMode = false;
+						break;
 					}
 				}
+				if (!entriesMode) break;
 			}
-			if (filteredKeyNames.isEmpty()) return createCollectionObject(type, 1);
-			Map<Object, Object> value = (Map<Object, Object>) createCollectionObject(type, filteredKeyNames.size());
+			if (filteredKeyNames.length == 0) return createCollectionObject(type, 1);
+			Map<Object, Object> value = (Map<Object, Object>) createCollectionObject(type, filteredKeyNames.length);
 			if (entriesMode) {
 				for (String propName : filteredKeyNames) {
 					String newPropName = prefix + propName;
-					String v = (String) props.getProperty(newPropName);
+					String v = items.get(newPropName);
 					if (v == null) continue;
 					if (!v.startsWith("[") || !v.endsWith("]")) {
 						// =key>###;value>####
 						Object key = null;
 						Object val = null;
-						String[] arr = v.split("\\s*;\\s*");
+						String[] arr = StringUtils.split(v, ';', false);
 						for (int j = 0; j < arr.length; j++) {
 							String item = arr[j].trim();
 							if (item.length() == 0) continue;
-							String[] kv = item.split("\\s*>+\\s*");
+							String[] kv = StringUtils.split(item, '>', true);
 							if (kv.length != 2) {
 								if (kv.length != 1 || item.indexOf('>') == -1) { // 1.0.1>;1.2.0>true
 									continue;
@@ -861,13 +972,13 @@ public class ConfigINIParser implements ConfigParser<InputStream, Object> {
 						value.put(key, val);
 					} else {
 						String keyPrefix = newPropName + ".key";
-						String kStr = (String) props.getProperty(keyPrefix);
+						String kStr = items.get(keyPrefix);
 						if (kStr == null) continue;
 						Object key = recognizeAndParseObject(keyPrefix, kStr, keyType, keyParamType, flag);
 						if (key == error) return error;
 						if (key == null) continue;
 						String valuePrefix = newPropName + ".value";
-						String vStr = (String) props.getProperty(valuePrefix);
+						String vStr = items.get(valuePrefix);
 						if (vStr == null) continue;
 						Object val = recognizeAndParseObject(valuePrefix, vStr, valueType, valueParamType, flag);
 						if (val == error) return error;
@@ -883,8 +994,8 @@ public class ConfigINIParser implements ConfigParser<InputStream, Object> {
 			}
 			
 			Set<String> parsedKeys = new HashSet<String>();
-			Set<String> dotsNames = null;
-			names = filteredKeyNames;
+			List<String> dotsNames = null;
+			List<String> names = Arrays.asList(filteredKeyNames);
 			int dots = 0;
 			do {
 				boolean dotsReached = false;
@@ -907,7 +1018,7 @@ public class ConfigINIParser implements ConfigParser<InputStream, Object> {
 					}
 					if (foundDots > dots) {
 						if (!dotsReached) {
-							dotsNames = new HashSet<String>();
+							dotsNames = new ArrayList<String>();
 							dotsReached = true;
 						}
 						dotsNames.add(k);
@@ -917,7 +1028,7 @@ public class ConfigINIParser implements ConfigParser<InputStream, Object> {
 					Object key = recognizeAndParseObject(keyName, k, keyType, keyParamType, flag);
 					if (key == error) return error;
 					if (key == null) continue;
-					String v = (String) props.getProperty(newPropName);
+					String v = items.get(newPropName);
 					Object val = recognizeAndParseObject(newPropName, v, valueType, valueParamType, flag);
 					if (val == error) return error;
 					if (this.parsedKeys != null) this.parsedKeys.add(newPropName);
@@ -934,13 +1045,13 @@ public class ConfigINIParser implements ConfigParser<InputStream, Object> {
 			return value;
 		}
 		// single line configuration, should be simple like Map<String, String>
-		String[] arr = p.split("\\s*;\\s*");
+		String[] arr = StringUtils.split(p, ';', false);
 		int arrayLength = arr.length;
 		Map<Object, Object> value = (Map<Object, Object>) createCollectionObject(type, arrayLength);
 		for (int j = 0; j < arrayLength; j++) {
 			String item = arr[j].trim();
 			if (item.length() == 0) continue;
-			String[] kv = item.split("\\s*>+\\s*");
+			String[] kv = StringUtils.split(item, '>', true);
 			if (kv.length != 2) {
 				if (kv.length != 1 || item.indexOf('>') == -1) { // 1.0.1>;1.2.0>true
 					continue;
@@ -983,7 +1094,7 @@ public class ConfigINIParser implements ConfigParser<InputStream, Object> {
 				if (f == null) continue; // never happen
 				String name = f.getName();
 				String fieldKeyName = prefix + name;
-				String pp = props.getProperty(fieldKeyName);
+				String pp = items.get(fieldKeyName);
 				if (pp == null) {
 					if ((flag & FLAG_VALIDATE) != 0) {
 						System.out.println("[Config:WARN] Missing \"" + fieldKeyName + "\" configuration for \"" + type.getName() + "\" annotation");
@@ -998,11 +1109,11 @@ public class ConfigINIParser implements ConfigParser<InputStream, Object> {
 			return obj.newAnnotation();
 		}
 		// Single line configuration
-		String[] arr = p.split("\\s*;\\s*");
+		String[] arr = StringUtils.split(p, ';', false);
 		for (int j = 0; j < arr.length; j++) {
 			String item = arr[j].trim();
 			if (item.length() == 0) continue;
-			String[] kv = item.split("\\s*>+\\s*");
+			String[] kv = StringUtils.split(item, '>', true);
 			if (kv.length != 2) continue;
 			String k = kv[0].trim();
 			AnnotationField f = obj.getDeclaredField(k);
@@ -1037,15 +1148,13 @@ public class ConfigINIParser implements ConfigParser<InputStream, Object> {
 		if ($empty.equals(p) || p.length() == 0 || obj == null) return obj;
 
 		String prefix = keyName + ".";
-		Map<Class<?>, Map<String, Annotation[]>> typeAnns = Config.configurationAnnotations;
-		Map<String, Annotation[]> fieldAnns = typeAnns == null ? null : typeAnns.get(type);
+		ConfigBindingPlan plan = ConfigBindingPlan.forObject(type, false);
 		if ($object.equals(p) || (p.startsWith("[") && p.endsWith("]"))) { // Multiple line configuration
-			Field[] fields = type.getFields();
+			FieldBinding[] fields = plan.fields;
 			for (int i = 0; i < fields.length; i++) {
-				Field f = fields[i];
-				if (InternalConfigUtils.isFiltered(f, fieldAnns, true, false)) continue;
-				String fieldKeyName = prefix + f.getName();
-				String pp = props.getProperty(fieldKeyName);
+				FieldBinding f = fields[i];
+				String fieldKeyName = prefix + f.name;
+				String pp = items.get(fieldKeyName);
 				if (pp == null) {
 					if ((flag & FLAG_VALIDATE) != 0) {
 						System.out.println("[Config:WARN] Missing \"" + fieldKeyName + "\" configuration for \"" + type.getName() + "\" object");
@@ -1055,32 +1164,26 @@ public class ConfigINIParser implements ConfigParser<InputStream, Object> {
 				if (parsedKeys != null) parsedKeys.add(fieldKeyName);
 				pp = pp.trim();
 				if (pp.length() == 0) continue;
-				if (parseAndUpdateField(fieldKeyName, pp, obj, new ConfigFieldProxy(f), validator, FLAG_UPDATE) == -1) return error;
+				if (parseAndUpdateField(fieldKeyName, pp, obj, f.accessor, validator, FLAG_UPDATE) == -1) return error;
 			}
 			return obj;
 		}
 		// Single line configuration
-		String[] arr = p.split("\\s*;\\s*");
+		String[] arr = StringUtils.split(p, ';', false);
 		for (int j = 0; j < arr.length; j++) {
 			String item = arr[j].trim();
 			if (item.length() == 0) continue;
-			String[] kv = item.split("\\s*>+\\s*");
+			String[] kv = StringUtils.split(item, '>', true);
 			if (kv.length != 2) continue;
 			String k = kv[0].trim();
-			Field f = null;
-			try {
-				f = type.getField(k);
-			} catch (Exception e1) {
-				//e1.printStackTrace();
-				continue;
-			}
+			FieldBinding f = plan.getBinding(k); // null for unknown or filtered fields
 			if (f == null) {
-				if ((flag & FLAG_VALIDATE) != 0) System.out.println("[Config:WARN] Unknown field \"" + k + "\" for \"" + prefix + "\"");
+				// Filtered fields are skipped quietly
+				if ((flag & FLAG_VALIDATE) != 0 && !plan.isFiltered(k)) System.out.println("[Config:WARN] Unknown field \"" + k + "\" for \"" + prefix + "\"");
 				continue;
 			}
-			if (InternalConfigUtils.isFiltered(f, fieldAnns, true, false)) continue;
 			String v = kv[1].trim();
-			if (parseAndUpdateField(prefix + k, v, obj, new ConfigFieldProxy(f), validator, FLAG_UPDATE) == -1) return error;
+			if (parseAndUpdateField(prefix + k, v, obj, f.accessor, validator, FLAG_UPDATE) == -1) return error;
 		}
 		return obj;
 	}
@@ -1130,18 +1233,13 @@ public class ConfigINIParser implements ConfigParser<InputStream, Object> {
 		if (p.length() == 0 && Number.class.isAssignableFrom(type)) {
 			p = "0";
 		}
-		if (type == Integer.class) return Integer.decode(p);
-		if (type == Long.class) return Long.decode(p);
-		if (type == Short.class) return Short.decode(p);
-		if (type == Byte.class) return Byte.decode(p);
-		if (type == Boolean.class) {
-			if (!"true".equals(p) && !"false".equals(p)) {
-				throw new RuntimeException("\"" + p + "\" is an invalid boolean value");
-			}
-			return Boolean.valueOf(p);
-		}
-		if (type == Double.class) return Double.valueOf(p);
-		if (type == Float.class) return Float.valueOf(p);
+		if (type == Integer.class) return Integer.valueOf(PrimitiveDecoder.decodeInt(p, 0, p.length()));
+		if (type == Long.class) return Long.valueOf(PrimitiveDecoder.decodeLong(p, 0, p.length()));
+		if (type == Short.class) return Short.valueOf(PrimitiveDecoder.decodeShort(p, 0, p.length()));
+		if (type == Byte.class) return Byte.valueOf(PrimitiveDecoder.decodeByte(p, 0, p.length()));
+		if (type == Boolean.class) return Boolean.valueOf(PrimitiveDecoder.parseBoolean(p, 0, p.length()));
+		if (type == Double.class) return Double.valueOf(PrimitiveDecoder.parseDouble(p, 0, p.length()));
+		if (type == Float.class) return Float.valueOf(PrimitiveDecoder.parseFloat(p, 0, p.length()));
 		if (type == Character.class) return parseChar(p);
 		if (type == Class.class) {
 			if (p.length() == 0) return null;
@@ -1175,7 +1273,49 @@ public class ConfigINIParser implements ConfigParser<InputStream, Object> {
 		return parseObject(keyName, p, type, paramType, flag);
 	}
 
+	/*
+	 * Recognize the type of the given value by its type marker, e.g. "[array:int]" or
+	 * "[object:a.b.C]". Same markers appear in many items, and are recognized again on
+	 * each checking or updating pass, so recognized types are cached by the type part
+	 * of markers. Values are never part of cache keys, and the cache is bounded.
+	 */
 	private Class<?> recognizeObjectType(String p) {
+		int length = p.length();
+		if (length < 2 || p.charAt(0) != '[' || p.charAt(length - 1) != ']') return String.class;
+		String cacheKey = p;
+		int idx = p.indexOf(':');
+		if (idx != -1) {
+			String prefix = p.substring(0, idx);
+			Map<String, ConfigCodec<?>> codecs = Config.configurationCodecs;
+			if (codecs == null || codecs.get(prefix.substring(1).trim()) != null) {
+				// Codec markers contain encoded values, never cache them
+				return recognizeMarkerType(p);
+			}
+			if (prefix.startsWith("[Enum")) {
+				// e.g. "[Enum:a.b.C.NAME]", type depends on "[Enum:a.b.C" only
+				int nameIdx = p.lastIndexOf('.');
+				if (nameIdx > idx) cacheKey = p.substring(0, nameIdx);
+			} else if (!($array.startsWith(prefix) || $annotation.startsWith(prefix)
+					|| $object.startsWith(prefix))) {
+				// e.g. "[Integer:5]" or "[list:...]", type depends on the prefix only
+				cacheKey = prefix;
+			}
+		}
+		if (cacheKey.length() > MAX_TYPE_MARKER_LENGTH) return recognizeMarkerType(p); // not a type marker
+		ClassLoader loader = Config.getConfigurationClassLoader();
+		if (loader != recognizedClassLoader) {
+			// Classes not found may be loaded by the new class loader
+			recognizedTypes.clear();
+			recognizedClassLoader = loader;
+		}
+		Class<?> type = recognizedTypes.get(cacheKey);
+		if (type != null) return type;
+		type = recognizeMarkerType(p);
+		if (type != null && recognizedTypes.size() < MAX_RECOGNIZED_TYPES) recognizedTypes.put(cacheKey, type);
+		return type;
+	}
+
+	private Class<?> recognizeMarkerType(String p) {
 		int length = p.length();
 		if (length >= 2 && p.charAt(0) == '[' && p.charAt(length - 1) == ']' && !$empty.equals(p)) {
 			if (length == 2) return Object.class;
@@ -1201,7 +1341,7 @@ public class ConfigINIParser implements ConfigParser<InputStream, Object> {
 			String suffix = p.substring(idx + 1, length - 1);
 			if ($array.startsWith(prefix)) {
 				if (suffix.startsWith("[array")) {
-					Class<?> compType = recognizeObjectType(suffix);
+					Class<?> compType = recognizeMarkerType(suffix);
 					return Array.newInstance(compType, 0).getClass();
 				}
 				
@@ -1259,6 +1399,12 @@ public class ConfigINIParser implements ConfigParser<InputStream, Object> {
 		return String.class;
 	}
 	
+	// Type markers are short and few, e.g. "[array:int]" or "[Enum:a.b.C"
+	private static final int MAX_TYPE_MARKER_LENGTH = 256;
+	private static final int MAX_RECOGNIZED_TYPES = 1024;
+	private static Map<String, Class<?>> recognizedTypes = new ConcurrentHashMap<String, Class<?>>();
+	private static volatile ClassLoader recognizedClassLoader = null;
+
 	private static Map<String, Class<?>> knownTypes = new ConcurrentHashMap<String, Class<?>>();
 	static {
 		knownTypes.put("Integer", Integer.class);
@@ -1292,7 +1438,7 @@ public class ConfigINIParser implements ConfigParser<InputStream, Object> {
 	public Set<String> unusedConfigurationItems() {
 		if (parsedKeys == null) return null;
 		Set<String> unused = new HashSet<String>();
-		for (String key : props.stringPropertyNames()) {
+		for (String key : getKeyIndex().keys()) {
 			if (!parsedKeys.contains(key)) unused.add(key);
 		}
 		return unused;
@@ -0,0 +1,273 @@
+package im.webuzz.config.parser;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Tokenizer for .ini (.properties) content in UTF-8 bytes.
+ *
+ * Lines, comments, line continuations, key/value separators and escapes
+ * follow the same rules as java.util.Properties#load(Reader). Key and value
+ * are located as byte slices of the given content, and only decoded into
+ * strings at last. Slices are copied only for lines with continuations.
+ *
+ * Java 8's Properties.LineReader differs from later versions in two cases,
+ * which are followed when running on Java 8 (see #legacyLineReader):
+ * a line starting with '#' or '!' right after a continuation is not a comment,
+ * and trailing backslashes of a comment line still escape the first character
+ * of the next line. Java 8's Properties#loadConvert also reads characters past
+ * the end of a key or value for a truncated "\\u" escape or a trailing
+ * backslash, which gives garbage depending on the previous lines. Such
+ * escapes are handled as later versions do instead: a truncated "\\uxxxx"
+ * throws IllegalArgumentException and a trailing backslash is kept.
+ */
+public class ConfigINITokenizer {
+
+	// Whether Java 8's line reader is used by Properties#load of current runtime
+	public static final boolean legacyLineReader = "1.8".equals(System.getProperty("java.specification.version"));
+
+	private final Charset charset;
+	private final ConfigItemStore.Builder builder;
+	private final boolean legacy;
+
+	// Scratch buffer for joining continued lines
+	private byte[] lineBuf;
+	private int lineLength;
+
+	public ConfigINITokenizer(Charset charset, ConfigItemStore.Builder builder) {
+		this(charset, builder, legacyLineReader);
+	}
+
+	/**
+	 * @param charset
+	 * @param builder
+	 * @param legacy, true to split lines as Java 8's Properties#load does
+	 */
+	public ConfigINITokenizer(Charset charset, ConfigItemStore.Builder builder, boolean legacy) {
+		super();
+		this.charset = charset;
+		this.builder = builder;
+		this.legacy = legacy;
+	}
+
+	/**
+	 * Tokenize all items in the remaining bytes of the given buffer into the builder.
+	 * Buffer's position is not changed.
+	 * @param buffer
+	 */
+	public void tokenize(ByteBuffer buffer) {
+		if (buffer.hasArray()) {
+			int offset = buffer.arrayOffset() + buffer.position();
+			tokenize(buffer.array(), offset, offset + buffer.remaining());
+		} else {
+			byte[] bytes = new byte[buffer.remaining()];
+			buffer.duplicate().get(bytes);
+			tokenize(bytes, 0, bytes.length);
+		}
+	}
+
+	/**
+	 * Tokenize all items in the given bytes into the builder.
+	 * @param src
+	 * @param offset
+	 * @param end, exclusive
+	 */
+	public void tokenize(byte[] src, int offset, int end) {
+		// Same states as Properties.LineReader#readLine
+		int len = 0; // length of current logical line
+		int segStart = offset; // start of current physical line segment
+		boolean skipWhiteSpace = true;
+		boolean appendedLineBegin = false;
+		boolean precedingBackslash = false;
+		boolean skipLF = false;
+		boolean newLine = true; // Java 8 checks comments on the first character of a logical line only
+		lineLength = 0;
+		int pos = offset;
+		while (true) {
+			if (pos >= end) {
+				if (len == 0) return;
+				int segEnd = skipWhiteSpace ? segStart : (precedingBackslash ? pos - 1 : pos);
+				emitLine(src, segStart, segEnd);
+				return;
+			}
+			byte c = src[pos++];
+			if (skipLF) {
+				skipLF = false;
+				if (c == '\n') continue;
+			}
+			if (skipWhiteSpace) {
+				if (c == ' ' || c == '\t' || c == '\f') continue;
+				if (!appendedLineBegin && (c == '\r' || c == '\n')) continue;
+				skipWhiteSpace = false;
+				appendedLineBegin = false;
+				segStart = pos - 1;
+			}
+			boolean commentAllowed = legacy ? newLine : len == 0;
+			newLine = false;
+			if (commentAllowed && (c == '#' || c == '!')) {
+				// Comment line, no continuation
+				while (pos < end && (c = src[pos]) != '\n' && c != '\r') {
+					// Java 8 does not reset the backslash flag after comment lines
+					if (legacy) precedingBackslash = c == '\\' ? !precedingBackslash : false;
+					pos++;
+				}
+				skipWhiteSpace = true;
+				newLine = true;
+				continue;
+			}
+			if (c != '\n' && c != '\r') {
+				len++;
+				precedingBackslash = c == '\\' ? !precedingBackslash : false;
+				continue;
+			}
+			// Reached end of line
+			if (len == 0) {
+				skipWhiteSpace = true;
+				newLine = true;
+				continue;
+			}
+			int segEnd = pos - 1;
+			if (precedingBackslash) segEnd--; // backslash at end of line is not part of the line
+			if (pos >= end || !precedingBackslash) {
+				emitLine(src, segStart, segEnd);
+				len = 0;
+				skipWhiteSpace = true;
+				appendedLineBegin = false;
+				precedingBackslash = false;
+				newLine = true;
+				continue;
+			}
+			// Line continuation, join the next line without its leading white spaces
+			append(src, segStart, segEnd);
+			len--;
+			skipWhiteSpace = true;
+			appendedLineBegin = true;
+			precedingBackslash = false;
+			segStart = pos;
+			if (c == '\r') skipLF = true;
+		}
+	}
+
+	private void emitLine(byte[] src, int segStart, int segEnd) {
+		if (lineLength == 0) {
+			parseLine(src, segStart, segEnd);
+		} else {
+			append(src, segStart, segEnd);
+			parseLine(lineBuf, 0, lineLength);
+			lineLength = 0;
+		}
+	}
+
+	private void append(byte[] src, int start, int end) {
+		int length = end - start;
+		if (length <= 0) return;
+		if (lineBuf == null) {
+			lineBuf = new byte[Math.max(256, length * 2)];
+		} else if (lineLength + length > lineBuf.length) {
+			byte[] newBuf = new byte[Math.max(lineBuf.length * 2, lineLength + length)];
+			System.arraycopy(lineBuf, 0, newBuf, 0, lineLength);
+			lineBuf = newBuf;
+		}
+		System.arraycopy(src, start, lineBuf, lineLength, length);
+		lineLength += length;
+	}
+
+	// Locate key and value slices in the given logical line, same as Properties#load0
+	private void parseLine(byte[] buf, int start, int end) {
+		int keyEnd = start;
+		int valueStart = end;
+		boolean hasSeparator = false;
+		boolean keyEscaped = false;
+		boolean precedingBackslash = false;
+		while (keyEnd < end) {
+			byte c = buf[keyEnd];
+			if (!precedingBackslash) {
+				if (c == '=' || c == ':') {
+					valueStart = keyEnd + 1;
+					hasSeparator = true;
+					break;
+				} else if (c == ' ' || c == '\t' || c == '\f') {
+					valueStart = keyEnd + 1;
+					break;
+				}
+			}
+			if (c == '\\') {
+				precedingBackslash = !precedingBackslash;
+				keyEscaped = true;
+			} else {
+				precedingBackslash = false;
+			}
+			keyEnd++;
+		}
+		while (valueStart < end) {
+			byte c = buf[valueStart];
+			if (c != ' ' && c != '\t' && c != '\f') {
+				if (!hasSeparator && (c == '=' || c == ':')) {
+					hasSeparator = true;
+				} else {
+					break;
+				}
+			}
+			valueStart++;
+		}
+		String key = decode(buf, start, keyEnd, keyEscaped);
+		String value = decode(buf, valueStart, end, indexOf(buf, valueStart, end, (byte) '\\') != -1);
+		builder.put(key, value);
+	}
+
+	private static int indexOf(byte[] buf, int start, int end, byte b) {
+		for (int i = start; i < end; i++) {
+			if (buf[i] == b) return i;
+		}
+		return -1;
+	}
+
+	private String decode(byte[] buf, int start, int end, boolean escaped) {
+		String str = new String(buf, start, end - start, charset);
+		return escaped ? unescape(str) : str;
+	}
+
+	// Same as Properties#loadConvert
+	static String unescape(String str) {
+		int length = str.length();
+		StringBuilder builder = new StringBuilder(length);
+		int idx = 0;
+		while (idx < length) {
+			char c = str.charAt(idx++);
+			if (c != '\\' || idx >= length) {
+				builder.append(c);
+				continue;
+			}
+			c = str.charAt(idx++);
+			if (c == 'u') {
+				if (idx + 4 > length) throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
+				int value = 0;
+				for (int i = 0; i < 4; i++) {
+					c = str.charAt(idx++);
+					if (c >= '0' && c <= '9') {
+						value = (value << 4) + c - '0';
+					} else if (c >= 'a' && c <= 'f') {
+						value = (value << 4) + 10 + c - 'a';
+					} else if (c >= 'A' && c <= 'F') {
+						value = (value << 4) + 10 + c - 'A';
+					} else {
+						throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
+					}
+				}
+				builder.append((char) value);
+			} else if (c == 't') {
+				builder.append('\t');
+			} else if (c == 'r') {
+				builder.append('\r');
+			} else if (c == 'n') {
+				builder.append('\n');
+			} else if (c == 'f') {
+				builder.append('\f');
+			} else {
+				builder.append(c);
+			}
+		}
+		return builder.toString();
+	}
+
+}
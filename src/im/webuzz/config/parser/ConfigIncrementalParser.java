@@ -0,0 +1,22 @@
+package im.webuzz.config.parser;
+
+/**
+ * Parser keeping its parsed items, so an updated file can be compared with
+ * the items bound last time. With ConfigParser.FLAG_INCREMENTAL, only fields
+ * whose keys (or child keys) are changed will be parsed, validated and updated.
+ */
+public interface ConfigIncrementalParser {
+
+	/**
+	 * Return the parsed items of the loaded resource.
+	 * @return
+	 */
+	public ConfigItemStore getItems();
+
+	/**
+	 * Set the items which are already bound to configuration fields.
+	 * @param items, null for re-binding all fields
+	 */
+	public void setPreviousItems(ConfigItemStore items);
+
+}
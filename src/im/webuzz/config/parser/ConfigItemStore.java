@@ -0,0 +1,194 @@
+package im.webuzz.config.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Immutable key/value store of configuration items, read-optimized for binding.
+ *
+ * Items are collected by a {@link Builder} while loading, then frozen into
+ * open addressing arrays over interned keys. Once built, the store is never
+ * modified, so it can be read by multiple binding threads without locking.
+ * Use {@link #toProperties()} only for the update(Properties) callback.
+ */
+public class ConfigItemStore {
+
+	public static final ConfigItemStore EMPTY = new ConfigItemStore(new HashMap<String, String>());
+
+	private final String[] keys;
+	private final String[] values;
+	private final int mask;
+	private final int size;
+
+	private volatile ConfigKeyIndex keyIndex;
+
+	/**
+	 * Mutable builder, used while loading resources only. Not thread safe.
+	 */
+	public static class Builder {
+
+		private final Map<String, String> items;
+
+		Builder(Map<String, String> items) {
+			this.items = items;
+		}
+
+		public void put(String key, String value) {
+			items.put(key, value);
+		}
+
+		public boolean containsKey(String key) {
+			return items.containsKey(key);
+		}
+
+		/**
+		 * Put all items of the given store, overriding existing items.
+		 * @param store
+		 */
+		public void putAll(ConfigItemStore store) {
+			for (int i = 0; i < store.keys.length; i++) {
+				if (store.keys[i] != null) items.put(store.keys[i], store.values[i]);
+			}
+		}
+
+		/**
+		 * Load items in .properties format, later items override earlier ones.
+		 * @param reader
+		 * @throws IOException
+		 */
+		public void load(Reader reader) throws IOException {
+			// Use Properties' line parser only, items go into this builder directly
+			new Properties() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				public synchronized Object put(Object key, Object value) {
+					items.put((String) key, (String) value);
+					return null;
+				}
+			}.load(reader);
+		}
+
+		public ConfigItemStore build() {
+			return items.isEmpty() ? EMPTY : new ConfigItemStore(items);
+		}
+
+	}
+
+	private ConfigItemStore(Map<String, String> items) {
+		int count = items.size();
+		int capacity = 4;
+		while (capacity < count * 2) capacity <<= 1;
+		keys = new String[capacity];
+		values = new String[capacity];
+		mask = capacity - 1;
+		for (Map.Entry<String, String> entry : items.entrySet()) {
+			String key = entry.getKey().intern();
+			int idx = hash(key) & mask;
+			while (keys[idx] != null) idx = (idx + 1) & mask;
+			keys[idx] = key;
+			values[idx] = entry.getValue();
+		}
+		size = count;
+	}
+
+	private static int hash(String key) {
+		int h = key.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	public String get(String key) {
+		int idx = hash(key) & mask;
+		String k;
+		while ((k = keys[idx]) != null) {
+			if (k == key || k.equals(key)) return values[idx];
+			idx = (idx + 1) & mask;
+		}
+		return null;
+	}
+
+	public boolean containsKey(String key) {
+		return get(key) != null;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Return the sorted key index, built on first call.
+	 * @return
+	 */
+	public ConfigKeyIndex getKeyIndex() {
+		ConfigKeyIndex index = keyIndex;
+		if (index == null) {
+			String[] allKeys = new String[size];
+			int count = 0;
+			for (String k : keys) {
+				if (k != null) allKeys[count++] = k;
+			}
+			index = new ConfigKeyIndex(allKeys);
+			keyIndex = index;
+		}
+		return index;
+	}
+
+	/**
+	 * Return keys which are added, removed or modified compared to the given
+	 * previous items, together with all their parent keys. e.g. changed key
+	 * "a.b.c" will also mark "a.b" and "a" as changed.
+	 * @param previous
+	 * @return
+	 */
+	public Set<String> getChangedKeys(ConfigItemStore previous) {
+		Set<String> changed = new HashSet<String>();
+		for (int i = 0; i < keys.length; i++) {
+			String k = keys[i];
+			if (k != null && !values[i].equals(previous.get(k))) addKeyAndParents(changed, k);
+		}
+		for (int i = 0; i < previous.keys.length; i++) {
+			String k = previous.keys[i];
+			if (k != null && get(k) == null) addKeyAndParents(changed, k);
+		}
+		return changed;
+	}
+
+	private static void addKeyAndParents(Set<String> changed, String key) {
+		if (!changed.add(key)) return;
+		int idx = key.lastIndexOf('.');
+		while (idx > 0) {
+			if (!changed.add(key.substring(0, idx))) return; // parents are already added
+			idx = key.lastIndexOf('.', idx - 1);
+		}
+	}
+
+	/**
+	 * Return a builder containing all existing items, for appending more items.
+	 * @return
+	 */
+	public Builder toBuilder() {
+		Map<String, String> items = new HashMap<String, String>(size * 2);
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != null) items.put(keys[i], values[i]);
+		}
+		return new Builder(items);
+	}
+
+	/**
+	 * Return a new Properties copy of all items, for update(Properties) callbacks.
+	 * @return
+	 */
+	public Properties toProperties() {
+		Properties props = new Properties();
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != null) props.put(keys[i], values[i]);
+		}
+		return props;
+	}
+
+}
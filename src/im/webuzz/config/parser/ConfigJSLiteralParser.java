@@ -0,0 +1,783 @@
+package im.webuzz.config.parser;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import im.webuzz.config.Config;
+import im.webuzz.config.codec.ConfigCodec;
+
+/**
+ * Parser for .js configuration files which only contain an object literal,
+ * e.g. files generated by ConfigJSGenerator, without any script engine.
+ *
+ * Supported: [$config =] value [;], with object and array literals, single or
+ * double quoted strings (and concatenations of strings), numbers, true, false,
+ * null and comments. Any other script returns false from #parse, and should
+ * be evaluated by the script engine.
+ *
+ * Items are generated in the same way as ConfigJSToProps.js does, and put
+ * into the builder directly without generating .ini content.
+ *
+ * In JSON mode, only strict JSON (RFC 8259) is accepted: no "$config =" or
+ * trailing ";", no comments, single quotes, unquoted or numeric keys,
+ * concatenations, hexadecimal numbers, "+" signs or trailing commas. #parse
+ * returns false at the first non-JSON token, see #getPosition. U+2028 and
+ * U+2029 are allowed in strings, and integers beyond double precision keep all
+ * their digits, e.g. long IDs.
+ */
+public class ConfigJSLiteralParser {
+
+	// Parsed values: String, Double, BigInteger (JSON mode), Boolean, null, JSObject or JSArray
+	private static class JSObject extends LinkedHashMap<String, Object> {
+		private static final long serialVersionUID = 1L;
+	}
+
+	private static class JSArray extends ArrayList<Object> {
+		private static final long serialVersionUID = 1L;
+	}
+
+	// Script is not in the supported literal format
+	private static class UnsupportedException extends Exception {
+		private static final long serialVersionUID = 1L;
+	}
+
+	private static final UnsupportedException unsupported = new UnsupportedException();
+
+	private final ConfigItemStore.Builder builder;
+	private final boolean json;
+
+	private String src;
+	private int pos;
+	private int length;
+
+	// Generated key/value lines, put into builder only if the whole script is supported
+	private List<String> keys;
+	private List<String> values;
+	private String[] codecKeys;
+
+	public ConfigJSLiteralParser(ConfigItemStore.Builder builder) {
+		this(builder, false);
+	}
+
+	public ConfigJSLiteralParser(ConfigItemStore.Builder builder, boolean json) {
+		super();
+		this.builder = builder;
+		this.json = json;
+	}
+
+	/**
+	 * Return the offset where the last #parse stopped, e.g. the position of an
+	 * unsupported token.
+	 * @return
+	 */
+	public int getPosition() {
+		return pos;
+	}
+
+	/**
+	 * Parse the given script and put all items into the builder.
+	 * @param js
+	 * @return false if the script is not a plain object literal, nothing is put into the builder.
+	 */
+	public boolean parse(String js) {
+		src = js;
+		pos = 0;
+		length = js.length();
+		Object config = null;
+		try {
+			config = parseProgram();
+			keys = new ArrayList<String>();
+			values = new ArrayList<String>();
+			Map<String, ConfigCodec<?>> codecs = Config.configurationCodecs;
+			codecKeys = codecs == null ? null : codecs.keySet().toArray(new String[codecs.size()]);
+			visit(null, config);
+		} catch (UnsupportedException e) {
+			return false;
+		}
+		StringBuilder debug = ConfigJSParser.jsToINIDebugOutput ? new StringBuilder() : null;
+		ConfigINILines lines = new ConfigINILines(builder);
+		for (int i = 0; i < keys.size(); i++) {
+			String key = keys.get(i);
+			String value = values.get(i);
+			if (debug != null) debug.append(key).append('=').append(value).append("\r\n");
+			// Line breaks are escaped as ConfigJSToProps.js does
+			lines.add(escapeLineBreaks(key), escapeLineBreaks(value));
+		}
+		lines.flush();
+		if (debug != null) System.out.println(debug);
+		return true;
+	}
+
+	private static String escapeLineBreaks(String str) {
+		if (str.indexOf('\n') == -1 && str.indexOf('\r') == -1) return str;
+		return str.replace("\n", "\\n").replace("\r", "\\r");
+	}
+
+	private void addLine(String key, String text) {
+		keys.add(String.valueOf(key)); // null prefix is "null" in JavaScript string concatenation, too
+		values.add(text);
+	}
+
+	/*
+	 * Same as ConfigJSToProps.js#visit.
+	 */
+	private void visit(String prefix, Object o) throws UnsupportedException {
+		if (o == null) {
+			addLine(prefix, "[null]");
+			return;
+		}
+		if (o instanceof String) {
+			addLine(prefix, formatPropertyValue((String) o));
+			return;
+		}
+		if (o instanceof Number || o instanceof Boolean) {
+			addLine(prefix, toJSString(o));
+			return;
+		}
+		boolean skipClass = false;
+		String oClass = null;
+		boolean needsTypePrefix = false;
+		if (o instanceof JSObject) {
+			Object c = ((JSObject) o).get("class");
+			if (c != null) {
+				if (!(c instanceof String)) throw unsupported;
+				oClass = (String) c;
+				if (oClass.startsWith("array") || oClass.startsWith("list") || oClass.startsWith("set")) {
+					o = ((JSObject) o).get("value");
+					if (o == null) {
+						addLine(prefix, "[null]");
+						return;
+					}
+					if (!(o instanceof JSArray)) throw unsupported;
+				} else {
+					// ConfigJSToProps.js checks indexOf("object" != 0), which is indexOf("true")
+					if (!oClass.startsWith("map") && !oClass.startsWith("true")) {
+						// e.g. "class": "com.company.ClassA",
+						needsTypePrefix = true;
+					}
+					skipClass = true; // ignoring the first "class" property
+				}
+			}
+		}
+		if (o instanceof JSArray) {
+			JSArray arr = (JSArray) o;
+			int size = arr.size();
+			if (size == 0) {
+				addLine(prefix, "[empty]");
+			} else if (oClass == null && isPlainArray(arr, prefix)) {
+				StringBuilder objBuilder = new StringBuilder();
+				for (int i = 0; i < size; i++) {
+					Object pv = arr.get(i);
+					if (pv == null) {
+						pv = "[null]";
+					} else if ("".equals(pv)) {
+						pv = "[empty]";
+					}
+					if (i > 0) objBuilder.append(';');
+					objBuilder.append(pv instanceof String ? formatPropertyValue((String) pv) : toJSString(pv));
+				}
+				addLine(prefix, objBuilder.toString());
+			} else {
+				// Map "entries" is an array which needs to skip its "[array] or []".
+				// It is defined in last map's key-value line.
+				boolean skipEntries = false;
+				int lines = keys.size();
+				if (oClass == null && lines > 0) {
+					String lastLine = keys.get(lines - 1) + "=" + values.get(lines - 1);
+					skipEntries = lastLine.startsWith(prefix + "=");
+				}
+				if (!skipEntries) {
+					addConstructor(prefix, oClass, needsTypePrefix, false);
+				}
+				int maxZeros = String.valueOf(size).length();
+				StringBuilder index = new StringBuilder();
+				for (int i = 0; i < size; i++) {
+					index.setLength(0);
+					index.append(prefix).append('.');
+					String idx = String.valueOf(i);
+					for (int j = idx.length(); j < maxZeros; j++) {
+						index.append('0');
+					}
+					index.append(idx);
+					visit(index.toString(), arr.get(i));
+				}
+			}
+			return;
+		}
+		JSObject obj = (JSObject) o;
+		if (oClass == null && prefix != null && isPlainObject(obj, prefix)) {
+			StringBuilder objBuilder = new StringBuilder();
+			int fields = 0;
+			String type = null;
+			Object value = null;
+			for (Map.Entry<String, Object> entry : obj.entrySet()) {
+				String p = entry.getKey();
+				Object pv = entry.getValue();
+				if (pv == null) {
+					pv = "[null]";
+				} else if ("".equals(pv)) {
+					pv = "[empty]";
+				}
+				if (fields > 0) objBuilder.append(';');
+				objBuilder.append(p).append('>').append(pv instanceof String ? formatPropertyValue((String) pv) : toJSString(pv));
+				fields++;
+				if (fields == 1) {
+					type = p;
+					value = pv;
+				}
+			}
+			if (fields == 1) {
+				if ("Integer".equals(type) || "Long".equals(type)
+						|| "Byte".equals(type) || "Short".equals(type)
+						|| "Double".equals(type) || "Float".equals(type)
+						|| "String".equals(type) || "Class".equals(type)
+						|| "BigDecimal".equals(type) || "BigInteger".equals(type)
+						|| "Boolean".equals(type) || "Character".equals(type)
+						|| "Enum".equals(type)) {
+					addLine(prefix, "[" + type + ":" + toJSString(value) + "]");
+					return;
+				}
+				if (codecKeys != null) {
+					for (String codecKey : codecKeys) {
+						if (codecKey.equals(type)) {
+							addLine(prefix, "[" + type + ":" + toJSString(value) + "]");
+							return;
+						}
+					}
+				}
+			}
+			addLine(prefix, fields == 0 ? "[empty]" : objBuilder.toString());
+			return;
+		}
+		boolean generated = false;
+		for (Map.Entry<String, Object> entry : obj.entrySet()) {
+			String p = entry.getKey();
+			if (skipClass && "class".equals(p)) continue;
+			Object pv = entry.getValue();
+			if (prefix == null) {
+				visit(p, pv);
+			} else {
+				if (!generated) {
+					addConstructor(prefix, oClass, needsTypePrefix, false);
+				}
+				if ("entries".equals(p) && pv != null && jsLength(pv) > 0) {
+					visit(prefix, pv);
+				} else {
+					visit(prefix + "." + p, pv);
+				}
+			}
+			generated = true;
+		}
+		if (!generated) {
+			addConstructor(prefix, oClass, true, oClass == null);
+		}
+	}
+
+	// Value of JavaScript's o.length > 0 check
+	private static int jsLength(Object o) throws UnsupportedException {
+		if (o instanceof JSArray) return ((JSArray) o).size();
+		if (o instanceof String) return ((String) o).length();
+		if (o instanceof JSObject && ((JSObject) o).containsKey("length")) throw unsupported;
+		return 0;
+	}
+
+	private static boolean isPlainObject(JSObject o, String prefix) {
+		int fieldCount = 0;
+		int strLength = prefix == null ? 0 : (prefix.length() + 1);
+		for (Map.Entry<String, Object> entry : o.entrySet()) {
+			Object op = entry.getValue();
+			if (op == null) continue;
+			if (!(op instanceof String || op instanceof Number || op instanceof Boolean)) {
+				return false;
+			}
+			if (op instanceof String) {
+				String s = (String) op;
+				strLength += entry.getKey().length() + 1 + s.length();
+				if (strLength > 100 || !isPlainString(s)) return false;
+			}
+			fieldCount++;
+		}
+		if (fieldCount > 8) return false;
+		return true;
+	}
+
+	private static boolean isPlainArray(JSArray o, String prefix) {
+		int size = o.size();
+		if (size > 15) return false;
+		int strLength = prefix == null ? 0 : (prefix.length() + 1);
+		for (int i = 0; i < size; i++) {
+			Object op = o.get(i);
+			if (op == null) continue;
+			if (!(op instanceof String || op instanceof Number || op instanceof Boolean)) {
+				return false;
+			}
+			if (op instanceof String) {
+				String s = (String) op;
+				strLength += s.length() + 1;
+				if (strLength > 100 || !isPlainString(s)) return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isPlainString(String s) {
+		if (s.indexOf('>') != -1 || s.indexOf(';') != -1
+				|| s.indexOf('\n') != -1 || s.indexOf('\r') != -1) {
+			return false;
+		}
+		int sLength = s.length();
+		// JavaScript's charAt returns "" for out of range index
+		return !(sLength > 0 && s.charAt(0) == '[' && s.charAt(sLength - 1) == ']');
+	}
+
+	private static String formatPropertyValue(String str) {
+		if (str.length() == 0) return "[empty]";
+		StringBuilder builder = new StringBuilder(str.length() + 8);
+		int strLength = str.length();
+		for (int i = 0; i < strLength; i++) {
+			char c = str.charAt(i);
+			switch (c) {
+			case '\\': builder.append("\\\\"); break;
+			case '\r': builder.append("\\r"); break;
+			case '\n': builder.append("\\n"); break;
+			case '\t': builder.append("\\t"); break;
+			case '!': builder.append("\\!"); break;
+			case '#': builder.append("\\#"); break;
+			default: builder.append(c);
+			}
+		}
+		int length = builder.length();
+		if (builder.charAt(length - 1) == ' ') builder.insert(length - 1, '\\');
+		if (builder.charAt(0) == ' ') builder.insert(0, '\\');
+		return builder.toString();
+	}
+
+	/*
+	 * Same as ConfigJSToProps.js#appendConstructor, which joins the line from
+	 * an array, where null prefix is an empty string.
+	 */
+	private void addConstructor(String prefix, String oClass, boolean needsTypePrefix, boolean empty) {
+		StringBuilder builder = new StringBuilder();
+		builder.append('[');
+		if (oClass != null) {
+			if (needsTypePrefix) {
+				if (oClass.length() > 0 && oClass.charAt(0) == '@') {
+					builder.append("annotation:");
+				} else {
+					builder.append("object:");
+				}
+			}
+			builder.append(oClass);
+		} else if (empty) {
+			builder.append("empty");
+		}
+		builder.append(']');
+		addLine(prefix == null ? "" : prefix, builder.toString());
+	}
+
+	private static String toJSString(Object o) {
+		if (o instanceof Double) return toJSString(((Double) o).doubleValue());
+		return String.valueOf(o);
+	}
+
+	/*
+	 * Same as JavaScript's Number#toString: shortest digits which can be parsed
+	 * back to the same double, in plain or exponent format.
+	 */
+	static String toJSString(double d) {
+		if (Double.isNaN(d)) return "NaN";
+		if (Double.isInfinite(d)) return d > 0 ? "Infinity" : "-Infinity";
+		if (d == 0) return "0";
+		if (d == Math.rint(d) && Math.abs(d) < 9007199254740992.0) return String.valueOf((long) d);
+		BigDecimal exact = new BigDecimal(d);
+		BigDecimal shortest = exact;
+		for (int precision = 1; precision <= 17; precision++) {
+			BigDecimal rounded = exact.round(new MathContext(precision, RoundingMode.HALF_EVEN));
+			if (rounded.doubleValue() == d) {
+				shortest = rounded;
+				break;
+			}
+		}
+		shortest = shortest.stripTrailingZeros();
+		String digits = shortest.unscaledValue().abs().toString();
+		int k = digits.length();
+		int n = k - shortest.scale();
+		StringBuilder builder = new StringBuilder();
+		if (d < 0) builder.append('-');
+		if (k <= n && n <= 21) {
+			builder.append(digits);
+			for (int i = k; i < n; i++) {
+				builder.append('0');
+			}
+		} else if (0 < n && n <= 21) {
+			builder.append(digits, 0, n).append('.').append(digits, n, k);
+		} else if (-6 < n && n <= 0) {
+			builder.append("0.");
+			for (int i = n; i < 0; i++) {
+				builder.append('0');
+			}
+			builder.append(digits);
+		} else {
+			builder.append(digits.charAt(0));
+			if (k > 1) builder.append('.').append(digits, 1, k);
+			builder.append('e').append(n - 1 >= 0 ? '+' : '-').append(Math.abs(n - 1));
+		}
+		return builder.toString();
+	}
+
+	/*
+	 * Program: [$config =]* value [;]
+	 */
+	private Object parseProgram() throws UnsupportedException {
+		if (json && length > 0 && src.charAt(0) == '\uFEFF') pos++; // byte order mark
+		skipSpaces();
+		while (!json && src.startsWith("$config", pos)) {
+			int next = pos + 7;
+			if (next < length && isIdentifierPart(src.charAt(next))) throw unsupported;
+			pos = next;
+			skipSpaces();
+			if (pos >= length || src.charAt(pos) != '=' || (pos + 1 < length && src.charAt(pos + 1) == '=')) {
+				throw unsupported;
+			}
+			pos++;
+			skipSpaces();
+		}
+		Object value = parseValue();
+		skipSpaces();
+		if (!json && pos < length && src.charAt(pos) == ';') {
+			pos++;
+			skipSpaces();
+		}
+		if (pos < length) throw unsupported; // more statements
+		return value;
+	}
+
+	private Object parseValue() throws UnsupportedException {
+		if (pos >= length) throw unsupported;
+		char c = src.charAt(pos);
+		if (c == '{') return parseObject();
+		if (c == '[') return parseArray();
+		if (c == '"' || (c == '\'' && !json)) {
+			String s = parseString();
+			if (json) return s;
+			skipSpaces();
+			while (pos < length && src.charAt(pos) == '+') {
+				pos++;
+				skipSpaces();
+				if (pos >= length || (src.charAt(pos) != '"' && src.charAt(pos) != '\'')) throw unsupported;
+				s = s + parseString();
+				skipSpaces();
+			}
+			return s;
+		}
+		if (c == '-' || (c == '+' && !json)) {
+			pos++;
+			if (!json) skipSpaces();
+			Object n = parseNumberValue();
+			if (c != '-') return n;
+			return n instanceof Double ? (Object) Double.valueOf(-((Double) n).doubleValue()) : ((BigInteger) n).negate();
+		}
+		if ((c >= '0' && c <= '9') || (c == '.' && !json)) return parseNumberValue();
+		if (matchWord("true")) return Boolean.TRUE;
+		if (matchWord("false")) return Boolean.FALSE;
+		if (matchWord("null")) return null;
+		throw unsupported;
+	}
+
+	private boolean matchWord(String word) {
+		if (!src.startsWith(word, pos)) return false;
+		int next = pos + word.length();
+		if (next < length && isIdentifierPart(src.charAt(next))) return false;
+		pos = next;
+		return true;
+	}
+
+	private JSObject parseObject() throws UnsupportedException {
+		pos++; // {
+		JSObject obj = new JSObject();
+		boolean indexKeys = false;
+		boolean comma = false;
+		while (true) {
+			skipSpaces();
+			if (pos >= length) throw unsupported;
+			char c = src.charAt(pos);
+			if (c == '}') {
+				if (comma && json) throw unsupported; // trailing comma
+				pos++;
+				break;
+			}
+			String key;
+			if (c == '"' || (c == '\'' && !json)) {
+				key = parseString();
+			} else if (json) {
+				throw unsupported; // keys must be strings
+			} else if ((c >= '0' && c <= '9') || c == '.') {
+				key = toJSString(parseNumber());
+			} else if (isIdentifierStart(c)) {
+				int start = pos;
+				while (pos < length && isIdentifierPart(src.charAt(pos))) pos++;
+				key = src.substring(start, pos);
+			} else {
+				throw unsupported;
+			}
+			if ("__proto__".equals(key)) throw unsupported;
+			skipSpaces();
+			if (pos >= length || src.charAt(pos) != ':') throw unsupported; // e.g. getter or setter
+			pos++;
+			skipSpaces();
+			Object value = parseValue();
+			// Redefined property is moved to the end, same as the script engine
+			if (obj.containsKey(key)) obj.remove(key);
+			obj.put(key, value);
+			if (!indexKeys && isArrayIndex(key)) indexKeys = true;
+			skipSpaces();
+			if (pos >= length) throw unsupported;
+			c = src.charAt(pos);
+			comma = c == ',';
+			if (comma) {
+				pos++;
+			} else if (c != '}') {
+				throw unsupported;
+			}
+		}
+		if (!indexKeys) return obj;
+		// Array index keys are enumerated first, in ascending order
+		TreeMap<Long, Object> indexes = new TreeMap<Long, Object>();
+		JSObject others = new JSObject();
+		for (Map.Entry<String, Object> entry : obj.entrySet()) {
+			String key = entry.getKey();
+			if (isArrayIndex(key)) {
+				indexes.put(Long.valueOf(key), entry.getValue());
+			} else {
+				others.put(key, entry.getValue());
+			}
+		}
+		JSObject sorted = new JSObject();
+		for (Map.Entry<Long, Object> entry : indexes.entrySet()) {
+			sorted.put(String.valueOf(entry.getKey()), entry.getValue());
+		}
+		sorted.putAll(others);
+		return sorted;
+	}
+
+	private static boolean isArrayIndex(String key) {
+		int keyLength = key.length();
+		if (keyLength == 0 || keyLength > 10) return false;
+		if (key.charAt(0) == '0') return keyLength == 1;
+		for (int i = 0; i < keyLength; i++) {
+			char c = key.charAt(i);
+			if (c < '0' || c > '9') return false;
+		}
+		return Long.parseLong(key) < 4294967295L;
+	}
+
+	private JSArray parseArray() throws UnsupportedException {
+		pos++; // [
+		JSArray arr = new JSArray();
+		boolean comma = false;
+		while (true) {
+			skipSpaces();
+			if (pos >= length) throw unsupported;
+			char c = src.charAt(pos);
+			if (c == ']') {
+				if (comma && json) throw unsupported; // trailing comma
+				pos++;
+				break;
+			}
+			if (c == ',') throw unsupported; // holes
+			arr.add(parseValue());
+			skipSpaces();
+			if (pos >= length) throw unsupported;
+			c = src.charAt(pos);
+			comma = c == ',';
+			if (comma) {
+				pos++;
+			} else if (c != ']') {
+				throw unsupported;
+			}
+		}
+		return arr;
+	}
+
+	private String parseString() throws UnsupportedException {
+		char quote = src.charAt(pos++);
+		StringBuilder builder = null;
+		int start = pos;
+		while (pos < length) {
+			char c = src.charAt(pos);
+			if (c == quote) {
+				String s = builder == null ? src.substring(start, pos) : builder.append(src, start, pos).toString();
+				pos++;
+				return s;
+			}
+			if (c == '\n' || c == '\r') throw unsupported;
+			if (json ? c < 0x20 : (c == '\u2028' || c == '\u2029')) throw unsupported;
+			if (c != '\\') {
+				pos++;
+				continue;
+			}
+			if (builder == null) builder = new StringBuilder();
+			builder.append(src, start, pos);
+			pos++;
+			if (pos >= length) throw unsupported;
+			c = src.charAt(pos);
+			if (json && "\"\\/bfnrtu".indexOf(c) == -1) throw unsupported;
+			pos++;
+			switch (c) {
+			case 'n': builder.append('\n'); break;
+			case 't': builder.append('\t'); break;
+			case 'r': builder.append('\r'); break;
+			case 'b': builder.append('\b'); break;
+			case 'f': builder.append('\f'); break;
+			case 'v': builder.append('\u000B'); break;
+			case '0':
+				if (pos < length && src.charAt(pos) >= '0' && src.charAt(pos) <= '9') throw unsupported; // octal
+				builder.append('\0');
+				break;
+			case 'x': builder.append((char) parseHex(2)); break;
+			case 'u': builder.append((char) parseHex(4)); break;
+			case '\r':
+				if (pos < length && src.charAt(pos) == '\n') pos++;
+				break; // line continuation
+			case '\n':
+			case '\u2028':
+			case '\u2029':
+				break; // line continuation
+			default:
+				if (c >= '1' && c <= '9') throw unsupported; // octal
+				builder.append(c);
+			}
+			start = pos;
+		}
+		throw unsupported;
+	}
+
+	private int parseHex(int digits) throws UnsupportedException {
+		if (pos + digits > length) throw unsupported;
+		int value = 0;
+		for (int i = 0; i < digits; i++) {
+			char c = src.charAt(pos++);
+			if (c >= '0' && c <= '9') {
+				value = (value << 4) + c - '0';
+			} else if (c >= 'a' && c <= 'f') {
+				value = (value << 4) + 10 + c - 'a';
+			} else if (c >= 'A' && c <= 'F') {
+				value = (value << 4) + 10 + c - 'A';
+			} else {
+				throw unsupported;
+			}
+		}
+		return value;
+	}
+
+	private Object parseNumberValue() throws UnsupportedException {
+		int start = pos;
+		double d = parseNumber();
+		if (json && Math.abs(d) >= 9007199254740992.0 && !Double.isInfinite(d)) {
+			String digits = src.substring(start, pos);
+			boolean integer = true;
+			for (int i = 0; i < digits.length(); i++) {
+				char c = digits.charAt(i);
+				if (c < '0' || c > '9') {
+					integer = false;
+					break;
+				}
+			}
+			// Not exactly representable by double, keep all digits
+			if (integer) return new BigInteger(digits);
+		}
+		return Double.valueOf(d);
+	}
+
+	private double parseNumber() throws UnsupportedException {
+		int start = pos;
+		if (json && (pos >= length || src.charAt(pos) < '0' || src.charAt(pos) > '9')) throw unsupported;
+		if (!json && pos + 1 < length && src.charAt(pos) == '0'
+				&& (src.charAt(pos + 1) == 'x' || src.charAt(pos + 1) == 'X')) {
+			pos += 2;
+			int hexStart = pos;
+			while (pos < length && Character.digit(src.charAt(pos), 16) != -1) pos++;
+			if (pos == hexStart || (pos < length && isIdentifierPart(src.charAt(pos)))) throw unsupported;
+			return new BigInteger(src.substring(hexStart, pos), 16).doubleValue();
+		}
+		int intDigits = 0;
+		while (pos < length && src.charAt(pos) >= '0' && src.charAt(pos) <= '9') {
+			pos++;
+			intDigits++;
+		}
+		if (intDigits > 1 && src.charAt(start) == '0') throw unsupported; // octal
+		int fractionDigits = 0;
+		if (pos < length && src.charAt(pos) == '.') {
+			pos++;
+			while (pos < length && src.charAt(pos) >= '0' && src.charAt(pos) <= '9') {
+				pos++;
+				fractionDigits++;
+			}
+			if (json && fractionDigits == 0) throw unsupported;
+		}
+		if (intDigits == 0 && fractionDigits == 0) throw unsupported;
+		if (pos < length && (src.charAt(pos) == 'e' || src.charAt(pos) == 'E')) {
+			pos++;
+			if (pos < length && (src.charAt(pos) == '+' || src.charAt(pos) == '-')) pos++;
+			int expStart = pos;
+			while (pos < length && src.charAt(pos) >= '0' && src.charAt(pos) <= '9') pos++;
+			if (pos == expStart) throw unsupported;
+		}
+		if (pos < length && isIdentifierPart(src.charAt(pos))) throw unsupported;
+		return Double.parseDouble(src.substring(start, pos));
+	}
+
+	private void skipSpaces() throws UnsupportedException {
+		if (json) {
+			while (pos < length) {
+				char c = src.charAt(pos);
+				if (c != ' ' && c != '\t' && c != '\n' && c != '\r') return;
+				pos++;
+			}
+			return;
+		}
+		while (pos < length) {
+			char c = src.charAt(pos);
+			if (c == '/' && pos + 1 < length) {
+				char next = src.charAt(pos + 1);
+				if (next == '/') {
+					pos += 2;
+					while (pos < length && (c = src.charAt(pos)) != '\n' && c != '\r'
+							&& c != '\u2028' && c != '\u2029') {
+						pos++;
+					}
+					continue;
+				} else if (next == '*') {
+					int end = src.indexOf("*/", pos + 2);
+					if (end == -1) throw unsupported;
+					pos = end + 2;
+					continue;
+				}
+				return;
+			}
+			if (c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\u000B' || c == '\f'
+					|| c == '\u00A0' || c == '\uFEFF' || c == '\u2028' || c == '\u2029'
+					|| Character.getType(c) == Character.SPACE_SEPARATOR) {
+				pos++;
+				continue;
+			}
+			return;
+		}
+	}
+
+	private static boolean isIdentifierStart(char c) {
+		return c == '$' || c == '_' || Character.isLetter(c);
+	}
+
+	private static boolean isIdentifierPart(char c) {
+		return c == '$' || c == '_' || Character.isLetterOrDigit(c);
+	}
+
+}
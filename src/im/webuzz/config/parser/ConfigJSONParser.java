@@ -0,0 +1,87 @@
+package im.webuzz.config.parser;
+
+import java.io.InputStream;
+import java.util.Set;
+
+import im.webuzz.config.Config;
+
+/**
+ * Parser for .json configuration files.
+ *
+ * JSON is parsed natively by ConfigJSLiteralParser, items are the same as the
+ * .js configuration with the same object, so no script engine is needed.
+ * Only strict JSON is accepted, JavaScript extensions like comments, single
+ * quotes or unquoted keys are rejected. Invalid JSON is reported with its
+ * line and column, and no items are loaded.
+ */
+public class ConfigJSONParser implements ConfigParser<InputStream, Object>, ConfigIncrementalParser {
+
+	private ConfigINIParser iniParser;
+
+	public ConfigJSONParser() {
+		super();
+		iniParser = new ConfigINIParser();
+	}
+
+	private ConfigItemStore convertToItems(byte[] content) {
+		String json = new String(content, Config.configFileEncoding);
+		ConfigItemStore.Builder builder = ConfigItemStore.EMPTY.toBuilder();
+		ConfigJSLiteralParser parser = new ConfigJSLiteralParser(builder, true);
+		if (!parser.parse(json)) {
+			int offset = Math.min(parser.getPosition(), json.length());
+			int line = 1;
+			int column = 1;
+			for (int i = 0; i < offset; i++) {
+				if (json.charAt(i) == '\n') {
+					line++;
+					column = 1;
+				} else {
+					column++;
+				}
+			}
+			throw new RuntimeException("Invalid JSON configuration at line " + line + ", column " + column
+					+ " (offset " + offset + ")!");
+		}
+		return builder.build();
+	}
+
+	@Override
+	public Object loadResource(InputStream fis, boolean combinedConfigs) {
+		if (fis == null) return null;
+		iniParser.combinedConfigs = combinedConfigs;
+		try {
+			byte[] content = ConfigJSParser.readBytes(fis);
+			String cacheKey = ConfigConversionCache.getKey(".json", content);
+			ConfigItemStore items = ConfigConversionCache.get(cacheKey);
+			if (items == null) {
+				items = convertToItems(content);
+				ConfigConversionCache.put(cacheKey, items);
+			}
+			iniParser.loadItems(items);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+		return null;
+	}
+
+	@Override
+	public int parseConfiguration(Class<?> clz, int flag) {
+		return iniParser.parseConfiguration(clz, flag);
+	}
+
+	@Override
+	public ConfigItemStore getItems() {
+		return iniParser.getItems();
+	}
+
+	@Override
+	public void setPreviousItems(ConfigItemStore items) {
+		iniParser.setPreviousItems(items);
+	}
+
+	@Override
+	public Set<String> unusedConfigurationItems() {
+		return iniParser.unusedConfigurationItems();
+	}
+
+}
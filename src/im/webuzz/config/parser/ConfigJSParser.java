@@ -19,28 +19,114 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.lang.reflect.Method;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptEngine;
 import javax.script.ScriptEngineFactory;
 import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
 
 import im.webuzz.config.Config;
 import im.webuzz.config.codec.ConfigCodec;
+import im.webuzz.config.common.ByteBufferInputStream;
 
-public class ConfigJSParser implements ConfigParser<InputStream, Object> {
+public class ConfigJSParser implements ConfigParser<InputStream, Object>, ConfigIncrementalParser {
 
 	public static boolean jsToINIDebugOutput = false;
-	
+
+	// Parse plain object literal configurations without the script engine
+	public static boolean jsNativeParsing = true;
+
+	// Maximum idle script engines kept for reusing. Engines are created on demand,
+	// so concurrent conversions never wait for each other.
+	public static int jsEnginePoolSize = 4;
+
+	// Maximum milliseconds to evaluate a script, 0 for no limit. Scripts are evaluated
+	// on worker threads, a script running out of time is interrupted and its engine
+	// is dropped, so the loader thread can continue with other files.
+	public static long jsEvaluationTimeout = 10000;
+
+	// Maximum characters of the properties converted from a script, 0 for no limit.
+	// The converter script stops as soon as its output exceeds this limit.
+	public static int jsMaxOutputLength = 16 * 1024 * 1024;
+
+	// Maximum timed out scripts which are still running, e.g. infinite loops ignoring
+	// interruption. More scripts are rejected until some of them stop.
+	public static int jsMaxTimedOutScripts = 4;
+
+	private static final String convertCall = "new $imwebuzzconfigparser().convertToProperties($config, ";
+
 	private static String convertJS = null;
+	private static ScriptEngineFactory nashornFactory = null;
+	private static String engineFactoryName = null;
+	private static volatile boolean initialized = false;
 
-	private static Object jsEngine = null;
-	private static Method evalMethod = null;
-	private static boolean initialized = false;
-	
-	private static boolean checkInitialize() throws Exception {
+	private static Queue<JSEngine> idleEngines = new ConcurrentLinkedQueue<JSEngine>();
+
+	private static volatile ThreadPoolExecutor evaluator = null;
+	private static AtomicInteger timedOutScripts = new AtomicInteger();
+
+	// Cached "$configurationCodecs = [...];" statement for the current codecs
+	private static volatile Object lastCodecs = null;
+	private static volatile String codecsStatement = null;
+
+	/*
+	 * Script engine with the converter script compiled, used by one thread at a time.
+	 * Each conversion runs in new bindings, so scripts can not see or modify
+	 * variables of other configuration files.
+	 */
+	private static class JSEngine {
+
+		private final ScriptEngine engine;
+		private final CompiledScript converter; // null if the engine is not Compilable
+
+		JSEngine(ScriptEngine engine) throws ScriptException {
+			this.engine = engine;
+			this.converter = engine instanceof Compilable ? ((Compilable) engine).compile(convertJS) : null;
+		}
+
+		private void loadConverter(Bindings bindings) throws ScriptException {
+			if (converter != null) {
+				converter.eval(bindings);
+			} else {
+				engine.eval(convertJS, bindings);
+			}
+		}
+
+		Object convert(String js, int maxLength) throws ScriptException {
+			Bindings bindings = engine.createBindings();
+			loadConverter(bindings);
+			String call = convertCall + maxLength + ");";
+			try {
+				return engine.eval(js + call, bindings);
+			} catch (ScriptException ex) {
+				ex.printStackTrace();
+				// If malicious js modifies #convertToProperties, try to correct it to original converter.
+				// So normal js configuration won't be affected.
+				loadConverter(bindings);
+				return engine.eval(call, bindings);
+			}
+		}
+
+	}
+
+	private static synchronized boolean checkInitialize() throws Exception {
 		if (initialized) {
 			return true;
 		}
@@ -68,22 +154,22 @@ public class ConfigJSParser implements ConfigParser<InputStream, Object> {
 		convertJS = new String(baos.toByteArray(), Config.configFileEncoding);
 
 		ScriptEngineManager mgr = new ScriptEngineManager();
-		String factoryName = null;
+		ScriptEngineFactory factory = null;
 		for (ScriptEngineFactory f : mgr.getEngineFactories()) {
 			List<String> names = f.getNames();
 			if (names != null) {
 				for (String name : names) {
 					if ("JavaScript".equalsIgnoreCase(name)) {
-						factoryName = f.getClass().getName();
+						factory = f;
 						break;
 					}
 				}
-				if (factoryName != null) {
+				if (factory != null) {
 					break;
 				}
 			}
 		}
-		if (factoryName == null ) {
+		if (factory == null ) {
 			System.out.println("[Config:INFO] Add maven dependency to your pom.xml for nashorn JavaScript engine:");
 			System.out.println("		<!-- https://mvnrepository.com/artifact/org.openjdk.nashorn/nashorn-core -->\n"
 					+ "		<dependency>\n"
@@ -95,37 +181,37 @@ public class ConfigJSParser implements ConfigParser<InputStream, Object> {
 			System.out.println("[Config:FATAL] You need to include nashorn Javascript engine after Java 15!");
 			return false;
 		}
-		if (factoryName.indexOf(".nashorn.") != -1) {
+		engineFactoryName = factory.getClass().getName();
+		if (engineFactoryName.indexOf(".nashorn.") != -1) {
 			// For JDK 8+, Nashorn is secure, throwing exceptions on evaluating malicious script
-			jsEngine = mgr.getEngineByName("JavaScript");
-		} else {
-			// For JDK 1.6, load script engine without Java adapters or members
-			jsEngine = ConfigJSClassLoader.loadScriptEngine(factoryName);
+			nashornFactory = factory;
 		}
-		if (jsEngine != null) {
-			evalMethod = jsEngine.getClass().getMethod("eval", String.class);
-			if (evalMethod != null) {
-				evalMethod.invoke(jsEngine, convertJS);
-				initialized = true;
-			}
+		JSEngine engine = createEngine();
+		if (engine != null) {
+			idleEngines.offer(engine);
+			initialized = true;
 		}
 		return initialized;
 	}
-	
-	public InputStream convertToProperties(InputStream is) throws Exception {
-		byte[] buffer = new byte[8096];
-		int read = -1;
-		ByteArrayOutputStream baos = new ByteArrayOutputStream();
-		while ((read = is.read(buffer)) != -1) {
-			baos.write(buffer, 0, read);
-		}
-		String js = new String(baos.toByteArray(), Config.configFileEncoding).trim();
-		if (!js.endsWith(";")) {
-			js += ";";
+
+	private static JSEngine createEngine() throws ScriptException {
+		Object engine = null;
+		if (nashornFactory != null) {
+			engine = nashornFactory.getScriptEngine();
+		} else {
+			// For JDK 1.6, load script engine without Java adapters or members
+			engine = ConfigJSClassLoader.loadScriptEngine(engineFactoryName);
 		}
+		if (!(engine instanceof ScriptEngine)) return null;
+		return new JSEngine((ScriptEngine) engine);
+	}
+
+	private static String getCodecsStatement() {
+		Map<String, ConfigCodec<?>> codecs = Config.configurationCodecs;
+		String statement = codecsStatement;
+		if (statement != null && codecs == lastCodecs) return statement;
 		StringBuilder builder = new StringBuilder();
 		builder.append("$configurationCodecs = ");
-		Map<String, ConfigCodec<?>> codecs = Config.configurationCodecs;
 		if (codecs != null) {
 			String[] cs = codecs.keySet().toArray(new String[codecs.size()]);
 			builder.append('[');
@@ -139,31 +225,162 @@ public class ConfigJSParser implements ConfigParser<InputStream, Object> {
 		} else {
 			builder.append("null");
 		}
-		//System.out.println(builder.toString());
-		builder.append(";\r\n$config = ").append(js).append("\r\n");
-		try {
-			if (checkInitialize()) {
-				Object o = evalMethod.invoke(jsEngine,  builder.toString() + "new $imwebuzzconfigparser().convertToProperties($config);");
-				if (o instanceof String) {
-					if (jsToINIDebugOutput) System.out.println(o);
-					return new ByteArrayInputStream(((String) o).getBytes(Config.configFileEncoding));
-				}
+		builder.append(";\r\n");
+		statement = builder.toString();
+		codecsStatement = statement;
+		lastCodecs = codecs;
+		return statement;
+	}
+
+	static byte[] readBytes(InputStream is) throws IOException {
+		if (is instanceof ByteArrayInputStream || is instanceof ByteBufferInputStream) {
+			byte[] bytes = new byte[is.available()];
+			int offset = 0;
+			int read = -1;
+			while (offset < bytes.length && (read = is.read(bytes, offset, bytes.length - offset)) != -1) {
+				offset += read;
 			}
-		} catch (Exception ex) {
-			ex.printStackTrace();
-			// If malicious js (last) modifies #convertToProperties, try to correct it to original JavaScript.
-			// So normal js configuration won't be affected.
-			if (checkInitialize()) {
-				Object o = evalMethod.invoke(jsEngine, builder.toString() + convertJS + "\r\nnew $imwebuzzconfigparser().convertToProperties($config);");
+			return bytes;
+		}
+		byte[] buffer = new byte[8096];
+		int read = -1;
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		while ((read = is.read(buffer)) != -1) {
+			baos.write(buffer, 0, read);
+		}
+		return baos.toByteArray();
+	}
+
+	public InputStream convertToProperties(InputStream is) throws Exception {
+		return convertToProperties(new String(readBytes(is), Config.configFileEncoding).trim());
+	}
+
+	/*
+	 * Only items of plain object literals are cached. Results of the script
+	 * engine may depend on the environment, system properties or time.
+	 */
+	private ConfigItemStore convertToItems(byte[] content, String cacheKey) throws Exception {
+		String js = new String(content, Config.configFileEncoding).trim();
+		ConfigItemStore.Builder builder = ConfigItemStore.EMPTY.toBuilder();
+		if (jsNativeParsing && new ConfigJSLiteralParser(builder).parse(js)) {
+			ConfigItemStore items = builder.build();
+			ConfigConversionCache.put(cacheKey, items);
+			return items;
+		}
+		// Not a plain object literal, evaluate it by the script engine
+		builder.load(new InputStreamReader(convertToProperties(js), Config.configFileEncoding));
+		return builder.build();
+	}
+
+	private InputStream convertToProperties(String js) throws Exception {
+		if (!js.endsWith(";")) {
+			js += ";";
+		}
+		if (checkInitialize()) {
+			JSEngine engine = idleEngines.poll();
+			if (engine == null) engine = createEngine();
+			if (engine != null) {
+				int maxLength = jsMaxOutputLength;
+				Object o = evaluate(engine, getCodecsStatement() + "$config = " + js + "\r\n", maxLength);
+				if (Boolean.FALSE.equals(o)) {
+					throw reportFailure("Converted properties of the script exceed " + maxLength + " characters!");
+				}
 				if (o instanceof String) {
-					if (jsToINIDebugOutput) System.out.println(o);
-					return new ByteArrayInputStream(((String) o).getBytes(Config.configFileEncoding));
+					String props = (String) o;
+					if (maxLength > 0 && props.length() > maxLength) { // e.g. converter modified by the script
+						throw reportFailure("Converted properties of the script exceed " + maxLength + " characters!");
+					}
+					if (jsToINIDebugOutput) System.out.println(props);
+					return new ByteArrayInputStream(props.getBytes(Config.configFileEncoding));
 				}
 			}
 		}
 		throw new RuntimeException("Unable to generate properties from the script!");
 	}
 
+	private static void releaseEngine(JSEngine engine) {
+		if (idleEngines.size() < jsEnginePoolSize) idleEngines.offer(engine);
+	}
+
+	private static RuntimeException reportFailure(String msg) {
+		Config.configurationNotifier.reportError(msg);
+		return new RuntimeException(msg);
+	}
+
+	/*
+	 * Evaluate the script on a worker thread, waiting at most jsEvaluationTimeout.
+	 */
+	private static Object evaluate(final JSEngine engine, final String js, final int maxLength) throws Exception {
+		long timeout = jsEvaluationTimeout;
+		if (timeout <= 0) {
+			Object o = engine.convert(js, maxLength);
+			releaseEngine(engine);
+			return o;
+		}
+		if (timedOutScripts.get() >= jsMaxTimedOutScripts) {
+			releaseEngine(engine);
+			throw reportFailure("Too many timed out scripts are still running, script evaluation is rejected!");
+		}
+		final AtomicInteger state = new AtomicInteger(); // 0: running, 1: done, 2: timed out
+		Future<Object> future = getEvaluator().submit(new Callable<Object>() {
+			@Override
+			public Object call() throws Exception {
+				try {
+					return engine.convert(js, maxLength);
+				} finally {
+					if (!state.compareAndSet(0, 1)) timedOutScripts.decrementAndGet();
+				}
+			}
+		});
+		try {
+			Object o = future.get(timeout, TimeUnit.MILLISECONDS);
+			releaseEngine(engine);
+			return o;
+		} catch (TimeoutException e) {
+			if (!state.compareAndSet(0, 2)) { // finished just now
+				releaseEngine(engine);
+				return future.get();
+			}
+			timedOutScripts.incrementAndGet();
+			future.cancel(true); // interrupt the worker, the engine may still be used by the script
+			throw reportFailure("Script evaluation timed out after " + timeout + "ms!");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof Exception) {
+				releaseEngine(engine);
+				throw (Exception) cause;
+			}
+			throw reportFailure("Script evaluation failed: " + cause); // e.g. OutOfMemoryError, drop the engine
+		} catch (InterruptedException e) {
+			if (!state.compareAndSet(0, 2)) {
+				releaseEngine(engine);
+			} else {
+				timedOutScripts.incrementAndGet();
+				future.cancel(true);
+			}
+			throw e;
+		}
+	}
+
+	private static ThreadPoolExecutor getEvaluator() {
+		if (evaluator == null) {
+			synchronized (ConfigJSParser.class) {
+				if (evaluator == null) {
+					evaluator = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+							new SynchronousQueue<Runnable>(), new ThreadFactory() {
+						@Override
+						public Thread newThread(Runnable r) {
+							Thread thread = new Thread(r, "Configuration Script Evaluator");
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+				}
+			}
+		}
+		return evaluator;
+	}
+
 	private ConfigINIParser iniParser;
 	
 	public ConfigJSParser() {
@@ -176,22 +393,15 @@ public class ConfigJSParser implements ConfigParser<InputStream, Object> {
 	public Object loadResource(InputStream fis, boolean combinedConfigs) {
 		if (fis == null) return null;
 		iniParser.combinedConfigs = combinedConfigs;
-		InputStreamReader reader = null;
 		try {
 			//fis = new FileInputStream(source);
-			InputStream is = convertToProperties(fis);
-			reader = new InputStreamReader(is, Config.configFileEncoding);
-			iniParser.props.load(reader);
+			byte[] content = readBytes(fis);
+			String cacheKey = jsNativeParsing ? ConfigConversionCache.getKey(".js", content) : null;
+			ConfigItemStore items = ConfigConversionCache.get(cacheKey);
+			if (items == null) items = convertToItems(content, cacheKey);
+			iniParser.loadItems(items);
 		} catch (Exception e) {
 			e.printStackTrace();
-		} finally {
-			if (reader != null) {
-				try {
-					reader.close();
-				} catch (IOException e) {
-					e.printStackTrace();
-				}
-			}
 		}
 		return null;
 	}
@@ -201,6 +411,16 @@ public class ConfigJSParser implements ConfigParser<InputStream, Object> {
 		return iniParser.parseConfiguration(clz, flag);
 	}
 
+	@Override
+	public ConfigItemStore getItems() {
+		return iniParser.getItems();
+	}
+
+	@Override
+	public void setPreviousItems(ConfigItemStore items) {
+		iniParser.setPreviousItems(items);
+	}
+
 	@Override
 	public Set<String> unusedConfigurationItems() {
 		return iniParser.unusedConfigurationItems();
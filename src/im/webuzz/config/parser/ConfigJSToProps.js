@@ -81,18 +81,28 @@ $imwebuzzconfigparser.prototype.formatPropertyValue = function(str) {
 	return str;
 };
 
+/* private */
+$imwebuzzconfigparser.prototype.append = function(builder, line) {
+	// Count the "\r\n" separator too, stop as soon as the output is too long
+	this.outputLength += line.length + 2;
+	if (this.maxLength > 0 && this.outputLength > this.maxLength) {
+		throw this.exceeded;
+	}
+	builder[builder.length] = line;
+};
+
 /* private */
 $imwebuzzconfigparser.prototype.visit = function(builder, ignoringProps, prefix, o) {
 	if (o == null) {
-		builder[builder.length] = prefix + "=[null]";
+		this.append(builder, prefix + "=[null]");
 		return; 
 	}
 	if (typeof o == "string") {
-		builder[builder.length] = prefix + "=" + this.formatPropertyValue(o);
+		this.append(builder, prefix + "=" + this.formatPropertyValue(o));
 		return; 
 	}
 	if (typeof o == "number" || typeof o == "boolean") {
-		builder[builder.length] = prefix + "=" + o;
+		this.append(builder, prefix + "=" + o);
 		return; 
 	}
 	var offset = 1;
@@ -103,7 +113,7 @@ $imwebuzzconfigparser.prototype.visit = function(builder, ignoringProps, prefix,
 		if (oClass.indexOf("array") == 0 || oClass.indexOf("list") == 0 || oClass.indexOf("set") == 0) {
 			o = o["value"];
 			if (o == null) {
-				builder[builder.length] = prefix + "=[null]";
+				this.append(builder, prefix + "=[null]");
 				return; 
 			}
 		} else {
@@ -120,7 +130,7 @@ $imwebuzzconfigparser.prototype.visit = function(builder, ignoringProps, prefix,
 	if (o instanceof Array) {
 		var length = o.length;
 		if (length == 0) {
-			builder[builder.length] = prefix + "=[empty]";
+			this.append(builder, prefix + "=[empty]");
 		//*
 		} else if (oClass == null && this.isPlainArray(o, prefix)) {
 			var objBuilder = [];
@@ -133,7 +143,7 @@ $imwebuzzconfigparser.prototype.visit = function(builder, ignoringProps, prefix,
 				}
 				objBuilder[objBuilder.length] = typeof pv == "string" ? this.formatPropertyValue(pv) : pv;
 			}
-			builder[builder.length] = prefix + "=" + (objBuilder.length == 0 ? "[empty]" : objBuilder.join(";"));
+			this.append(builder, prefix + "=" + (objBuilder.length == 0 ? "[empty]" : objBuilder.join(";")));
 		//*/
 		} else {
 			// Map "entries" is an array which needs to skip its "[array] or []".
@@ -141,7 +151,7 @@ $imwebuzzconfigparser.prototype.visit = function(builder, ignoringProps, prefix,
 			var skipEntries = oClass == null && builder.length > 0
 					 && builder[builder.length - 1].indexOf(prefix + "=") == 0;
 			if (!skipEntries) {
-				builder[builder.length] = this.appendConstructor(prefix, oClass, needsTypePrefix, false);
+				this.append(builder, this.appendConstructor(prefix, oClass, needsTypePrefix, false));
 			}
 			var maxZeros = ("" + length).length;
 			for (var i = 0; i < length; i++) {
@@ -184,19 +194,19 @@ $imwebuzzconfigparser.prototype.visit = function(builder, ignoringProps, prefix,
 					|| "BigDecimal" == type || "BigInteger" == type
 					|| "Boolean" == type || "Character" == type
 					|| "Enum" == type) {
-				builder[builder.length] = prefix + "=[" + type + ":" + value + "]";
+				this.append(builder, prefix + "=[" + type + ":" + value + "]");
 				return;
 			}
 			if ($configurationCodecs != null) {
 				for (var i = 0; i < $configurationCodecs.length; i++) {
 					if ($configurationCodecs[i] == type) {
-						builder[builder.length] = prefix + "=[" + type + ":" + value + "]";
+						this.append(builder, prefix + "=[" + type + ":" + value + "]");
 						return;
 					}
 				}
 			}
 		}
-		builder[builder.length] = prefix + "=" + (objBuilder.length == 0 ? "[empty]" : objBuilder.join(";"));
+		this.append(builder, prefix + "=" + (objBuilder.length == 0 ? "[empty]" : objBuilder.join(";")));
 	} else {
 		var generated = false;
 		for (var p in o) {
@@ -205,7 +215,7 @@ $imwebuzzconfigparser.prototype.visit = function(builder, ignoringProps, prefix,
 				this.visit(builder, ignoringProps, p, o[p]);
 			} else {
 				if (!generated) {
-					builder[builder.length] = this.appendConstructor(prefix, oClass, needsTypePrefix, false);
+					this.append(builder, this.appendConstructor(prefix, oClass, needsTypePrefix, false));
 				}
 				if ("entries" == p && o[p] != null && o[p].length > 0) {
 					this.visit(builder, ignoringProps, prefix, o[p]);
@@ -216,7 +226,7 @@ $imwebuzzconfigparser.prototype.visit = function(builder, ignoringProps, prefix,
 			generated = true;
 		}
 		if (!generated) {
-			builder[builder.length] = this.appendConstructor(prefix, oClass, true, oClass == null);
+			this.append(builder, this.appendConstructor(prefix, oClass, true, oClass == null));
 		}
 	}
 };
@@ -243,7 +253,8 @@ $imwebuzzconfigparser.prototype.appendConstructor = function(prefix, oClass, nee
 };
 
 /* public */ // Will be invoked by class ConfigJSParser
-$imwebuzzconfigparser.prototype.convertToProperties = function(configObj) {
+// Return false if the converted properties exceed the given maximum characters
+$imwebuzzconfigparser.prototype.convertToProperties = function(configObj, maxLength) {
 	var ignoringProps = [ "class" ];
 	var emptyObject = {};
 	for (var p in emptyObject) {
@@ -252,7 +263,15 @@ $imwebuzzconfigparser.prototype.convertToProperties = function(configObj) {
 	// All properties in an empty object will be ignored
 	
 	var configProps = [];
-	this.visit(configProps, ignoringProps, null, configObj);
+	this.maxLength = maxLength == null ? 0 : maxLength;
+	this.outputLength = 0;
+	this.exceeded = {};
+	try {
+		this.visit(configProps, ignoringProps, null, configObj);
+	} catch (e) {
+		if (e === this.exceeded) return false;
+		throw e;
+	}
 	for (var i = 0; i < configProps.length; i++) {
 		var line = configProps[i];
 		line = line.replace(new RegExp("\n", "gm"), "\\n");
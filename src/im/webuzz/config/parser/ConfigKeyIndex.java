@@ -0,0 +1,94 @@
+package im.webuzz.config.parser;
+
+import java.util.Arrays;
+
+/**
+ * Sorted index over configuration item keys.
+ *
+ * All keys sharing the same prefix are stored contiguously, so enumerating
+ * child keys of a collection, map or object is a binary search plus a range
+ * scan instead of scanning all keys.
+ */
+public class ConfigKeyIndex {
+
+	private static final String[] emptyKeys = new String[0];
+
+	private final String[] keys;
+
+	// The given array will be sorted and kept by this index
+	public ConfigKeyIndex(String[] keys) {
+		super();
+		Arrays.sort(keys);
+		this.keys = keys;
+	}
+
+	public int size() {
+		return keys.length;
+	}
+
+	/**
+	 * Return all sorted keys. Do not modify the returned array.
+	 * @return
+	 */
+	public String[] keys() {
+		return keys;
+	}
+
+	private int lowerBound(String prefix) {
+		int idx = Arrays.binarySearch(keys, prefix);
+		return idx >= 0 ? idx : -(idx + 1);
+	}
+
+	/**
+	 * Return the key suffixes of all keys starting with the given prefix, in sorted order.
+	 * e.g. prefix "a." and keys "a.0", "a.1", "a.1.x" will return "0", "1", "1.x".
+	 * @param prefix, normally ending with "."
+	 * @return suffix array, never null
+	 */
+	public String[] getDescendants(String prefix) {
+		int start = lowerBound(prefix);
+		int end = start;
+		int length = keys.length;
+		while (end < length && keys[end].startsWith(prefix)) end++;
+		if (end == start) return emptyKeys;
+		int prefixLength = prefix.length();
+		String[] suffixes = new String[end - start];
+		for (int i = start; i < end; i++) {
+			suffixes[i - start] = keys[i].substring(prefixLength);
+		}
+		return suffixes;
+	}
+
+	/**
+	 * Return the key suffixes of direct children of the given prefix, in sorted order.
+	 * e.g. prefix "a." and keys "a.0", "a.1", "a.1.x" will return "0", "1".
+	 * @param prefix, normally ending with "."
+	 * @return suffix array, never null
+	 */
+	public String[] getChildren(String prefix) {
+		int start = lowerBound(prefix);
+		int length = keys.length;
+		int prefixLength = prefix.length();
+		int count = 0;
+		for (int i = start; i < length && keys[i].startsWith(prefix); i++) {
+			if (isDirectChild(keys[i], prefixLength)) count++;
+		}
+		if (count == 0) return emptyKeys;
+		String[] suffixes = new String[count];
+		int idx = 0;
+		for (int i = start; idx < count; i++) {
+			String key = keys[i];
+			if (isDirectChild(key, prefixLength)) suffixes[idx++] = key.substring(prefixLength);
+		}
+		return suffixes;
+	}
+
+	// Suffix without dots, trailing dots are ignored, e.g. "0" or "0."
+	private static boolean isDirectChild(String key, int prefixLength) {
+		int end = key.length();
+		while (end > prefixLength && key.charAt(end - 1) == '.') end--;
+		int dotIdx = key.indexOf('.', prefixLength);
+		return dotIdx == -1 || dotIdx >= end;
+	}
+
+}
@@ -8,6 +8,7 @@ public interface ConfigParser<S,L> {
 	public int FLAG_CHECK = 2;
 	public int FLAG_VALIDATE = 4;
 	public int FLAG_REMOTE = 8;
+	public int FLAG_INCREMENTAL = 16; // only for ConfigIncrementalParser
 	
 	/**
 	 * Load the source, and consume configuration items, and update internal states, and then return.
@@ -8,6 +8,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringReader;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
@@ -15,6 +16,8 @@ import java.util.Map;
 import java.util.Properties;
 
 import im.webuzz.config.Config;
+import im.webuzz.config.common.ByteBufferInputStream;
+import im.webuzz.config.common.FileUtils;
 import im.webuzz.config.common.TypeUtils;
 
 public class ConfigParserBuilder {
@@ -155,28 +158,45 @@ public class ConfigParserBuilder {
 		return parser;
 	}
 
-	@SuppressWarnings("unchecked")
 	public static ConfigParser<?, ?> prepareParser(String fileExtension, byte[] content,
 			boolean combinedConfigs) throws Exception {
+		return prepareParser(fileExtension, ByteBuffer.wrap(content), combinedConfigs);
+	}
+
+	/**
+	 * Prepare parser with the remaining bytes of the given buffer, e.g. a
+	 * memory mapped file. Bytes are not copied unless the parser requires
+	 * an array, a file or properties. Buffer's position is not changed.
+	 */
+	@SuppressWarnings("unchecked")
+	public static ConfigParser<?, ?> prepareParser(String fileExtension, ByteBuffer buffer,
+			boolean combinedConfigs) throws Exception {
 		Map<String, Class<? extends ConfigParser<?, ?>>> parsers = Config.configurationParsers;
 		if (parsers == null) return null;
 		Class<? extends ConfigParser<?, ?>> clazz = parsers.get(fileExtension.substring(1));
 		if (clazz == null) return null;
 		ConfigParser<?, ?> parser = clazz.newInstance();
 		Class<?> rawType = TypeUtils.getInterfaceParamType(clazz, ConfigParser.class);
-		if (rawType == InputStream.class) {
+		if (clazz == ConfigINIParser.class) {
+			// Tokenize bytes directly, without stream and reader wrappers. Subclasses
+			// may override #loadResource(InputStream, boolean), use the stream for them.
+			((ConfigINIParser) parser).loadResource(buffer, combinedConfigs);
+		} else if (rawType == InputStream.class) {
 			try {
-				((ConfigParser<InputStream, ?>) parser).loadResource(new ByteArrayInputStream(content), combinedConfigs);
+				InputStream is = buffer.hasArray()
+						? new ByteArrayInputStream(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining())
+						: new ByteBufferInputStream(buffer);
+				((ConfigParser<InputStream, ?>) parser).loadResource(is, combinedConfigs);
 			} catch (Exception e) {
 				e.printStackTrace();
 			}
 		} else if (rawType == byte[].class) {
-			((ConfigParser<byte[], ?>) parser).loadResource(content, combinedConfigs);
+			((ConfigParser<byte[], ?>) parser).loadResource(FileUtils.toBytes(buffer), combinedConfigs);
 		} else if (rawType == File.class) {
 			Path tempFilePath = null;
 			try {
 				tempFilePath = Files.createTempFile(System.currentTimeMillis() + "." + Math.random(), ".tmp");
-				Files.write(tempFilePath, content, StandardOpenOption.WRITE);
+				Files.write(tempFilePath, FileUtils.toBytes(buffer), StandardOpenOption.WRITE);
 				((ConfigParser<File, ?>) parser).loadResource(tempFilePath.toFile(), combinedConfigs);
 			} finally {
 				if (tempFilePath != null) {
@@ -191,7 +211,7 @@ public class ConfigParserBuilder {
 			Properties props = new Properties();
 			Reader reader = null;
 			try {
-				reader = new StringReader(new String(content, Config.configFileEncoding));
+				reader = new StringReader(Config.configFileEncoding.decode(buffer.duplicate()).toString());
 				props.load(reader);
 				((ConfigParser<Properties, ?>) parser).loadResource(props, combinedConfigs);
 			} catch (Exception e) {
@@ -15,7 +15,6 @@
 package im.webuzz.config.parser;
 
 import java.io.ByteArrayInputStream;
-import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
@@ -24,20 +23,16 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import javax.xml.parsers.DocumentBuilderFactory;
-
-import org.w3c.dom.Comment;
-import org.w3c.dom.Element;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.w3c.dom.Text;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import im.webuzz.config.Config;
 import im.webuzz.config.codec.ConfigCodec;
 import im.webuzz.config.common.StringUtils;
 
-public class ConfigXMLParser implements ConfigParser<InputStream, Object> {
+public class ConfigXMLParser implements ConfigParser<InputStream, Object>, ConfigIncrementalParser {
 
 	// To add comments to the *.ini format while converting .xml format to .ini format.
 	// This is to help comparing parsed .ini format with the original .ini format.
@@ -113,6 +108,71 @@ public class ConfigXMLParser implements ConfigParser<InputStream, Object> {
 		object,
 	};
 
+	/*
+	 * Element with its "class" and "null" attributes, and child nodes. Only
+	 * one top level configuration element is kept in memory while streaming.
+	 */
+	private static class XMLNode {
+		String name;
+		boolean hasAttributes;
+		String classAttribute; // null if there is no "class" attribute
+		String nullAttribute;
+		List<Object> children = new ArrayList<Object>(); // XMLNode, String for texts, or XMLComment
+	}
+
+	private static class XMLComment {
+		String text;
+	}
+
+	/*
+	 * Receiver of generated "key=value" lines.
+	 */
+	private static abstract class XMLOutput {
+		abstract void add(String key, String value);
+		void comment(String line) {}
+		void newLine() {}
+	}
+
+	private static class TextOutput extends XMLOutput {
+		private final StringBuilder builder;
+
+		TextOutput(StringBuilder builder) {
+			this.builder = builder;
+		}
+
+		@Override
+		void add(String key, String value) {
+			builder.append(key).append('=').append(value).append("\r\n");
+		}
+
+		@Override
+		void comment(String line) {
+			builder.append("# ").append(line).append("\r\n");
+		}
+
+		@Override
+		void newLine() {
+			builder.append("\r\n");
+		}
+	}
+
+	private static class ItemsOutput extends XMLOutput {
+		private final ConfigINILines lines;
+
+		ItemsOutput(ConfigItemStore.Builder builder) {
+			lines = new ConfigINILines(builder);
+		}
+
+		@Override
+		void add(String key, String value) {
+			lines.add(String.valueOf(key), value); // null prefix is "null" in .ini content, too
+		}
+	}
+
+	private static final String reportCDATA = "http://java.sun.com/xml/stream/properties/report-cdata-event";
+
+	private static volatile XMLInputFactory inputFactory;
+
 	private ConfigINIParser iniParser;
 	
 	public ConfigXMLParser() {
@@ -125,22 +185,28 @@ public class ConfigXMLParser implements ConfigParser<InputStream, Object> {
 	public Object loadResource(InputStream fis, boolean combinedConfigs) {
 		if (fis == null) return null;
 		iniParser.combinedConfigs = combinedConfigs;
-		InputStreamReader reader = null;
 		try {
 			//fis = new FileInputStream(source);
-			InputStream is = convertToProperties(fis);
-			reader = new InputStreamReader(is, Config.configFileEncoding);
-			iniParser.props.load(reader);
-		} catch (Exception e) {
-			e.printStackTrace();
-		} finally {
-			if (reader != null) {
-				try {
-					reader.close();
-				} catch (IOException e) {
-					e.printStackTrace();
+			byte[] content = ConfigJSParser.readBytes(fis);
+			String cacheKey = ConfigConversionCache.getKey(".xml", content);
+			ConfigItemStore items = ConfigConversionCache.get(cacheKey);
+			if (items == null) {
+				ConfigItemStore.Builder builder = ConfigItemStore.EMPTY.toBuilder();
+				if (xmlToINIAddComments || xmlToINIDebugOutput) {
+					InputStream is = convertToProperties(new ByteArrayInputStream(content));
+					builder.load(new InputStreamReader(is, Config.configFileEncoding));
+				} else {
+					// Stream items into builder directly, without .ini content
+					ItemsOutput out = new ItemsOutput(builder);
+					convert(new ByteArrayInputStream(content), out);
+					out.lines.flush();
 				}
+				items = builder.build();
+				ConfigConversionCache.put(cacheKey, items);
 			}
+			iniParser.loadItems(items);
+		} catch (Exception e) {
+			e.printStackTrace();
 		}
 		return null;
 	}
@@ -150,38 +216,40 @@ public class ConfigXMLParser implements ConfigParser<InputStream, Object> {
 		return iniParser.parseConfiguration(clz, flag);
 	}
 
-	private NodeType parseType(Element o, NodeType containerType) {
+	@Override
+	public ConfigItemStore getItems() {
+		return iniParser.getItems();
+	}
+
+	@Override
+	public void setPreviousItems(ConfigItemStore items) {
+		iniParser.setPreviousItems(items);
+	}
+
+	private NodeType parseType(XMLNode o, NodeType containerType) {
 		if (o == null) return NodeType.unknown;
-		NamedNodeMap attributes = o.getAttributes();
-		if (attributes != null && attributes.getLength() > 0) {
-			Node nullItem = attributes.getNamedItem("null");
-			if (nullItem != null) {
-				String nullValue = nullItem.getNodeValue();
-				if ("true".equals(nullValue)) return NodeType.nullValue;
-			}
+		if (o.hasAttributes) {
+			if ("true".equals(o.nullAttribute)) return NodeType.nullValue;
 			// <xxx class="array"> ...
 			// <xxx class="array:..."> ...
 			// <xxx class="list:..."> ...
 			// <xxx class="set:..."> ...
-			Node namedItem = attributes.getNamedItem("class");
-			if (namedItem != null) {
-				String type = namedItem.getNodeValue();
-				if (type != null) {
-					if (type.startsWith("array")) return NodeType.array;
-					if (type.startsWith("list")) return NodeType.list;
-					if (type.startsWith("set")) return NodeType.set;
-					if (type.startsWith("object")) return NodeType.object;
-					if (type.charAt(0) == '@' || type.startsWith("annotation")) return NodeType.annotation;
-					if (type.startsWith("map")) {
-						Element[] children = getChildElements(o, true);
-						if (children.length == 0) return NodeType.mapGeneric;
-						if ("entry".equals(children[0].getNodeName())) return NodeType.mapEntries;
-						return NodeType.mapKnown;
-					}
+			String type = o.classAttribute;
+			if (type != null) {
+				if (type.startsWith("array")) return NodeType.array;
+				if (type.startsWith("list")) return NodeType.list;
+				if (type.startsWith("set")) return NodeType.set;
+				if (type.startsWith("object")) return NodeType.object;
+				if (type.charAt(0) == '@' || type.startsWith("annotation")) return NodeType.annotation;
+				if (type.startsWith("map")) {
+					XMLNode[] children = getChildElements(o, true);
+					if (children.length == 0) return NodeType.mapGeneric;
+					if ("entry".equals(children[0].name)) return NodeType.mapEntries;
+					return NodeType.mapKnown;
 				}
 			}
 		}
-		String typeName = o.getNodeName();
+		String typeName = o.name;
 		if ("annotation".equals(typeName)) return NodeType.annotation;
 		if ("map".equals(typeName)) return NodeType.mapDirect;
 		if ("list".equals(typeName)) return NodeType.listDirect;
@@ -194,9 +262,6 @@ public class ConfigXMLParser implements ConfigParser<InputStream, Object> {
 				return NodeType.codecDirect;
 			}
 		}
-		NodeList childNodes = o.getChildNodes();
-		if (childNodes == null) return NodeType.object;
-		int length = childNodes.getLength();
 		int elementCount = 0;
 		int textCount = 0;
 		String firstText = null;
@@ -204,13 +269,9 @@ public class ConfigXMLParser implements ConfigParser<InputStream, Object> {
 		boolean sameElementName = true;
 		boolean containsBasicData = false;
 		boolean containsKnowObjects = false;
-		for (int i = 0; i < length; i++) {
-			Node item = childNodes.item(i);
-			if (item instanceof Text) {
-				Text t = (Text) item;
-				String str = t.getNodeValue();
-				if (str == null) continue;
-				str = str.trim();
+		for (Object item : o.children) {
+			if (item instanceof String) {
+				String str = ((String) item).trim();
 				if (str.length() > 0) {
 					if (firstText == null) {
 						firstText = str;
@@ -220,9 +281,8 @@ public class ConfigXMLParser implements ConfigParser<InputStream, Object> {
 					}
 					textCount++;
 				}
-			} else if (item instanceof Element) {
-				Element el = (Element) item;
-				String nodeName = el.getNodeName();
+			} else if (item instanceof XMLNode) {
+				String nodeName = ((XMLNode) item).name;
 				if (basicData.contains(nodeName)) {
 					containsBasicData = true;
 				} else if (knownObjects.contains(nodeName)) {
@@ -238,7 +298,7 @@ public class ConfigXMLParser implements ConfigParser<InputStream, Object> {
 		}
 		if (elementCount == 0) {
 			if (textCount == 0) return NodeType.emptyObject;
-			if (basicData.contains(o.getNodeName())) return NodeType.basicDirect;
+			if (basicData.contains(o.name)) return NodeType.basicDirect;
 			if (textCount == 1) {
 				if (firstText.indexOf('\n') == -1) return NodeType.plain;
 			}
@@ -277,50 +337,36 @@ public class ConfigXMLParser implements ConfigParser<InputStream, Object> {
 		return NodeType.object;
 	}
 	
-	private Element getFirstElement(Element o) {
+	private XMLNode getFirstElement(XMLNode o) {
 		if (o == null) return null;
-		NodeList childNodes = o.getChildNodes();
-		int length = childNodes.getLength();
-		for (int i = 0; i < length; i++) {
-			Node item = childNodes.item(i);
-			if (item instanceof Element) {
-				return (Element) item;
+		for (Object item : o.children) {
+			if (item instanceof XMLNode) {
+				return (XMLNode) item;
 			}
 		}
 		return null;
 	}
 
-	private Element[] getChildElements(Element o, boolean noInlineTexts) {
-		NodeList childNodes = o.getChildNodes();
-		int length = childNodes.getLength();
-		List<Element> entries = new ArrayList<Element>();
-		for (int i = 0; i < length; i++) {
-			Node item = childNodes.item(i);
-			if (item instanceof Element) {
-				Element p = (Element) item;
-				entries.add(p);
-			} else if (noInlineTexts && item instanceof Text) {
-				Text t = (Text) item;
-				String text = t.getNodeValue();
-				if (text != null && text.trim().length() > 0) {
-					throw new RuntimeException("Unexpected text \"" + text + "\" inside element <" + o.getNodeName() + ">!");
+	private XMLNode[] getChildElements(XMLNode o, boolean noInlineTexts) {
+		List<XMLNode> entries = new ArrayList<XMLNode>();
+		for (Object item : o.children) {
+			if (item instanceof XMLNode) {
+				entries.add((XMLNode) item);
+			} else if (noInlineTexts && item instanceof String) {
+				String text = (String) item;
+				if (text.trim().length() > 0) {
+					throw new RuntimeException("Unexpected text \"" + text + "\" inside element <" + o.name + ">!");
 				}
 			}
 		}
-		return entries.toArray(new Element[entries.size()]);
+		return entries.toArray(new XMLNode[entries.size()]);
 	}
 	
-	private String getTextValue(Element o) {
+	private String getTextValue(XMLNode o) {
 		StringBuilder builder = new StringBuilder();
-		NodeList childNodes = o.getChildNodes();
-		int length = childNodes == null ? 0 : childNodes.getLength();
-		if (childNodes != null && length > 0) {
-			for (int i = 0; i < length; i++) {
-				Node item = childNodes.item(i);
-				if (item instanceof Text) {
-					Text t = (Text) item;
-					builder.append(t.getNodeValue().trim());
-				}
+		for (Object item : o.children) {
+			if (item instanceof String) {
+				builder.append(((String) item).trim());
 			}
 		}
 		return builder.toString();
@@ -346,119 +392,105 @@ public class ConfigXMLParser implements ConfigParser<InputStream, Object> {
 		}
 		return true;
 	}
-	public void visit(StringBuilder builder, String prefix, Element o, NodeType containerType) {
-		/*
-		if ("includes".equals(o.getTagName()) && o.getChildNodes().getLength() == 0) {
-			System.out.println("..xx");
-		}
-		//*/
+
+	private void visit(XMLOutput out, String prefix, XMLNode o, NodeType containerType) {
 		NodeType type = prefix == null ? NodeType.none : parseType(o, containerType);
 		if (type == NodeType.plain) {
-			assign(builder, prefix, null).append(StringUtils.formatAsProperties(getTextValue(o).trim())).append("\r\n");
+			out.add(prefix, StringUtils.formatAsProperties(getTextValue(o).trim()));
 			return;
 		}
 		if (type == NodeType.nullValue) {
-			assign(builder, prefix, null).append(ConfigINIParser.$null).append("\r\n");
+			out.add(prefix, ConfigINIParser.$null);
 			return;
 		}
 		if (type == NodeType.emptyString) {
-			assign(builder, prefix, null).append(ConfigINIParser.$empty).append("\r\n");
+			out.add(prefix, ConfigINIParser.$empty);
 			return;
 		}
 		if (type == NodeType.codecObject) {
-			Element el = getFirstElement(o);
+			XMLNode el = getFirstElement(o);
 			String secretStr = getTextValue(el).trim();
-			assign(builder, prefix, null).append('[').append(el.getNodeName()).append(':').append(secretStr).append("]\r\n");
+			out.add(prefix, "[" + el.name + ":" + secretStr + "]");
 			return;
 		}
 		if (type == NodeType.codecDirect) {
 			String secretStr = getTextValue(o).trim();
-			assign(builder, prefix, null).append('[').append(o.getNodeName()).append(':').append(secretStr).append("]\r\n");
+			out.add(prefix, "[" + o.name + ":" + secretStr + "]");
 			return;
 		}
 		if (type == NodeType.emptyObject) {
-			if ("empty".equals(o.getTagName())) return;
-			appendType(builder, prefix, o, "empty");
+			if ("empty".equals(o.name)) return;
+			appendType(out, prefix, o, "empty");
 			return;
 		}
 		if (type == NodeType.basicDirect) {
-			String typeName = o.getNodeName();
+			String typeName = o.name;
 			String content = getTextValue(o);
-			assign(builder, prefix, null);
 			if ("String".equalsIgnoreCase(typeName)) {
-				builder.append(StringUtils.formatAsProperties(content)).append("\r\n");;
+				out.add(prefix, StringUtils.formatAsProperties(content));
 			} else {
-				builder.append('[').append(typeName).append(':').append(content).append("]\r\n");
+				out.add(prefix, "[" + typeName + ":" + content + "]");
 			}
 			return;
 		}
 		if (type == NodeType.basicData) {
-			Element first = getFirstElement(o);
-			String typeName = first.getNodeName();
-			assign(builder, prefix, null);
+			XMLNode first = getFirstElement(o);
+			String typeName = first.name;
 			String content = getTextValue(first);
 			if ("String".equalsIgnoreCase(typeName)) {
-				builder.append(StringUtils.formatAsProperties(content)).append("\r\n");;
+				out.add(prefix, StringUtils.formatAsProperties(content));
 			} else {
-				builder.append('[').append(typeName).append(':').append(content).append("]\r\n");
+				out.add(prefix, "[" + typeName + ":" + content + "]");
 			}
 			return;
 		}
 		int startingIndex = 0; //GeneratorConfig.startingIndex;
 		if (type == NodeType.mapEntries) {
-			appendType(builder, prefix, o, null);
-			Element[] mapEntries = getChildElements(o, true);
+			appendType(out, prefix, o, null);
+			XMLNode[] mapEntries = getChildElements(o, true);
 			int nodeLength = mapEntries.length + startingIndex;
 			int maxZeros = ("" + nodeLength).length();
 			int idx = startingIndex;
-			for (Element entry : mapEntries) {
+			for (XMLNode entry : mapEntries) {
 				String index = String.valueOf(idx);
 				int leadingZeros = maxZeros - index.length();
 				for (int j = 0; j < leadingZeros; j++) {
 					index = "0" + index;
 				}
-				visit(builder, prefix + "." + index, entry, type);
+				visit(out, prefix + "." + index, entry, type);
 				idx++;
 			}
 			return;
 		}
 		if (type == NodeType.mapKnown) {
-			appendType(builder, prefix, o, null);
-			Element[] children = getChildElements(o, true);
-			Element[] mapKVs = children;
-			for (Element entry : mapKVs) {
-				visit(builder, prefix + "." + entry.getNodeName(), entry, type);
+			appendType(out, prefix, o, null);
+			XMLNode[] mapKVs = getChildElements(o, true);
+			for (XMLNode entry : mapKVs) {
+				visit(out, prefix + "." + entry.name, entry, type);
 			}
 			return;
 		}
 		if (type == NodeType.mapDirect) {
-			appendType(builder, prefix, o, "map");
-			Element[] children = getChildElements(o, true);
-			Element[] mapKVs = children;
-			for (Element entry : mapKVs) {
-				visit(builder, prefix + "." + entry.getNodeName(), entry, type);
+			appendType(out, prefix, o, "map");
+			XMLNode[] mapKVs = getChildElements(o, true);
+			for (XMLNode entry : mapKVs) {
+				visit(out, prefix + "." + entry.name, entry, type);
 			}
 			return;
 		}
 		if (type == NodeType.mapGeneric) {
-			appendType(builder, prefix, o, null);
+			appendType(out, prefix, o, null);
 			return;
 		}
 		
 		if (type == NodeType.plainCollection) {
-			NodeList childNodes = o.getChildNodes();
-			int length = childNodes.getLength();
 			boolean first = true;
 			boolean ok2Compact = true;
 			StringBuilder compactBuilder = new StringBuilder();
-			compactBuilder.append(prefix).append('=');
-			for (int i = 0; i < length; i++) {
-				Node item = childNodes.item(i);
-				if (item instanceof Text) {
-					Text t = (Text) item;
-					String str = t.getNodeValue();
-					if (str == null) continue;
-					str = str.trim();
+			int prefixLength = prefix.length() + 1;
+			for (Object item : o.children) {
+				if (item instanceof String) {
+					String str = ((String) item).trim();
 					if (str.length() > 0) {
 						if (!checkCompactness(str, false)) {
 							ok2Compact = false;
@@ -468,15 +500,15 @@ public class ConfigXMLParser implements ConfigParser<InputStream, Object> {
 						first = false;
 						compactBuilder.append(str);
 					}
-				} else if (item instanceof Element) {
-					String nodeName = ((Element) item).getNodeName();
+				} else if (item instanceof XMLNode) {
+					String nodeName = ((XMLNode) item).name;
 					String str;
 					if ("null".equals(nodeName)) {
 						str = "[null]";
 					} else if ("empty".equals(nodeName)) {
 						str = "[empty]";
 					} else {
-						str = getTextValue((Element) item);
+						str = getTextValue((XMLNode) item);
 						if (!checkCompactness(str, false)) {
 							ok2Compact = false;
 							break;
@@ -486,11 +518,10 @@ public class ConfigXMLParser implements ConfigParser<InputStream, Object> {
 					first = false;
 					compactBuilder.append(str);
 				}
-				if (compactBuilder.length() > 80) break; 
+				if (prefixLength + compactBuilder.length() > 80) break; 
 			}
-			if (compactBuilder.length() <= 80 && ok2Compact) { 
-				builder.append(compactBuilder);
-				builder.append("\r\n");
+			if (prefixLength + compactBuilder.length() <= 80 && ok2Compact) { 
+				out.add(prefix, compactBuilder.toString());
 				return;
 			}
 			type = NodeType.collection;
@@ -499,157 +530,229 @@ public class ConfigXMLParser implements ConfigParser<InputStream, Object> {
 				|| type == NodeType.array || type == NodeType.list || type == NodeType.set
 				|| type == NodeType.arrayDirect || type == NodeType.listDirect || type == NodeType.setDirect
 				) {
-			Element[] children = getChildElements(o, false);
+			XMLNode[] children = getChildElements(o, false);
 			if (children.length == 0) {
 				String valueText = getTextValue(o);
 				if (valueText != null && valueText.length() > 0) {
-					builder.append(prefix).append('=').append(valueText).append("\r\n");
+					out.add(prefix, valueText);
 					return;
 				}
 			} else {
 				String valueText = getTextValue(o);
 				if (valueText != null && valueText.length() > 0) {
-					throw new RuntimeException("Unexpected text inside <" + o.getNodeName() + ">!");
+					throw new RuntimeException("Unexpected text inside <" + o.name + ">!");
 				}				
 			}
 			String defaultType = null;
 			if (type == NodeType.arrayDirect) defaultType = "array";
 			else if (type == NodeType.listDirect) defaultType = "list";
 			else if (type == NodeType.setDirect) defaultType = "set";
-			appendType(builder, prefix, o, defaultType);
+			appendType(out, prefix, o, defaultType);
 			int nodeLength = children.length + startingIndex;
 			int maxZeros = ("" + nodeLength).length();
 			int idx = startingIndex;
-			for (Element element : children) {
+			for (XMLNode element : children) {
 				String index = "" + idx;
 				int leadingZeros = maxZeros - index.length();
 				for (int j = 0; j < leadingZeros; j++) {
 					index = "0" + index;
 				}
 				String newPrefix = prefix + "." + index;
-				visit(builder, newPrefix, element, type);
+				visit(out, newPrefix, element, type);
 				idx++;
 			}
 			return;
 		}
-		/*
-		if (isPlainObject(o)) {
-			StringBuilder objBuilder = new StringBuilder();
-			NamedNodeMap attributes = o.getAttributes();
-			int attrLength = attributes == null ? 0 : attributes.getLength();
-			for (int i = 0; i < attrLength; i++) {
-				Node item = attributes.item(i);
-				if ("class".equals(item.getNodeName())) continue;
-				objBuilder.append(item.getNodeName()).append(">").append(item.getNodeValue()).append(";");
-			}
-			NodeList childNodes = o.getChildNodes();
-			int length = childNodes == null ? 0 : childNodes.getLength();
-			for (int i = 0; i < length; i++) {
-				Node item = childNodes.item(i);
-				if ("null".equals(item.getNodeName())) {
-					objBuilder.append("[null];");
-					continue;
-				}
-				objBuilder.append(item.getNodeName()).append(">").append(item.getNodeValue()).append(";");
-			}
-			int objLength = objBuilder.length();
-			builder.append(prefix).append("=");
-			if (objLength == 0) {
-				builder.append(ConfigINIParser.$empty);
-			} else {
-				builder.append(objBuilder, 0, objLength - 1);
-			}
-			builder.append("\r\n");
-			return;
-		}
-		//*/
-		NodeList childNodes = o.getChildNodes();
-		int length = childNodes.getLength();
 		boolean generated = false;
-		for (int i = 0; i < length; i++) {
-			Node item = childNodes.item(i);
-			short nodeType = item.getNodeType();
-			if (Node.COMMENT_NODE == nodeType) {
-				Comment c =  (Comment) item;
-				String comments = c.getNodeValue();
-				String[] lines = comments.split("(\\r\\n|\\n|\\r)");
-				for (int j = 0; j < lines.length; j++) {
-					String commentLine = lines[j].trim();
-					if (j != 0 && j != lines.length - 1 || commentLine.length() != 0) {
-						if (xmlToINIAddComments) builder.append("# ").append(commentLine).append("\r\n");
-					}
-				}
+		for (Object item : o.children) {
+			if (item instanceof XMLComment) {
+				comment(out, ((XMLComment) item).text);
+				continue;
 			}
-			if (!(item instanceof Element)) {
-				if (item instanceof Text) {
-					Text t = (Text) item;
-					String text = t.getNodeValue();
-					if (text != null) {
-						text = text.trim();
-						if (text.length() > 0) {
-							throw new RuntimeException("Unexpected text \"" + text + "\" inside element <" + o.getNodeName() + ">!");
-						}
+			if (!(item instanceof XMLNode)) {
+				if (item instanceof String) {
+					String text = ((String) item).trim();
+					if (text.length() > 0) {
+						throw new RuntimeException("Unexpected text \"" + text + "\" inside element <" + o.name + ">!");
 					}
 				}
 				continue;
 			}
-			Element el = (Element) item;
-			if (prefix == null) {
-				visit(builder, el.getNodeName(), el, type);
-				if (xmlToINIAddComments) builder.append("\r\n");
-			} else {
-				if (!generated) {
-					appendType(builder, prefix, o, null);
-					generated = true;
-				}
-				String newPrefix = prefix + "." + el.getNodeName();
-				visit(builder, newPrefix, el, type);
+			XMLNode el = (XMLNode) item;
+			if (!generated) {
+				appendType(out, prefix, o, null);
+				generated = true;
 			}
+			String newPrefix = prefix + "." + el.name;
+			visit(out, newPrefix, el, type);
 		}
 		if (!generated) {
-			appendType(builder, prefix, o, null);
+			appendType(out, prefix, o, null);
 			return;
 		}
 	}
 
-	public StringBuilder assign(StringBuilder builder, String prefix, Element o) {
-		if (o == null) return builder.append(prefix).append('=');
-		String nodeName = o.getNodeName();
-		if ("item".equals(nodeName)) {
-			return builder.append(prefix).append('=');
-		} else {
-			return builder.append(prefix).append('.').append(nodeName).append('=');
+	private void comment(XMLOutput out, String comments) {
+		String[] lines = comments.split("(\\r\\n|\\n|\\r)");
+		for (int j = 0; j < lines.length; j++) {
+			String commentLine = lines[j].trim();
+			if (j != 0 && j != lines.length - 1 || commentLine.length() != 0) {
+				out.comment(commentLine);
+			}
 		}
 	}
 
-	private void appendType(StringBuilder builder, String prefix, Element o, String defaultType) {
-		builder.append(prefix).append("=[");
+	private void appendType(XMLOutput out, String prefix, XMLNode o, String defaultType) {
+		StringBuilder builder = new StringBuilder();
+		builder.append('[');
 		String type = null;
-		NamedNodeMap attributes = o.getAttributes();
-		if (attributes != null && attributes.getLength() > 0) {
-			Node namedItem = attributes.getNamedItem("class");
-			if (namedItem != null) {
-				type = namedItem.getNodeValue();
-				if (type != null && type.length() > 0) {
-					if ("object".equals(o.getNodeName()) && !type.startsWith("object:")) {
-						builder.append("object:");
-					} else if ("annotation".equals(o.getNodeName()) && !type.startsWith("annotation:")) {
-						builder.append("annotation:");
-					}
-					builder.append(type);
+		if (o.hasAttributes) {
+			type = o.classAttribute;
+			if (type != null && type.length() > 0) {
+				if ("object".equals(o.name) && !type.startsWith("object:")) {
+					builder.append("object:");
+				} else if ("annotation".equals(o.name) && !type.startsWith("annotation:")) {
+					builder.append("annotation:");
 				}
+				builder.append(type);
 			}
 		}
 		if (type == null && defaultType != null) builder.append(defaultType);
-		builder.append("]\r\n");
+		builder.append(']');
+		out.add(prefix, builder.toString());
+	}
+
+	private static XMLInputFactory getInputFactory() {
+		XMLInputFactory factory = inputFactory;
+		if (factory == null) {
+			factory = XMLInputFactory.newInstance();
+			factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+			// Configuration files never need DTDs, disable DTDs and external entities (XXE)
+			factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+			factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+			factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+			// CDATA sections are separated text nodes, which are trimmed separately
+			if (factory.isPropertySupported(reportCDATA)) factory.setProperty(reportCDATA, Boolean.TRUE);
+			inputFactory = factory; // factory is thread safe after being configured
+		}
+		return factory;
+	}
+
+	private static String getQualifiedName(String prefix, String localName) {
+		return prefix == null || prefix.length() == 0 ? localName : prefix + ":" + localName;
+	}
+
+	/*
+	 * Read the current element and all its descendants.
+	 */
+	private static XMLNode readElement(XMLStreamReader reader) throws XMLStreamException {
+		XMLNode node = new XMLNode();
+		node.name = getQualifiedName(reader.getPrefix(), reader.getLocalName());
+		int count = reader.getAttributeCount();
+		node.hasAttributes = count > 0 || reader.getNamespaceCount() > 0; // xmlns declarations are attributes in DOM
+		for (int i = 0; i < count; i++) {
+			String name = getQualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i));
+			if ("class".equals(name)) {
+				node.classAttribute = reader.getAttributeValue(i);
+			} else if ("null".equals(name)) {
+				node.nullAttribute = reader.getAttributeValue(i);
+			}
+		}
+		StringBuilder text = null; // adjacent characters are one text node
+		while (reader.hasNext()) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.SPACE
+					|| event == XMLStreamConstants.ENTITY_REFERENCE) {
+				if (text == null) text = new StringBuilder();
+				text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+				continue;
+			}
+			if (text != null) {
+				node.children.add(text.toString());
+				text = null;
+			}
+			if (event == XMLStreamConstants.CDATA) {
+				node.children.add(reader.getText());
+			} else if (event == XMLStreamConstants.START_ELEMENT) {
+				node.children.add(readElement(reader));
+			} else if (event == XMLStreamConstants.COMMENT) {
+				if (xmlToINIAddComments) {
+					XMLComment c = new XMLComment();
+					c.text = reader.getText();
+					node.children.add(c);
+				}
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				break;
+			}
+		}
+		return node;
+	}
+
+	/*
+	 * Stream the document, each top level element is read and converted before
+	 * reading next one.
+	 */
+	private void convert(InputStream fis, XMLOutput out) throws XMLStreamException {
+		XMLStreamReader reader = getInputFactory().createXMLStreamReader(fis);
+		try {
+			while (reader.hasNext() && reader.next() != XMLStreamConstants.START_ELEMENT) {
+				// skip prolog
+			}
+			if (!reader.isStartElement()) throw new XMLStreamException("Premature end of file.");
+			XMLNode root = new XMLNode();
+			root.name = getQualifiedName(reader.getPrefix(), reader.getLocalName());
+			int count = reader.getAttributeCount();
+			root.hasAttributes = count > 0 || reader.getNamespaceCount() > 0;
+			for (int i = 0; i < count; i++) {
+				if ("class".equals(getQualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)))) {
+					root.classAttribute = reader.getAttributeValue(i);
+				}
+			}
+			StringBuilder text = null;
+			while (reader.hasNext()) {
+				int event = reader.next();
+				if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.SPACE
+						|| event == XMLStreamConstants.ENTITY_REFERENCE) {
+					if (text == null) text = new StringBuilder();
+					text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+					continue;
+				}
+				if (text != null) {
+					checkRootText(root, text.toString());
+					text = null;
+				}
+				if (event == XMLStreamConstants.CDATA) {
+					checkRootText(root, reader.getText());
+				} else if (event == XMLStreamConstants.START_ELEMENT) {
+					XMLNode el = readElement(reader);
+					visit(out, el.name, el, NodeType.none);
+					if (xmlToINIAddComments) out.newLine();
+				} else if (event == XMLStreamConstants.COMMENT) {
+					if (xmlToINIAddComments) comment(out, reader.getText());
+				} else if (event == XMLStreamConstants.END_ELEMENT) {
+					break;
+				}
+			}
+			while (reader.hasNext()) {
+				reader.next(); // check the remaining content is well-formed
+			}
+			// Root element is visited with null prefix, which always generates "null=[...]"
+			appendType(out, null, root, null);
+		} finally {
+			reader.close();
+		}
+	}
+
+	private static void checkRootText(XMLNode root, String text) {
+		text = text.trim();
+		if (text.length() > 0) {
+			throw new RuntimeException("Unexpected text \"" + text + "\" inside element <" + root.name + ">!");
+		}
 	}
 
 	public InputStream convertToProperties(InputStream fis) throws Exception {
-		DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-		dbf.setNamespaceAware(true);
-		dbf.setAttribute("http://xml.org/sax/features/namespaces", Boolean.TRUE);
 		StringBuilder builder = new StringBuilder();
-		visit(builder, null, dbf.newDocumentBuilder().parse(fis).getDocumentElement(), NodeType.none);
+		convert(fis, new TextOutput(builder));
 		if (xmlToINIDebugOutput) System.out.println(builder.toString());
 		return new ByteArrayInputStream(builder.toString().getBytes(Config.configFileEncoding));
 	}
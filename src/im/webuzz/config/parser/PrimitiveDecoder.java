@@ -0,0 +1,258 @@
+package im.webuzz.config.parser;
+
+/*
+ * Decode primitive values from a range of the given string, without creating
+ * substrings or boxed objects for common values.
+ *
+ * Only plain decimal numbers are decoded here. Other formats (hexadecimal,
+ * octal, huge numbers, exponents out of exact range, NaN, ...) fall back to
+ * Integer#decode, Double#parseDouble, etc., so results and exceptions are
+ * always the same as before.
+ */
+public class PrimitiveDecoder {
+
+	private static final double[] doublePowers = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+		1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+	private static final float[] floatPowers = {
+		1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+	};
+
+	// Not a plain decimal long, or overflowed
+	private static final long invalid = Long.MIN_VALUE;
+
+	/*
+	 * Parse [+-]digits, without leading zeros, at most 18 digits.
+	 * Return #invalid if it is not in this simple format.
+	 */
+	private static long parseDecimal(String s, int start, int end) {
+		if (start >= end) return invalid;
+		boolean negative = false;
+		char c = s.charAt(start);
+		if (c == '-' || c == '+') {
+			negative = c == '-';
+			start++;
+		}
+		int digits = end - start;
+		if (digits <= 0 || digits > 18) return invalid;
+		if (s.charAt(start) == '0' && digits > 1) return invalid; // octal
+		long value = 0;
+		for (int i = start; i < end; i++) {
+			c = s.charAt(i);
+			if (c < '0' || c > '9') return invalid;
+			value = value * 10 + (c - '0');
+		}
+		return negative ? -value : value;
+	}
+
+	public static int decodeInt(String s, int start, int end) {
+		long v = parseDecimal(s, start, end);
+		if (v == invalid || v < Integer.MIN_VALUE || v > Integer.MAX_VALUE) {
+			return Integer.decode(s.substring(start, end)).intValue();
+		}
+		return (int) v;
+	}
+
+	public static long decodeLong(String s, int start, int end) {
+		long v = parseDecimal(s, start, end);
+		if (v == invalid) return Long.decode(s.substring(start, end)).longValue();
+		return v;
+	}
+
+	public static short decodeShort(String s, int start, int end) {
+		long v = parseDecimal(s, start, end);
+		if (v == invalid || v < Short.MIN_VALUE || v > Short.MAX_VALUE) {
+			return Short.decode(s.substring(start, end)).shortValue();
+		}
+		return (short) v;
+	}
+
+	public static byte decodeByte(String s, int start, int end) {
+		long v = parseDecimal(s, start, end);
+		if (v == invalid || v < Byte.MIN_VALUE || v > Byte.MAX_VALUE) {
+			return Byte.decode(s.substring(start, end)).byteValue();
+		}
+		return (byte) v;
+	}
+
+	public static double parseDouble(String s, int start, int end) {
+		double v = parseExactDecimal(s, start, end, false);
+		if (Double.isNaN(v)) return Double.parseDouble(s.substring(start, end));
+		return v;
+	}
+
+	public static float parseFloat(String s, int start, int end) {
+		double v = parseExactDecimal(s, start, end, true);
+		if (Double.isNaN(v)) return Float.parseFloat(s.substring(start, end));
+		return (float) v;
+	}
+
+	/*
+	 * Parse [+-]digits[.digits][(e|E)[+-]digits] if the result can be computed
+	 * exactly with one rounding (mantissa and power of ten are both exact).
+	 * Return NaN otherwise.
+	 */
+	private static double parseExactDecimal(String s, int start, int end, boolean floatType) {
+		int i = start;
+		if (i >= end) return Double.NaN;
+		boolean negative = false;
+		char c = s.charAt(i);
+		if (c == '-' || c == '+') {
+			negative = c == '-';
+			i++;
+		}
+		long mantissa = 0;
+		boolean hasDigits = false;
+		int digits = 0;
+		int fractionDigits = 0;
+		boolean dotted = false;
+		for (; i < end; i++) {
+			c = s.charAt(i);
+			if (c >= '0' && c <= '9') {
+				hasDigits = true;
+				if (mantissa != 0 || c != '0') {
+					if (++digits > 18) return Double.NaN;
+				}
+				mantissa = mantissa * 10 + (c - '0');
+				if (dotted) fractionDigits++;
+			} else if (c == '.' && !dotted) {
+				dotted = true;
+			} else {
+				break;
+			}
+		}
+		if (!hasDigits) return Double.NaN;
+		int exponent = 0;
+		if (i < end) {
+			c = s.charAt(i++);
+			if (c != 'e' && c != 'E') return Double.NaN;
+			if (i >= end) return Double.NaN;
+			boolean negativeExp = false;
+			c = s.charAt(i);
+			if (c == '-' || c == '+') {
+				negativeExp = c == '-';
+				i++;
+			}
+			if (i >= end || end - i > 3) return Double.NaN;
+			for (; i < end; i++) {
+				c = s.charAt(i);
+				if (c < '0' || c > '9') return Double.NaN;
+				exponent = exponent * 10 + (c - '0');
+			}
+			if (negativeExp) exponent = -exponent;
+		}
+		if (mantissa == 0) return negative ? -0.0 : 0.0;
+		exponent -= fractionDigits;
+		if (floatType) {
+			if (mantissa > (1L << 24) || exponent > 10 || exponent < -10) return Double.NaN;
+			float f = exponent >= 0 ? mantissa * floatPowers[exponent] : mantissa / floatPowers[-exponent];
+			return negative ? -f : f;
+		}
+		if (mantissa > (1L << 53) || exponent > 22 || exponent < -22) return Double.NaN;
+		double d = exponent >= 0 ? mantissa * doublePowers[exponent] : mantissa / doublePowers[-exponent];
+		return negative ? -d : d;
+	}
+
+	/*
+	 * Same as ConfigINIParser#parseChar.
+	 */
+	public static char parseChar(String s, int start, int end) {
+		int len = end - start;
+		if (len == 1) return s.charAt(start);
+		if (len == 0) return 0;
+		try {
+			return (char) Integer.parseInt(s.substring(start, end));
+		} catch (NumberFormatException e) {
+			e.printStackTrace();
+			return 0;
+		}
+	}
+
+	public static boolean parseBoolean(String s, int start, int end) {
+		int len = end - start;
+		if (len == 4 && s.startsWith("true", start)) return true;
+		if (len == 5 && s.startsWith("false", start)) return false;
+		throw new RuntimeException("\"" + s.substring(start, end) + "\" is an invalid boolean value");
+	}
+
+	/*
+	 * Decode value in the given range and set it into the primitive array. Empty
+	 * value will be set as 0, false or '\0'.
+	 */
+	public static void setElement(Object array, int index, String s, int start, int end) {
+		if (array instanceof int[]) {
+			((int[]) array)[index] = start == end ? 0 : decodeInt(s, start, end);
+		} else if (array instanceof long[]) {
+			((long[]) array)[index] = start == end ? 0 : decodeLong(s, start, end);
+		} else if (array instanceof double[]) {
+			((double[]) array)[index] = start == end ? 0 : parseDouble(s, start, end);
+		} else if (array instanceof float[]) {
+			((float[]) array)[index] = start == end ? 0 : parseFloat(s, start, end);
+		} else if (array instanceof byte[]) {
+			((byte[]) array)[index] = start == end ? 0 : decodeByte(s, start, end);
+		} else if (array instanceof short[]) {
+			((short[]) array)[index] = start == end ? 0 : decodeShort(s, start, end);
+		} else if (array instanceof boolean[]) {
+			((boolean[]) array)[index] = start == end ? false : parseBoolean(s, start, end);
+		} else if (array instanceof char[]) {
+			((char[]) array)[index] = parseChar(s, start, end);
+		}
+	}
+
+	private static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+	}
+
+	/*
+	 * Return item count of the given ";" separated string, same as
+	 * StringUtils.split(s, ';', false).length.
+	 */
+	public static int countItems(String s) {
+		int idx = s.indexOf(';');
+		if (idx == -1) return 1;
+		int count = 0;
+		int lastNonEmpty = 0;
+		int start = 0;
+		int length = s.length();
+		while (true) {
+			int end = idx == -1 ? length : idx;
+			count++;
+			if (end > start && (idx == -1 || !isWhitespaceOnly(s, start, end))) lastNonEmpty = count;
+			if (idx == -1) break;
+			start = idx + 1;
+			while (start < length && isWhitespace(s.charAt(start))) start++;
+			idx = s.indexOf(';', start);
+		}
+		return lastNonEmpty;
+	}
+
+	private static boolean isWhitespaceOnly(String s, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (!isWhitespace(s.charAt(i))) return false;
+		}
+		return true;
+	}
+
+	/*
+	 * Decode the given ";" separated string into the primitive array, items are
+	 * split in the same way as StringUtils.split(s, ';', false).
+	 */
+	public static void fillArray(Object array, int length, String s) {
+		int sLength = s.length();
+		int start = 0;
+		for (int i = 0; i < length; i++) {
+			int idx = s.indexOf(';', start);
+			int end = idx == -1 ? sLength : idx;
+			int itemEnd = end;
+			if (idx != -1) {
+				while (itemEnd > start && isWhitespace(s.charAt(itemEnd - 1))) itemEnd--;
+			}
+			setElement(array, i, s, start, itemEnd);
+			if (idx == -1) break;
+			start = idx + 1;
+			while (start < sLength && isWhitespace(s.charAt(start))) start++;
+		}
+	}
+
+}
@@ -0,0 +1,107 @@
+package im.webuzz.config.parser;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Regression checks of ConfigINITokenizer against known Properties#load results,
+ * in both Java 8 and later line reader modes. Each input is also loaded by
+ * Properties of current runtime and compared with the default mode.
+ *
+ * Usage:
+ * javac -d bin $(find src test -name '*.java')
+ * java -cp bin im.webuzz.config.parser.ConfigINITokenizerTest
+ */
+public class ConfigINITokenizerTest {
+
+	private static final String ERROR = "IllegalArgumentException";
+
+	private static int failures = 0;
+
+	private static String tokenize(String content, boolean legacy) {
+		try {
+			ConfigItemStore.Builder builder = ConfigItemStore.EMPTY.toBuilder();
+			byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+			new ConfigINITokenizer(StandardCharsets.UTF_8, builder, legacy).tokenize(bytes, 0, bytes.length);
+			return new TreeMap<Object, Object>(builder.build().toProperties()).toString();
+		} catch (IllegalArgumentException e) {
+			return ERROR;
+		}
+	}
+
+	private static String load(String content) {
+		try {
+			Properties props = new Properties();
+			props.load(new StringReader(content));
+			return new TreeMap<Object, Object>(props).toString();
+		} catch (IllegalArgumentException e) {
+			return ERROR;
+		} catch (Exception e) {
+			return e.toString();
+		}
+	}
+
+	private static String items(String... kvs) {
+		Map<String, String> items = new TreeMap<String, String>();
+		for (int i = 0; i < kvs.length; i += 2) {
+			items.put(kvs[i], kvs[i + 1]);
+		}
+		return items.toString();
+	}
+
+	private static void check(String name, String content, String expectedLegacy, String expected) {
+		String legacyResult = tokenize(content, true);
+		String result = tokenize(content, false);
+		String loaded = load(content);
+		String tokenized = ConfigINITokenizer.legacyLineReader ? legacyResult : result;
+		if (!expectedLegacy.equals(legacyResult)) {
+			System.out.println("[FAIL] " + name + " (Java 8 mode): expected " + expectedLegacy + ", got " + legacyResult);
+			failures++;
+		}
+		if (!expected.equals(result)) {
+			System.out.println("[FAIL] " + name + ": expected " + expected + ", got " + result);
+			failures++;
+		}
+		if (!loaded.equals(tokenized)) {
+			System.out.println("[FAIL] " + name + " (Properties#load): expected " + loaded + ", got " + tokenized);
+			failures++;
+		}
+	}
+
+	private static void check(String name, String content, String expected) {
+		check(name, content, expected, expected);
+	}
+
+	public static void main(String[] args) {
+		check("plain", "a=1\nb : 2\nc 3\n", items("a", "1", "b", "2", "c", "3"));
+		check("comments", "# a=1\n  ! b=2\nc=3", items("c", "3"));
+		check("continuation", "a=1\\\n   2\\\r\n\t3\r\nb=4", items("a", "123", "b", "4"));
+		check("comment without continuation", "#a\\\nb=1\n", items("b", "1"));
+		check("escapes", "a\\ b\\:c=\\t\\u0041\\\\\n", items("a b:c", "\tA\\"));
+
+		// Java 8 does not check comments on lines joined by a continuation
+		check("comment after continuation only line", "\\\n#a=1\nb=2\n",
+				items("#a", "1", "b", "2"), items("b", "2"));
+		check("exclamation after continuation only line", "\\\n  !a=1\n",
+				items("!a", "1"), items());
+		check("comment after continuation", "a=1\\\n#2\n", items("a", "1#2"));
+		// Java 8 keeps the backslash flag of the comment line, the next backslash is not a continuation
+		check("backslash line after comment", "#x\\\n\\\nk=v\n",
+				items("\\", "", "k", "v"), items("k", "v"));
+
+		check("unicode escape after continuation", "a=\\u00\\\n  41\n", items("a", "A"));
+		check("unicode escape split by continuation", "a=\\\n\\u0041\n", items("a", "A"));
+		check("malformed unicode escape after continuation", "a=\\u00\\\n4\n", ERROR);
+		check("malformed unicode escape in key", "\\u00x=1\n", ERROR);
+
+		if (failures > 0) {
+			System.out.println(failures + " check(s) failed.");
+			System.exit(1);
+		}
+		System.out.println("All checks passed.");
+	}
+
+}
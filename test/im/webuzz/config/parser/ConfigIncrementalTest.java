@@ -0,0 +1,98 @@
+package im.webuzz.config.parser;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Checks of incremental rebinding in ConfigINIParser: unchanged items are
+ * skipped only if their fields still keep the values bound from the file,
+ * fields overwritten by other sources are restored on reloading.
+ *
+ * Usage:
+ * javac -d bin $(find src test -name '*.java')
+ * java -cp bin im.webuzz.config.parser.ConfigIncrementalTest
+ */
+public class ConfigIncrementalTest {
+
+	public static class Sample {
+		public static int port = 80;
+		public static String name = "default";
+		public static String[] hosts = null;
+	}
+
+	private static int failures = 0;
+
+	private static ConfigItemStore bind(String content, ConfigItemStore previous) {
+		ConfigINIParser parser = new ConfigINIParser();
+		parser.loadResource(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), false);
+		int flag = ConfigParser.FLAG_UPDATE;
+		if (previous != null) {
+			parser.setPreviousItems(previous);
+			flag |= ConfigParser.FLAG_INCREMENTAL;
+		}
+		parser.parseConfiguration(Sample.class, flag);
+		return parser.getItems();
+	}
+
+	private static void check(String name, Object expected, Object value) {
+		if (expected == null ? value != null : !expected.equals(value)) {
+			System.out.println("[FAIL] " + name + ": expected " + expected + ", got " + value);
+			failures++;
+		}
+	}
+
+	private static String hosts() {
+		return Sample.hosts == null ? null : String.join(",", Sample.hosts);
+	}
+
+	public static void main(String[] args) {
+		String content = "port=8080\nname=file\nhosts=a;b\n";
+		ConfigItemStore items = bind(content, null);
+		check("initial port", 8080, Sample.port);
+		check("initial name", "file", Sample.name);
+		check("initial hosts", "a,b", hosts());
+
+		// Other sources overwrite the fields, then the same file is reloaded
+		Sample.port = 9090;
+		Sample.name = "other";
+		Sample.hosts = new String[] { "c" };
+		items = bind(content, items);
+		check("reloaded port", 8080, Sample.port);
+		check("reloaded name", "file", Sample.name);
+		check("reloaded hosts", "a,b", hosts());
+
+		// Unchanged fields keep the bound values, changed fields are updated
+		String[] boundHosts = Sample.hosts;
+		items = bind("port=8081\nname=file\nhosts=a;b\n", items);
+		check("changed port", 8081, Sample.port);
+		check("unchanged name", "file", Sample.name);
+		check("unchanged hosts", "a,b", hosts());
+		if (Sample.hosts != boundHosts) {
+			System.out.println("[FAIL] unchanged hosts: expected the bound array to be kept");
+			failures++;
+		}
+
+		// Overwritten by other sources and changed in the file at the same time
+		Sample.name = "other";
+		items = bind("port=8082\nname=file\nhosts=a;b\n", items);
+		check("overwritten name with other changes", "file", Sample.name);
+		check("changed port again", 8082, Sample.port);
+
+		// A field bound from another store is restored even with the same value
+		Sample.port = 1;
+		ConfigItemStore others = bind("port=8082\n", null);
+		Sample.port = 2;
+		bind("port=8082\nname=file\nhosts=a;b\n", items);
+		check("port bound by another store", 8082, Sample.port);
+		Sample.port = 3;
+		bind("port=8082\n", others);
+		check("port restored for another store", 8082, Sample.port);
+
+		if (failures > 0) {
+			System.out.println(failures + " check(s) failed.");
+			System.exit(1);
+		}
+		System.out.println("All checks passed.");
+	}
+
+}
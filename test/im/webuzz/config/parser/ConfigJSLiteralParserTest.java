@@ -0,0 +1,83 @@
+package im.webuzz.config.parser;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.script.ScriptEngineManager;
+
+import im.webuzz.config.Config;
+
+/**
+ * Checks of items converted by ConfigJSLiteralParser for empty objects and
+ * arrays. If a JavaScript engine is available (e.g. Nashorn in Java 8), each
+ * script is also converted by ConfigJSToProps.js and compared.
+ *
+ * Usage:
+ * javac -d bin $(find src test -name '*.java')
+ * java -cp bin:src im.webuzz.config.parser.ConfigJSLiteralParserTest
+ */
+public class ConfigJSLiteralParserTest {
+
+	private static int failures = 0;
+
+	private static String convert(String script, boolean nativeParsing) {
+		boolean parsing = ConfigJSParser.jsNativeParsing;
+		ConfigJSParser.jsNativeParsing = nativeParsing;
+		try {
+			ConfigJSParser parser = new ConfigJSParser();
+			parser.loadResource(new ByteArrayInputStream(script.getBytes(StandardCharsets.UTF_8)), false);
+			return new TreeMap<Object, Object>(parser.getItems().toProperties()).toString();
+		} catch (RuntimeException e) {
+			return e.toString();
+		} finally {
+			ConfigJSParser.jsNativeParsing = parsing;
+		}
+	}
+
+	private static String items(String... kvs) {
+		Map<String, String> items = new TreeMap<String, String>();
+		for (int i = 0; i < kvs.length; i += 2) {
+			items.put(kvs[i], kvs[i + 1]);
+		}
+		return items.toString();
+	}
+
+	private static void check(String script, String expected, boolean engine) {
+		String result = convert(script, true);
+		if (!expected.equals(result)) {
+			System.out.println("[FAIL] " + script + ": expected " + expected + ", got " + result);
+			failures++;
+		}
+		if (!engine) return;
+		String converted = convert(script, false);
+		if (!converted.equals(result)) {
+			System.out.println("[FAIL] " + script + " (ConfigJSToProps.js): expected " + converted + ", got " + result);
+			failures++;
+		}
+	}
+
+	public static void main(String[] args) {
+		Config.configurationConversionCacheSize = 0;
+		boolean engine = new ScriptEngineManager().getEngineByName("javascript") != null;
+		if (!engine) System.out.println("No JavaScript engine, ConfigJSToProps.js is not compared.");
+
+		check("$config = {}", items("", "[empty]"), engine);
+		check("$config = { \"class\": \"map\" }", items("", "[object:map]"), engine);
+		check("$config = []", items("null", "[empty]"), engine);
+		check("$config = [{}, []]", items("", "[]", "null.0", "[empty]", "null.1", "[empty]"), engine);
+		check("$config = { a: {}, b: [], c: { d: {} } }",
+				items("a", "[empty]", "b", "[empty]", "c", "[]", "c.d", "[empty]"), engine);
+		check("$config = { a: { \"class\": \"map\" }, b: { \"class\": \"list\", value: [] } }",
+				items("a", "[object:map]", "b", "[empty]"), engine);
+		check("$config = { a: [[], {}] }", items("a", "[]", "a.0", "[empty]", "a.1", "[empty]"), engine);
+
+		if (failures > 0) {
+			System.out.println(failures + " check(s) failed.");
+			System.exit(1);
+		}
+		System.out.println("All checks passed.");
+	}
+
+}
@@ -0,0 +1,90 @@
+package im.webuzz.config.parser;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Checks of the strict JSON mode of ConfigJSLiteralParser: valid JSON is
+ * converted into the same items as the .js format, and JavaScript extensions
+ * are rejected at the offset of the first non-JSON token.
+ *
+ * Usage:
+ * javac -d bin $(find src test -name '*.java')
+ * java -cp bin im.webuzz.config.parser.ConfigJSONParserTest
+ */
+public class ConfigJSONParserTest {
+
+	private static int failures = 0;
+
+	private static String items(String... kvs) {
+		Map<String, String> items = new TreeMap<String, String>();
+		for (int i = 0; i < kvs.length; i += 2) {
+			items.put(kvs[i], kvs[i + 1]);
+		}
+		return items.toString();
+	}
+
+	private static void accept(String json, String expected) {
+		ConfigItemStore.Builder builder = ConfigItemStore.EMPTY.toBuilder();
+		ConfigJSLiteralParser parser = new ConfigJSLiteralParser(builder, true);
+		if (!parser.parse(json)) {
+			System.out.println("[FAIL] " + json + ": rejected at " + parser.getPosition());
+			failures++;
+			return;
+		}
+		String result = new TreeMap<Object, Object>(builder.build().toProperties()).toString();
+		if (!expected.equals(result)) {
+			System.out.println("[FAIL] " + json + ": expected " + expected + ", got " + result);
+			failures++;
+		}
+	}
+
+	// The expected position is marked by "^" in the input
+	private static void reject(String marked) {
+		int expected = marked.indexOf('^');
+		String json = marked.substring(0, expected) + marked.substring(expected + 1);
+		ConfigJSLiteralParser parser = new ConfigJSLiteralParser(ConfigItemStore.EMPTY.toBuilder(), true);
+		if (parser.parse(json)) {
+			System.out.println("[FAIL] " + json + ": accepted");
+			failures++;
+		} else if (parser.getPosition() != expected) {
+			System.out.println("[FAIL] " + json + ": expected position " + expected + ", got " + parser.getPosition());
+			failures++;
+		}
+	}
+
+	public static void main(String[] args) {
+		accept("{}", items("", "[empty]"));
+		accept(" {\r\n\t\"a\": 1, \"b\": [true, false, null],\n \"c\": { \"d\": \"x\\\"\\u0041\\/\" } }\n",
+				items("a", "1", "b", "true;false;[null]", "c", "d>x\"A/"));
+		accept("{ \"n\": -0.5e+2, \"z\": 0, \"id\": 12345678901234567890 }",
+				items("n", "-50", "z", "0", "id", "12345678901234567890"));
+		accept("\uFEFF{ \"a\": \"\u2028\" }", items("a", "\u2028"));
+
+		reject("^$config = {}");
+		reject("{ \"a\": 1 }^;");
+		reject("{ ^// comment\n\"a\": 1 }");
+		reject("{ \"a\": ^/* comment */ 1 }");
+		reject("{ \"a\": ^'x' }");
+		reject("{ ^a: 1 }");
+		reject("{ ^1: 1 }");
+		reject("{ \"a\": 0^x10 }");
+		reject("{ \"a\": ^+1 }");
+		reject("{ \"a\": -^ 1 }");
+		reject("{ \"a\": ^.5 }");
+		reject("{ \"a\": 1.^ }");
+		reject("{ \"a\": \"x\" ^+ \"y\" }");
+		reject("{ \"a\": 1, ^}");
+		reject("{ \"a\": [1, ^] }");
+		reject("{ \"a\": \"\\^x\" }");
+		reject("{ \"a\": \"^\t\" }");
+		reject("{ \"a\": 1 } ^x");
+
+		if (failures > 0) {
+			System.out.println(failures + " check(s) failed.");
+			System.exit(1);
+		}
+		System.out.println("All checks passed.");
+	}
+
+}
@@ -0,0 +1,100 @@
+package im.webuzz.config.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Benchmark for child key lookups of collection and map fields.
+ *
+ * For each size, properties of F fields with K children each (and one
+ * nested item for every child) are generated, then the direct children of
+ * every field are enumerated twice: by scanning all property names, which
+ * is what ConfigINIParser did before ConfigKeyIndex, and by ConfigKeyIndex.
+ * Scanning grows with fields * keys, while index lookups grow with keys.
+ *
+ * Usage:
+ * javac -d bin $(find src test -name '*.java')
+ * java -cp bin im.webuzz.config.parser.ConfigKeyIndexBench [children per field] [rounds]
+ */
+public class ConfigKeyIndexBench {
+
+	private static Properties generate(int fields, int children) {
+		Properties props = new Properties();
+		for (int i = 0; i < fields; i++) {
+			String prefix = "field" + i + ".";
+			for (int j = 0; j < children; j++) {
+				props.setProperty(prefix + j, "value" + j);
+				props.setProperty(prefix + j + ".name", "name" + j);
+			}
+		}
+		return props;
+	}
+
+	// Same as the lookup in ConfigINIParser#parseCollection before the index was introduced
+	private static String[] scanChildren(Properties props, String prefix) {
+		List<String> filteredNames = new ArrayList<String>();
+		Set<String> names = props.stringPropertyNames();
+		for (String propName : names) {
+			if (propName.startsWith(prefix)) {
+				String k = propName.substring(prefix.length());
+				String[] split = k.split("\\.");
+				if (split.length > 1) continue;
+				filteredNames.add(k);
+			}
+		}
+		String[] keyNames = filteredNames.toArray(new String[filteredNames.size()]);
+		Arrays.sort(keyNames);
+		return keyNames;
+	}
+
+	private static long runScan(Properties props, int fields) {
+		long count = 0;
+		for (int i = 0; i < fields; i++) {
+			count += scanChildren(props, "field" + i + ".").length;
+		}
+		return count;
+	}
+
+	private static long runIndex(Properties props, int fields) {
+		long count = 0;
+		Set<String> names = props.stringPropertyNames();
+		ConfigKeyIndex index = new ConfigKeyIndex(names.toArray(new String[names.size()]));
+		for (int i = 0; i < fields; i++) {
+			count += index.getChildren("field" + i + ".").length;
+		}
+		return count;
+	}
+
+	public static void main(String[] args) {
+		int children = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		int[] fieldCounts = new int[] { 50, 100, 200, 500, 1000 };
+		System.out.println("fields\tkeys\tscan(ms)\tindex(ms)\tratio");
+		for (int fields : fieldCounts) {
+			Properties props = generate(fields, children);
+			long expected = (long) fields * children;
+			// Warm up
+			if (runScan(props, fields) != expected || runIndex(props, fields) != expected) {
+				throw new IllegalStateException("Lookups return different children for " + fields + " fields");
+			}
+			long scanNanos = Long.MAX_VALUE;
+			long indexNanos = Long.MAX_VALUE;
+			for (int r = 0; r < rounds; r++) {
+				long start = System.nanoTime();
+				runScan(props, fields);
+				scanNanos = Math.min(scanNanos, System.nanoTime() - start);
+				start = System.nanoTime();
+				runIndex(props, fields);
+				indexNanos = Math.min(indexNanos, System.nanoTime() - start);
+			}
+			System.out.println(fields + "\t" + props.size()
+					+ "\t" + String.format("%.2f", scanNanos / 1e6)
+					+ "\t" + String.format("%.2f", indexNanos / 1e6)
+					+ "\t" + String.format("%.1f", (double) scanNanos / indexNanos));
+		}
+	}
+
+}